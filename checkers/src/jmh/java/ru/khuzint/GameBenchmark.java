@@ -0,0 +1,99 @@
+package ru.khuzint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки API игры: расстановка, ходы строками и выдача позиции.
+ * Партия для makeMove записывается один раз в setup случайными ходами генератора
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private static final String[] WHITE_START = {"a1", "a3", "b2", "c1", "c3", "d2", "e1", "e3", "f2", "g1", "g3", "h2"};
+    private static final String[] BLACK_START = {"a7", "b6", "b8", "c7", "d6", "d8", "e7", "f6", "f8", "g7", "h6", "h8"};
+
+    // дамки ходят туда и обратно, а простые шашки не могут бить: каждый ход --- полная проверка checkNotNeedAttack
+    private static final String[] QUIET_WHITE = {"A1", "a3", "c1", "c3", "e1", "e3", "g1", "g3"};
+    private static final String[] QUIET_BLACK = {"H8", "b8", "d8", "f8", "b6", "d6", "f6", "h6"};
+    private static final String[] QUIET_MOVES = {"a1-b2", "h8-g7", "b2-a1", "g7-h8"};
+
+    private static final int K_PLIES = 60;
+
+    private String[] moves;
+    private Game quietGame;
+    private Game finalGame;
+
+    @Setup
+    public void setup() throws GameException {
+        Game game = createStartGame();
+        MoveGenerator generator = new MoveGenerator(game);
+        MoveBuffer buffer = new MoveBuffer();
+        Random random = new Random(2022);
+
+        ArrayList<String> played = new ArrayList<>();
+        Color color = Color.WHITE;
+        while (played.size() < K_PLIES && generator.generate(color, buffer) != 0) {
+            int idx = random.nextInt(buffer.size());
+            played.add(buffer.getMoveString(idx));
+            game.makeMove(buffer, idx);
+            color = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        }
+        moves = played.toArray(new String[0]);
+        finalGame = game;
+
+        quietGame = new Game();
+        quietGame.placeCheckers(QUIET_WHITE, Color.WHITE);
+        quietGame.placeCheckers(QUIET_BLACK, Color.BLACK);
+    }
+
+    private static Game createStartGame() throws GameException {
+        Game game = new Game();
+        game.placeCheckers(WHITE_START, Color.WHITE);
+        game.placeCheckers(BLACK_START, Color.BLACK);
+        return game;
+    }
+
+    @Benchmark
+    public Game placeCheckers() throws GameException {
+        return createStartGame();
+    }
+
+    @Benchmark
+    public Game makeMoveReplay() throws GameException {
+        Game game = createStartGame();
+        for (String move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+
+    @Benchmark
+    public Game makeMoveQuiet() throws GameException {
+        for (String move : QUIET_MOVES) {
+            quietGame.makeMove(move);
+        }
+        return quietGame;
+    }
+
+    @Benchmark
+    public String[] getCheckersPosByColor() {
+        return finalGame.getCheckersPosByColor(Color.WHITE);
+    }
+}
@@ -0,0 +1,178 @@
+package ru.khuzint;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Класс пакетной проверки архива партий. Файл отображается в память кусками из целых партий,
+ * куски проигрываются параллельно (в каждом потоке один ReplayWorker со своей игрой),
+ * а результаты пишутся в файл в порядке партий, по строке на партию.
+ * Одновременно в работе не больше двух кусков на поток, поэтому память не зависит от размера архива
+ */
+public final class BatchReplayer {
+    /**
+     * Константное поле примерного размера куска файла в байтах
+     */
+    private static final int K_DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Константное поле размера окна, в котором ищется граница партий
+     */
+    private static final int K_SCAN_WINDOW = 64 * 1024;
+
+    private static final int K_CHUNKS_PER_THREAD = 2;
+    private static final long K_NANOS_IN_MILLI = 1_000_000L;
+    private static final long K_NANOS_IN_SECOND = 1_000_000_000L;
+    private static final long K_BYTES_IN_MEGABYTE = 1024 * 1024;
+
+    private final int threads;
+    private final int chunkSize;
+
+    public BatchReplayer(int threads) {
+        this(threads, K_DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param threads   --- количество потоков
+     * @param chunkSize --- примерный размер куска файла, кусок заканчивается на первой границе партий после него
+     */
+    BatchReplayer(int threads, int chunkSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    //------------API-------------------------------------------------------------------
+
+    /**
+     * Функция проверяет все партии архива и пишет результаты.
+     * Партия --- строки в формате input.txt, партии разделяются пустой строкой.
+     * Результат партии --- строка "статус\tколичество сделанных полуходов\tключ Зобриста итоговой позиции в hex",
+     * статус --- "ok" или та же ошибка, что напечатал бы App
+     *
+     * @param input  --- файл с партиями
+     * @param output --- файл для результатов, перезаписывается
+     * @return возвращает количество партий
+     */
+    public long replay(Path input, Path output) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ThreadLocal<ReplayWorker> workers = ThreadLocal.withInitial(ReplayWorker::new);
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        long games = 0;
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long start = 0;
+            while (start < size) {
+                long end = findChunkEnd(in, start + chunkSize, size);
+                ByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                pending.add(executor.submit(() -> workers.get().replayChunk(chunk)));
+                start = end;
+
+                if (pending.size() >= threads * K_CHUNKS_PER_THREAD) {
+                    games += writeResult(pending.poll(), out);
+                }
+            }
+            while (!pending.isEmpty()) {
+                games += writeResult(pending.poll(), out);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return games;
+    }
+
+    /**
+     * Команда: args[0] --- файл с партиями, args[1] --- файл для результатов,
+     * args[2] --- количество потоков, по умолчанию количество ядер
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Path input = Paths.get(args[0]);
+
+        long start = System.nanoTime();
+        long games = new BatchReplayer(threads).replay(input, Paths.get(args[1]));
+        long time = Math.max(System.nanoTime() - start, 1);
+
+        long megabytes = input.toFile().length() / K_BYTES_IN_MEGABYTE;
+        System.out.println(games + " games, " + megabytes + " MB, " + time / K_NANOS_IN_MILLI + " ms, "
+                + megabytes * K_NANOS_IN_SECOND / time + " MB/sec");
+    }
+    //----------------------------------------------------------------------------------
+
+
+    /**
+     * Функция ищет конец куска: начало первой строки после пустой строки, начиная с from
+     *
+     * @return возвращает позицию конца куска или size, если границы нет
+     */
+    private static long findChunkEnd(FileChannel in, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(K_SCAN_WINDOW);
+        boolean isItLineStart = false;
+        boolean isItBlankLine = false;
+
+        for (long pos = Math.max(from - 1, 0); pos < size;) {
+            window.clear();
+            int count = in.read(window, pos);
+            for (int idx = 0; idx < count; ++idx) {
+                byte current = window.get(idx);
+                if (current == '\n') {
+                    if (isItBlankLine) {
+                        return pos + idx + 1;
+                    }
+                    isItLineStart = true;
+                    isItBlankLine = true;
+                } else if (current != '\r' || !isItLineStart) {
+                    isItLineStart = false;
+                    isItBlankLine = false;
+                }
+            }
+            pos += count;
+        }
+        return size;
+    }
+
+    /**
+     * Функция дожидается результатов куска и пишет их
+     *
+     * @return возвращает количество партий в куске
+     */
+    private static long writeResult(Future<byte[]> result, FileChannel out) throws IOException {
+        byte[] records;
+        try {
+            records = result.get();
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("replay interrupted");
+        } catch (ExecutionException exp) {
+            throw new IOException("replay failed", exp.getCause());
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+
+        long games = 0;
+        for (byte current : records) {
+            if (current == '\n') {
+                games++;
+            }
+        }
+        return games;
+    }
+}
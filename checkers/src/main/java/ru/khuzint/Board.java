@@ -0,0 +1,309 @@
+package ru.khuzint;
+
+import java.util.Arrays;
+
+/**
+ * Класс доска --- битборд на 32 черных поля.
+ * Черные поля нумеруются снизу вверх и слева направо: a1 = 0, c1 = 1, ..., h8 = 31.
+ * Шашки хранятся тремя масками: белые, черные и дамки.
+ * Вместе с масками поддерживается ключ Зобриста позиции.
+ */
+final class Board {
+
+    //------------tables----------------------------------------------------------------
+    /**
+     * Константное поле количества черных полей
+     */
+    static final int K_SQUARES = 32;
+
+    /**
+     * Константное поле количества диагональных направлений
+     */
+    static final int K_DIRECTIONS = 4;
+
+    /**
+     * Направления в порядке: вверх-влево, вверх-вправо, вниз-влево, вниз-вправо
+     */
+    private static final int[] DIRECTION_X = {-1, +1, -1, +1};
+    private static final int[] DIRECTION_Y = {+1, +1, -1, -1};
+
+    /**
+     * Координаты полей по номеру поля
+     */
+    private static final int[] SQUARE_X = new int[K_SQUARES];
+    private static final int[] SQUARE_Y = new int[K_SQUARES];
+
+    /**
+     * Лучи по диагоналям: RAYS[square][direction] --- номера полей от ближнего к дальнему
+     */
+    private static final int[][][] RAYS = new int[K_SQUARES][K_DIRECTIONS][];
+
+    /**
+     * Маски полей строго между двумя полями одной диагонали, 0 если поля не на одной диагонали
+     */
+    private static final int[][] BETWEEN = new int[K_SQUARES][K_SQUARES];
+
+    static {
+        for (int square = 0; square < K_SQUARES; ++square) {
+            int y = square / 4 + 1;
+            int x = square % 4 * 2 + 1 + (y + 1) % 2;
+            SQUARE_X[square] = x;
+            SQUARE_Y[square] = y;
+        }
+
+        for (int square = 0; square < K_SQUARES; ++square) {
+            for (int direction = 0; direction < K_DIRECTIONS; ++direction) {
+                int[] buffer = new int[Game.K_BOARD_SIZE];
+                int length = 0;
+                int between = 0;
+
+                int x = SQUARE_X[square] + DIRECTION_X[direction];
+                int y = SQUARE_Y[square] + DIRECTION_Y[direction];
+                while (getSquare(x, y) != -1) {
+                    int next = getSquare(x, y);
+                    buffer[length++] = next;
+                    BETWEEN[square][next] = between;
+                    between |= 1 << next;
+
+                    x += DIRECTION_X[direction];
+                    y += DIRECTION_Y[direction];
+                }
+
+                RAYS[square][direction] = Arrays.copyOf(buffer, length);
+            }
+        }
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------fields----------------------------------------------------------------
+    /**
+     * Маска белых шашек
+     */
+    private int white;
+
+    /**
+     * Маска черных шашек
+     */
+    private int black;
+
+    /**
+     * Маска дамок обоих цветов
+     */
+    private int queens;
+
+    /**
+     * Ключ Зобриста шашек на доске, без учета того, чей ход
+     */
+    private long key;
+    //----------------------------------------------------------------------------------
+
+
+    //------------squares---------------------------------------------------------------
+
+    /**
+     * Функция возвращает номер черного поля по координатам
+     *
+     * @return возвращает номер поля или -1, если поле белое или вне доски
+     */
+    static int getSquare(int x, int y) {
+        if (x < 1 || x > Game.K_BOARD_SIZE || y < 1 || y > Game.K_BOARD_SIZE || x % 2 != y % 2) {
+            return -1;
+        }
+        return (y - 1) * 4 + (x - 1) / 2;
+    }
+
+    static int getX(int square) {
+        return SQUARE_X[square];
+    }
+
+    static int getY(int square) {
+        return SQUARE_Y[square];
+    }
+
+    /**
+     * Функция возвращает луч из поля в направлении. Массив общий, изменять его нельзя
+     */
+    static int[] getRay(int square, int direction) {
+        return RAYS[square][direction];
+    }
+
+    /**
+     * Функция возвращает маску полей строго между from и to
+     */
+    static int getBetween(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Функция проверяет, что поле находится на последней горизонтали для шашек цвета
+     */
+    static boolean isItLastRow(int square, Color color) {
+        if (color == Color.WHITE) {
+            return SQUARE_Y[square] == Game.K_BOARD_SIZE;
+        } else {
+            return SQUARE_Y[square] == 1;
+        }
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------masks-----------------------------------------------------------------
+
+    int getMask(Color color) {
+        return color == Color.WHITE ? white : black;
+    }
+
+    int getQueens() {
+        return queens;
+    }
+
+    int getOccupied() {
+        return white | black;
+    }
+
+    boolean isItEmpty(int square) {
+        return ((white | black) & 1 << square) == 0;
+    }
+
+    boolean isItQueen(int square) {
+        return (queens & 1 << square) != 0;
+    }
+
+    /**
+     * Функция возвращает цвет шашки на поле. Следует использовать, когда уверены, что поле не пусто
+     */
+    Color getColor(int square) {
+        return (white & 1 << square) != 0 ? Color.WHITE : Color.BLACK;
+    }
+
+    long getKey() {
+        return key;
+    }
+
+    /**
+     * Функция проверяет, что на досках одинаковые позиции
+     */
+    boolean isItSamePosition(Board other) {
+        return white == other.white && black == other.black && queens == other.queens;
+    }
+
+    /**
+     * Функция возвращает ключ Зобриста шашки на поле. Следует использовать, когда уверены, что поле не пусто
+     */
+    private long getPieceKey(int square) {
+        return Zobrist.getPieceKey(square, getColor(square), isItQueen(square));
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------changes---------------------------------------------------------------
+
+    void place(int square, Color color, boolean isItQueen) {
+        int bit = 1 << square;
+        if (color == Color.WHITE) {
+            white |= bit;
+        } else {
+            black |= bit;
+        }
+        if (isItQueen) {
+            queens |= bit;
+        }
+        key ^= Zobrist.getPieceKey(square, color, isItQueen);
+    }
+
+    void remove(int square) {
+        if (!isItEmpty(square)) {
+            key ^= getPieceKey(square);
+        }
+
+        int mask = ~(1 << square);
+        white &= mask;
+        black &= mask;
+        queens &= mask;
+    }
+
+    void clear() {
+        white = 0;
+        black = 0;
+        queens = 0;
+        key = 0;
+    }
+
+    /**
+     * Функция перемещает шашку с поля from на пустое поле to
+     */
+    void move(int from, int to) {
+        key ^= getPieceKey(from) ^ Zobrist.getPieceKey(to, getColor(from), isItQueen(from));
+
+        int fromTo = 1 << from | 1 << to;
+        if ((white & 1 << from) != 0) {
+            white ^= fromTo;
+        } else {
+            black ^= fromTo;
+        }
+        if ((queens & 1 << from) != 0) {
+            queens ^= fromTo;
+        }
+    }
+
+    void makeQueen(int square) {
+        if (isItQueen(square)) {
+            return;
+        }
+
+        key ^= getPieceKey(square) ^ Zobrist.getPieceKey(square, getColor(square), true);
+        queens |= 1 << square;
+    }
+
+    /**
+     * Функция делает ход из буфера без проверок, ход должен быть найден MoveGenerator для этой позиции.
+     * Побитые шашки снимаются сразу, шашка на последней горизонтали становится дамкой
+     *
+     * @param moves --- буфер ходов
+     * @param idx   --- номер хода в буфере
+     * @param undo  --- куда сохранить позицию для unmakeMove
+     */
+    void makeMove(MoveBuffer moves, int idx, MoveUndo undo) {
+        undo.save(white, black, queens, key);
+
+        int lastStep = moves.getPathLength(idx) - 1;
+        for (int step = 0; step < lastStep; ++step) {
+            int from = moves.getSquare(idx, step);
+            int to = moves.getSquare(idx, step + 1);
+            if (moves.isItAttack(idx)) {
+                remove(Integer.numberOfTrailingZeros(BETWEEN[from][to] & (white | black)));
+            }
+
+            move(from, to);
+            if (isItLastRow(to, getColor(to))) {
+                makeQueen(to);
+            }
+        }
+    }
+
+    /**
+     * Функция откатывает ход, сделанный makeMove
+     */
+    void unmakeMove(MoveUndo undo) {
+        white = undo.getWhite();
+        black = undo.getBlack();
+        queens = undo.getQueens();
+        key = undo.getKey();
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------for output------------------------------------------------------------
+
+    /**
+     * Функция возвращает строку-позицию шашки на поле, дамки пишутся заглавной буквой
+     */
+    String getStringPos(int square) {
+        char startLetter = isItQueen(square) ? 'A' : 'a';
+        char letter = (char) (startLetter + SQUARE_X[square] - 1);
+        char number = (char) ('0' + SQUARE_Y[square]);
+        return letter + Character.toString(number);
+    }
+    //----------------------------------------------------------------------------------
+}
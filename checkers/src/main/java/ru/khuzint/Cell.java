@@ -1,12 +1,52 @@
 package ru.khuzint;
 
 public final class Cell {
+    private static final int K_HASH_MULTIPLIER = 31;
+
+    /**
+     * Поля доски по индексу (y - 1) * K_BOARD_SIZE + (x - 1), общие для всех шашек
+     */
+    private static final Cell[] CELLS = new Cell[Game.K_BOARD_SIZE * Game.K_BOARD_SIZE];
+
+    static {
+        for (int y = 1; y <= Game.K_BOARD_SIZE; ++y) {
+            for (int x = 1; x <= Game.K_BOARD_SIZE; ++x) {
+                CELLS[getIndex(x, y)] = new Cell(x, y);
+            }
+        }
+    }
+
     private final int x;
     private final int y;
 
-    Cell(int x, int y) {
+    /**
+     * Номер черного поля на доске или -1, если поле белое или вне доски
+     */
+    private final int square;
+    private final boolean isItBlackCell;
+    private final boolean isItCellInBoard;
+
+    private Cell(int x, int y) {
         this.x = x;
         this.y = y;
+        this.square = Board.getSquare(x, y);
+        this.isItBlackCell = isItBlackCell(x, y);
+        this.isItCellInBoard = isItCellInBoard(x, y);
+    }
+
+    /**
+     * Функция возвращает поле по координатам. Поля доски берутся из общей таблицы,
+     * новый объект создается только для координат вне доски
+     */
+    static Cell valueOf(int x, int y) {
+        if (isItCellInBoard(x, y)) {
+            return CELLS[getIndex(x, y)];
+        }
+        return new Cell(x, y);
+    }
+
+    private static int getIndex(int x, int y) {
+        return (y - 1) * Game.K_BOARD_SIZE + (x - 1);
     }
 
     public int getX() {
@@ -17,11 +57,26 @@ public final class Cell {
         return y;
     }
 
+    /**
+     * Функция возвращает номер черного поля на доске или -1, если поле белое или вне доски
+     */
+    int getSquare() {
+        return square;
+    }
+
     public boolean isItBlackCell() {
-        return x % 2 == y % 2;
+        return isItBlackCell;
     }
 
     public boolean isItCellInBoard() {
+        return isItCellInBoard;
+    }
+
+    static boolean isItBlackCell(int x, int y) {
+        return x % 2 == y % 2;
+    }
+
+    static boolean isItCellInBoard(int x, int y) {
         if (1 <= x && x <= Game.K_BOARD_SIZE) {
             return 1 <= y && y <= Game.K_BOARD_SIZE;
         }
@@ -29,15 +84,32 @@ public final class Cell {
     }
 
     public boolean isItValidCell() {
-        return isItBlackCell() && isItCellInBoard();
+        return square != -1;
     }
 
     public static Cell makeStepInDirectionAndReturnNew(Cell current, Cell direction) {
-        return new Cell(current.x + direction.x, current.y + direction.y);
+        return valueOf(current.x + direction.x, current.y + direction.y);
     }
 
     public static boolean equals(Cell first, Cell second) {
-        return first.x == second.x && first.y == second.y;
+        return first.equals(second);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Cell)) {
+            return false;
+        }
+        Cell cell = (Cell) other;
+        return x == cell.x && y == cell.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return K_HASH_MULTIPLIER * x + y;
     }
 }
 
@@ -0,0 +1,19 @@
+package ru.khuzint;
+
+/**
+ * Интерфейс функции оценки позиции для поиска Search.
+ * Позиция передается масками черных полей: номер бита --- номер поля, a1 = 0, c1 = 1, ..., h8 = 31
+ */
+public interface Evaluator {
+    /**
+     * Функция оценивает позицию с точки зрения ходящего цвета
+     *
+     * @param own    --- маска шашек ходящего цвета
+     * @param enemy  --- маска шашек соперника
+     * @param queens --- маска дамок обоих цветов
+     * @param color  --- ходящий цвет
+     * @return возвращает оценку, положительную, если позиция лучше для ходящего.
+     * По модулю оценка должна быть меньше Search.K_WIN - Search.K_MAX_PLY
+     */
+    int evaluate(int own, int enemy, int queens, Color color);
+}
@@ -12,9 +12,15 @@ public final class Game {
     public static final int K_BOARD_SIZE = 8;
 
     /**
-     * Поле --- список шашек
+     * Константные поля формата хода: длина простого хода и шаг между полями хода
      */
-    private final ArrayList<Checker> checkers = new ArrayList<>();
+    private static final int K_SIMPLE_MOVE_LENGTH = "c3-d4".length();
+    private static final int K_POS_STEP = "c3:".length();
+
+    /**
+     * Поле --- битборд с шашками
+     */
+    private final Board board = new Board();
     //----------------------------------------------------------------------------------
 
 
@@ -38,11 +44,50 @@ public final class Game {
      * @param move --- строка-описание хода шашки
      */
     public void makeMove(String move) throws GameException {
-        checkCorrectInput(move, "([a-hA-H][1-8]-[a-hA-H][1-8])|(([a-hA-H][1-8]:)+[a-hA-H][1-8])");
-        if (move.contains("-")) {
-            makeSimpleMove(move);
-        } else {
-            makeAttackMove(move);
+        makeMove(move, 0, move.length());
+    }
+
+    /**
+     * Функция чтобы сделать ход, записанный в части последовательности символов, например в буфере чтения.
+     * Ход разбирается без регулярных выражений и промежуточных строк, проверки и ошибки те же, что у строкового хода
+     *
+     * @param move  --- последовательность символов с описанием хода шашки
+     * @param start --- индекс начала описания
+     * @param end   --- индекс конца описания, не включительно
+     */
+    public void makeMove(CharSequence move, int start, int end) throws GameException {
+        boolean isItAttack = checkCorrectMoveInput(move, start, end);
+
+        for (int pos = start; pos + K_POS_STEP < end; pos += K_POS_STEP) {
+            int from = getSquareFromPos(move, pos);
+            checkNotEmptySquare(from);
+            int to = getSquareFromPos(move, pos + K_POS_STEP);
+            checkEmptySquare(to);
+
+            if (isItAttack) {
+                makeAttackStep(from, to);
+            } else {
+                makeSimpleMove(from, to);
+            }
+        }
+    }
+
+    /**
+     * Функция чтобы сделать ход из буфера ходов, например найденный MoveGenerator.
+     * Ход проверяется так же, как и строковый
+     *
+     * @param moves --- буфер ходов
+     * @param idx   --- номер хода в буфере
+     */
+    public void makeMove(MoveBuffer moves, int idx) throws GameException {
+        if (!moves.isItAttack(idx)) {
+            makeSimpleMove(moves.getFrom(idx), moves.getTo(idx));
+            return;
+        }
+
+        int lastStep = moves.getPathLength(idx) - 1;
+        for (int step = 0; step < lastStep; ++step) {
+            makeAttackStep(moves.getSquare(idx, step), moves.getSquare(idx, step + 1));
         }
     }
 
@@ -53,23 +98,50 @@ public final class Game {
      * @return возвращает список строк-позиций шашек
      */
     public String[] getCheckersPosByColor(Color color) {
-        var checkersByColor = getCheckersByColor(color);
-
         ArrayList<String> checkersPos = new ArrayList<>();
-        for (var checker : checkersByColor) {
-            checkersPos.add(checker.getStringPos());
+        for (int rest = board.getMask(color); rest != 0; rest &= rest - 1) {
+            checkersPos.add(board.getStringPos(Integer.numberOfTrailingZeros(rest)));
         }
 
         Collections.sort(checkersPos);
         return checkersPos.toArray(new String[0]);
     }
+
+    /**
+     * Функция возвращает 64-битный ключ Зобриста позиции. Ключ обновляется за O(1) при каждом изменении доски,
+     * поэтому его можно брать после каждого хода, например для поиска повторений или кэша позиций.
+     * Ключ не учитывает, чей ход
+     */
+    public long getZobristKey() {
+        return board.getKey();
+    }
+
+    /**
+     * Игры равны, если на досках одинаковые позиции
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Game)) {
+            return false;
+        }
+        return board.isItSamePosition(((Game) other).board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(board.getKey());
+    }
     //----------------------------------------------------------------------------------
 
 
     //------------for place checkers----------------------------------------------------
 
     /**
-     * Функция чтобы положить шашку на доску
+     * Функция чтобы положить шашку на доску.
+     * Если поле уже занято, новая шашка заменяет старую
      *
      * @param checkerPos --- строка-позиция шашки
      * @param color      --- цвет шашки
@@ -77,14 +149,27 @@ public final class Game {
     private void placeChecker(String checkerPos, Color color) throws GameException {
         checkCorrectInput(checkerPos, "[a-hA-H][1-8]");
 
-        Checker newChecker = new Checker(checkerPos, color);
+        Cell cell = Checker.getCellFromPos(checkerPos);
+        checkValidCell(cell);
 
-        if (checkerPos.matches("[A-H][1-8]")) {
-            newChecker.makeQueen();
-        }
+        boolean isItQueen = Character.isUpperCase(checkerPos.charAt(0));
+        placeChecker(getSquare(cell), color, isItQueen);
+    }
 
-        checkers.add(newChecker);
-        checkValidCell(newChecker.getCell());
+    /**
+     * Функция чтобы положить уже проверенную шашку на черное поле доски.
+     * Если поле уже занято, новая шашка заменяет старую
+     */
+    void placeChecker(int square, Color color, boolean isItQueen) {
+        board.remove(square);
+        board.place(square, color, isItQueen);
+    }
+
+    /**
+     * Функция убирает с доски все шашки, чтобы переиспользовать игру для следующей партии
+     */
+    void clear() {
+        board.clear();
     }
     //----------------------------------------------------------------------------------
 
@@ -92,79 +177,61 @@ public final class Game {
     //------------for make move---------------------------------------------------------
 
     /**
-     * Функция чтобы сделать ход без атаки
+     * Функция чтобы сделать ход без атаки между черными полями доски
      *
-     * @param move --- строка-описание хода шашки
+     * @param from --- номер поля, откуда шашка перемещается
+     * @param to   --- номер поля, куда шашка перемещается
      */
-    private void makeSimpleMove(String move) throws GameException {
-        String[] positions = move.split("-");
-        Cell from = Checker.getCellFromPos(positions[0]);
-        Cell to = Checker.getCellFromPos(positions[1]);
+    private void makeSimpleMove(int from, int to) throws GameException {
+        checkNotEmptySquare(from);
+        checkEmptySquare(to);
 
-        checkNotEmptyCell(from);
-        checkEmptyCell(to);
-
-        Checker current = getCheckerByCell(from);
-        ArrayList<Checker> currentTeam = getCheckersByColor(current.getColor());
-        for (var checker : currentTeam) {
-            checkNotNeedAttack(checker);
-        }
+        checkNotNeedAttack(board.getColor(from));
         move(from, to, false);
-
     }
 
     /**
-     * Функия чтобы сделать ход с атакой
+     * Функция чтобы сделать одно перемещение атаки между черными полями доски
      *
-     * @param move --- строка-описание хода шашки
+     * @param from --- номер поля, откуда шашка перемещается
+     * @param to   --- номер поля, куда шашка перемещается
      */
-    private void makeAttackMove(String move) throws GameException {
-        String[] positions = move.split(":");
-
-        int lastIdx = positions.length - 1;
-        for (int idx = 0; idx < lastIdx; ++idx) {
-            Cell from = Checker.getCellFromPos(positions[idx]);
-            Cell to = Checker.getCellFromPos(positions[idx + 1]);
-
-            checkNotEmptyCell(from);
-            checkEmptyCell(to);
+    private void makeAttackStep(int from, int to) throws GameException {
+        checkNotEmptySquare(from);
+        checkEmptySquare(to);
 
-            move(from, to, true);
-        }
+        move(from, to, true);
     }
 
     /**
      * Функция чтобы сделать ход с одного поля на другое
      *
-     * @param from       --- поле, откуда шашка перемещается
-     * @param to         --- поле, куда шашка перемещается
+     * @param from       --- номер поля, откуда шашка перемещается
+     * @param to         --- номер поля, куда шашка перемещается
      * @param isItAttack --- булева переменная, true если перемещение является атакой, false иначе
      */
-    private void move(Cell from, Cell to, boolean isItAttack) throws GameException {
-        Checker current = getCheckerByCell(from);
-        checkCorrectMove(current, to, isItAttack);
+    private void move(int from, int to, boolean isItAttack) throws GameException {
+        checkCorrectMove(from, to, isItAttack);
 
         if (isItAttack) {
             killCheckerOnMove(from, to);
         }
 
-        current.setCell(to);
-        if (current.isItOnLastRow()) {
-            current.makeQueen();
+        board.move(from, to);
+        if (Board.isItLastRow(to, board.getColor(to))) {
+            board.makeQueen(to);
         }
     }
 
     /**
      * Функция, чтобы убрать с доски все шашки, убитые за одно перемещение
      *
-     * @param from --- поле, откуда шашка премещается
-     * @param to   --- поле, куда шашка перемещается
+     * @param from --- номер поля, откуда шашка премещается
+     * @param to   --- номер поля, куда шашка перемещается
      */
-    private void killCheckerOnMove(Cell from, Cell to) throws GameException {
-        Checker current = getCheckerByCell(from);
-
-        var victim = checkCorrectKillAndReturnVictim(current, to);
-        checkers.remove(victim);
+    private void killCheckerOnMove(int from, int to) throws GameException {
+        int victim = checkCorrectKillAndReturnVictim(from, to);
+        board.remove(victim);
     }
     //----------------------------------------------------------------------------------
 
@@ -172,62 +239,35 @@ public final class Game {
     //------------for get checkers------------------------------------------------------
 
     /**
-     * Функция возвращает список шашек по цвету
-     *
-     * @param color --- цвет шашек, которые нужно вернуть
-     * @return возвращает список шашек
-     */
-    private ArrayList<Checker> getCheckersByColor(Color color) {
-        ArrayList<Checker> checkersByColor = new ArrayList<>();
-        for (var current : checkers) {
-            if (current.getColor() == color) {
-                checkersByColor.add(current);
-            }
-        }
-
-        return checkersByColor;
-    }
-
-    /**
-     * Функция, которая возращает шашку на текущем поле или null
+     * Функция возвращает номер поля на битборде. Следует использовать для уже проверенных полей
      *
-     * @param cell --- поле, с которого хотим получить шашку
-     * @return возвращает шашку на поле или null
+     * @param cell --- черное поле внутри доски
+     * @return возвращает номер поля
      */
-    private Checker getCheckerByCellOrNull(Cell cell) {
-        for (var current : checkers) {
-            if (Cell.equals(cell, current.getCell())) {
-                return current;
-            }
-        }
-
-        return null;
+    private static int getSquare(Cell cell) {
+        return cell.getSquare();
     }
 
     /**
-     * Функция, которая возвращает шашку на текущем поле или выбрасывает исключение, если поле пусто.
-     * Следует использовать, когда уверены, что шашка на поле есть
+     * Функция возвращает номер поля из позиции хода, например "c3" или "C3".
+     * Позиция уже проверена checkCorrectMoveInput, поле проверяется так же, как checkValidCell
      *
-     * @param cell --- поле, с которого хотим получить шашку
-     * @return возвращает шашку на поле
+     * @param move --- последовательность символов с описанием хода
+     * @param pos  --- индекс начала позиции
+     * @return возвращает номер черного поля
      */
-    private Checker getCheckerByCell(Cell cell) throws EmptyCellException {
-        var current = getCheckerByCellOrNull(cell);
-        if (current == null) {
-            throw new EmptyCellException();
-        }
-        return current;
+    private static int getSquareFromPos(CharSequence move, int pos) throws GameException {
+        int x = Character.toLowerCase(move.charAt(pos)) - 'a' + 1;
+        int y = move.charAt(pos + 1) - '0';
+        checkValidCell(x, y);
+        return Board.getSquare(x, y);
     }
 
     /**
-     * Функция проверяет, есть ли на поле шашка или нет
-     *
-     * @param cell --- поле для проверки
-     * @return возвращает true, если на поле есть шашка, false иначе
+     * Функция возвращает битборд для генератора ходов и поиска
      */
-    private boolean isItEmptyCell(Cell cell) {
-        var current = getCheckerByCellOrNull(cell);
-        return current == null;
+    Board getBoard() {
+        return board;
     }
     //----------------------------------------------------------------------------------
 
@@ -247,13 +287,50 @@ public final class Game {
         }
     }
 
+    /**
+     * Функция проверяет, что ход записан так же, как распознает РВ
+     * "([a-hA-H][1-8]-[a-hA-H][1-8])|(([a-hA-H][1-8]:)+[a-hA-H][1-8])", но без создания объектов
+     *
+     * @param move  --- последовательность символов с описанием хода
+     * @param start --- индекс начала описания
+     * @param end   --- индекс конца описания, не включительно
+     * @return возвращает true, если ход --- атака, и false, если ход простой
+     */
+    private static boolean checkCorrectMoveInput(CharSequence move, int start, int end) throws IncorrectInputException {
+        int length = end - start;
+        if (length < K_SIMPLE_MOVE_LENGTH || (length + 1) % K_POS_STEP != 0) {
+            throw new IncorrectInputException();
+        }
+
+        char separator = move.charAt(start + 2);
+        if (separator != ':' && (separator != '-' || length != K_SIMPLE_MOVE_LENGTH)) {
+            throw new IncorrectInputException();
+        }
+        for (int pos = start; pos < end; pos += K_POS_STEP) {
+            if (!isItPos(move, pos) || pos + 2 < end && move.charAt(pos + 2) != separator) {
+                throw new IncorrectInputException();
+            }
+        }
+        return separator == ':';
+    }
+
+    /**
+     * Функция проверяет, что с индекса pos записана позиция [a-hA-H][1-8]
+     */
+    private static boolean isItPos(CharSequence move, int pos) {
+        char letter = move.charAt(pos);
+        char number = move.charAt(pos + 1);
+        boolean isItLetter = 'a' <= letter && letter <= 'h' || 'A' <= letter && letter <= 'H';
+        return isItLetter && '1' <= number && number <= '8';
+    }
+
     //------------about valid cell-------------------------------------------------------
 
     /**
      * Функция проверяет, что поле - не белое
      */
-    private static void checkNotWhiteCell(Cell current) throws WhiteCellException {
-        if (!current.isItBlackCell()) {
+    private static void checkNotWhiteCell(int x, int y) throws WhiteCellException {
+        if (!Cell.isItBlackCell(x, y)) {
             throw new WhiteCellException();
         }
     }
@@ -261,8 +338,8 @@ public final class Game {
     /**
      * Функция проверяет, что поле находится внутри доски
      */
-    private static void checkCellOnBoard(Cell current) throws NotOnBoardException {
-        if (!current.isItCellInBoard()) {
+    private static void checkCellOnBoard(int x, int y) throws NotOnBoardException {
+        if (!Cell.isItCellInBoard(x, y)) {
             throw new NotOnBoardException();
         }
     }
@@ -271,28 +348,30 @@ public final class Game {
      * Функция проверяет, что поле валидно, то есть оно не белое и внутри доски
      */
     private static void checkValidCell(Cell current) throws GameException {
-        checkNotWhiteCell(current);
-        checkCellOnBoard(current);
+        checkValidCell(current.getX(), current.getY());
+    }
+
+    private static void checkValidCell(int x, int y) throws GameException {
+        checkNotWhiteCell(x, y);
+        checkCellOnBoard(x, y);
     }
 
     //------------about (not) busy cell--------------------------------------------------
 
     /**
-     * Функция проверяет, что поле не пусто
+     * Функция проверяет, что черное поле доски не пусто
      */
-    private void checkNotEmptyCell(Cell current) throws GameException {
-        checkValidCell(current);
-        if (isItEmptyCell(current)) {
+    private void checkNotEmptySquare(int square) throws EmptyCellException {
+        if (board.isItEmpty(square)) {
             throw new EmptyCellException();
         }
     }
 
     /**
-     * Функция проверяет, что поле пусто
+     * Функция проверяет, что черное поле доски пусто
      */
-    private void checkEmptyCell(Cell current) throws GameException {
-        checkValidCell(current);
-        if (!isItEmptyCell(current)) {
+    private void checkEmptySquare(int square) throws BusyCellException {
+        if (!board.isItEmpty(square)) {
             throw new BusyCellException();
         }
     }
@@ -302,16 +381,14 @@ public final class Game {
     /**
      * Функция проверяет, что перемещение корректно (координатно)
      *
-     * @param current    --- шашка, которая перемещается
-     * @param to         --- поле, куда шашка должна переместиться
+     * @param from       --- номер поля, откуда шашка перемещается
+     * @param to         --- номер поля, куда шашка должна переместиться
      * @param isItAttack --- булева переменная, true если перемещение является атакой, false иначе
      */
-    private void checkCorrectMove(Checker current, Cell to, boolean isItAttack) throws IncorrectMoveException {
-        Cell from = current.getCell();
-
-        int xDiff = Math.abs(from.getX() - to.getX());
-        int yDiff = Math.abs(from.getY() - to.getY());
-        if (current.isItQueen()) {
+    private void checkCorrectMove(int from, int to, boolean isItAttack) throws IncorrectMoveException {
+        int xDiff = Math.abs(Board.getX(from) - Board.getX(to));
+        int yDiff = Math.abs(Board.getY(from) - Board.getY(to));
+        if (board.isItQueen(from)) {
             if (xDiff != yDiff) {
                 throw new IncorrectMoveException();
             }
@@ -324,143 +401,86 @@ public final class Game {
     }
 
     //------------about attack-----------------------------------------------------------
-    enum AttackStatus {
-        UNKNOWN,
-        POSSIBLE_ATTACK,
-        IMPOSSIBLE_ATTACK
-    }
 
     /**
-     * Функция, чтобы узнать, может ли шашка атаковать или нет
+     * Функция проверяет, должна ли шашка атаковать в направлении.
+     * Атака возможна, если на луче встретилась шашка, за которой пустое поле, и эта шашка --- чужая.
+     * Простая шашка смотрит только на соседнее поле, дамка --- вдоль всего луча
      *
-     * @param current    --- шашка, которую проверяем на атаку
-     * @param victimCell --- поле, которое хотим атаковать
-     * @param nextCell   --- поле, на которое встанем после атаки
-     * @return возвращает
-     * POSSIBLE_ATTACK, если атака возможна
-     * IMPOSSIBLE_ATTACK, если атака невозможна в этом направлении
-     * UNKNOWN, если атака невозможна сейчас, но возможна далее в этом направлении
-     */
-    private AttackStatus getAttackStatus(Checker current, Cell victimCell, Cell nextCell) throws GameException {
-        if (!nextCell.isItValidCell()) {
-            return AttackStatus.IMPOSSIBLE_ATTACK;
-        }
-        if (!isItEmptyCell(victimCell) && isItEmptyCell(nextCell)) {
-            if (getCheckerByCell(victimCell).getColor() == current.getColor()) {
-                return AttackStatus.IMPOSSIBLE_ATTACK;
-            } else {
-                return AttackStatus.POSSIBLE_ATTACK;
+     * @param square    --- номер поля шашки, которую проверяем на атаку
+     * @param direction --- номер направления, в котором проверяем на атаку
+     * @param enemy     --- маска шашек соперника
+     * @return возвращает true, если шашка должна атаковать
+     */
+    private boolean isItNeedAttackInDirection(int square, int direction, int enemy) {
+        int occupied = board.getOccupied();
+        int[] ray = Board.getRay(square, direction);
+
+        int lastIdx = board.isItQueen(square) ? ray.length - 1 : Math.min(1, ray.length - 1);
+        for (int idx = 0; idx < lastIdx; ++idx) {
+            int victimBit = 1 << ray[idx];
+            int nextBit = 1 << ray[idx + 1];
+            if ((occupied & victimBit) != 0 && (occupied & nextBit) == 0) {
+                return (enemy & victimBit) != 0;
             }
         }
-        return AttackStatus.UNKNOWN;
+        return false;
     }
 
     /**
-     * Функция проверяет, что шашка не должна атаковать в направлении
+     * Функция проверяет, должна ли хотя бы одна шашка цвета атаковать
      *
-     * @param current   --- шашка, которую проверяем на атаку
-     * @param direction --- направление, в котором проверяем на атаку,
-     *                  это поле типа Cell с координатами, по модулю равными 1
+     * @param color --- цвет шашек, которые проверяем на атаку
+     * @return возвращает true, если простой ход сейчас запрещен
      */
-    private void checkNotNeedAttackInDirection(Checker current, Cell direction) throws GameException {
-        Cell currentCell = current.getCell();
-        Cell victimCell = Cell.makeStepInDirectionAndReturnNew(currentCell, direction);
-        Cell nextCell = Cell.makeStepInDirectionAndReturnNew(victimCell, direction);
-
-        var status = getAttackStatus(current, victimCell, nextCell);
-        if (status == AttackStatus.IMPOSSIBLE_ATTACK) {
-            return;
-        }
-        if (status == AttackStatus.POSSIBLE_ATTACK) {
-            throw new NeedAttackException();
-        }
-
-        if (current.isItQueen()) {
-            victimCell = nextCell;
-            nextCell = Cell.makeStepInDirectionAndReturnNew(victimCell, direction);
-            while (nextCell.isItValidCell()) {
-                status = getAttackStatus(current, victimCell, nextCell);
-                if (status == AttackStatus.IMPOSSIBLE_ATTACK) {
-                    return;
+    boolean isItNeedAttack(Color color) {
+        int enemy = board.getOccupied() & ~board.getMask(color);
+        for (int rest = board.getMask(color); rest != 0; rest &= rest - 1) {
+            int square = Integer.numberOfTrailingZeros(rest);
+            for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+                if (isItNeedAttackInDirection(square, direction, enemy)) {
+                    return true;
                 }
-                if (status == AttackStatus.POSSIBLE_ATTACK) {
-                    throw new NeedAttackException();
-                }
-                victimCell = nextCell;
-                nextCell = Cell.makeStepInDirectionAndReturnNew(victimCell, direction);
             }
         }
+        return false;
     }
 
     /**
-     * Функция проверяет, что шашка не должна атаковать
+     * Функция проверяет, что ни одна шашка цвета не должна атаковать
      *
-     * @param current --- шашка, которую проверяем на атаку
+     * @param color --- цвет шашек, которые проверяем на атаку
      */
-    private void checkNotNeedAttack(Checker current) throws GameException {
-        Cell topLeft = new Cell(-1, +1);
-        Cell topRight = new Cell(+1, +1);
-        Cell downLeft = new Cell(-1, -1);
-        Cell downRight = new Cell(+1, -1);
-
-
-        checkNotNeedAttackInDirection(current, topLeft);
-        checkNotNeedAttackInDirection(current, topRight);
-        checkNotNeedAttackInDirection(current, downLeft);
-        checkNotNeedAttackInDirection(current, downRight);
+    private void checkNotNeedAttack(Color color) throws NeedAttackException {
+        if (isItNeedAttack(color)) {
+            throw new NeedAttackException();
+        }
     }
 
     //------------about kill------------------------------------------------------------
 
     /**
-     * Функция проверяет, что атака корректна и возвращает убитую шашку
+     * Функция проверяет, что атака корректна и возвращает поле убитой шашки.
+     * Между from и to должна стоять ровно одна чужая шашка и ни одной своей
      *
-     * @param current --- атакующая шашка
-     * @param to      --- поле, на которое атакующая шашка переместится
-     * @return возвращает убитую шашку или выбрасывает исключение
+     * @param from --- номер поля атакующей шашки
+     * @param to   --- номер поля, на которое атакующая шашка переместится
+     * @return возвращает номер поля убитой шашки или выбрасывает исключение
      */
-    private Checker checkCorrectKillAndReturnVictim(Checker current, Cell to) throws GameException {
-        Cell from = current.getCell();
-
-        int xDiff = to.getX() - from.getX();
-        int yDiff = to.getY() - from.getY();
-
-        int xStep = xDiff / Math.abs(xDiff);
-        int yStep = yDiff / Math.abs(yDiff);
+    private int checkCorrectKillAndReturnVictim(int from, int to) throws GameException {
+        int between = Board.getBetween(from, to);
+        int own = board.getMask(board.getColor(from));
 
-        int xVictim = to.getX() - xStep;
-        int yVictim = to.getY() - yStep;
-        Cell victimCell = new Cell(xVictim, yVictim);
-
-        if (!current.isItQueen()) {
-            if (isItEmptyCell(victimCell)) {
-                throw new IncorrectMoveException();
-            }
-            if (getCheckerByCell(victimCell).getColor() == current.getColor()) {
-                throw new KillFriendException();
-            }
-        } else {
-            int countOfVictims = 0;
-            for (int x = from.getX() + xStep, y = from.getY() + yStep;
-                 x != to.getX() && y != to.getY(); x += xStep, y += yStep) {
-                Cell nextCell = new Cell(x, y);
-                if (!isItEmptyCell(nextCell)) {
-                    Checker nextChecker = getCheckerByCell(nextCell);
-                    if (nextChecker.getColor() == current.getColor()) {
-                        throw new KillFriendException();
-                    } else {
-                        countOfVictims++;
-                        victimCell = nextCell;
-                    }
-                }
-            }
-            if (countOfVictims != 1) {
-                throw new IncorrectMoveException();
-            }
+        if ((between & own) != 0) {
+            throw new KillFriendException();
+        }
 
+        int victims = between & board.getOccupied();
+        if (Integer.bitCount(victims) != 1) {
+            throw new IncorrectMoveException();
         }
 
-        return getCheckerByCell(victimCell);
+        return Integer.numberOfTrailingZeros(victims);
     }
     //----------------------------------------------------------------------------------
 }
@@ -0,0 +1,33 @@
+package ru.khuzint;
+
+/**
+ * Класс оценки по материалу: простая шашка стоит 100, дамка 300,
+ * и простая шашка получает бонус за каждую пройденную горизонталь
+ */
+public final class MaterialEvaluator implements Evaluator {
+    private static final int K_MAN = 100;
+    private static final int K_QUEEN = 300;
+    private static final int K_ADVANCE = 4;
+
+    /**
+     * Константное поле маски первой горизонтали, маска горизонтали y --- K_ROW << 4 * (y - 1)
+     */
+    private static final int K_ROW = 0xF;
+
+    @Override
+    public int evaluate(int own, int enemy, int queens, Color color) {
+        Color enemyColor = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        return evaluateSide(own, queens, color) - evaluateSide(enemy, queens, enemyColor);
+    }
+
+    private static int evaluateSide(int checkers, int queens, Color color) {
+        int men = checkers & ~queens;
+        int score = K_MAN * Integer.bitCount(men) + K_QUEEN * Integer.bitCount(checkers & queens);
+
+        for (int row = 1; row < Game.K_BOARD_SIZE; ++row) {
+            int y = color == Color.WHITE ? row : Game.K_BOARD_SIZE - 1 - row;
+            score += K_ADVANCE * row * Integer.bitCount(men & K_ROW << 4 * y);
+        }
+        return score;
+    }
+}
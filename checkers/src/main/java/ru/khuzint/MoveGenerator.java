@@ -0,0 +1,238 @@
+package ru.khuzint;
+
+/**
+ * Класс генератор ходов. Перечисляет все разрешенные ходы позиции в переиспользуемый MoveBuffer.
+ * Правила те же, что проверяет Game:
+ * - если есть атака, можно только атаковать, и атака продолжается, пока есть кого бить;
+ * - иначе простой ход разрешен, только если Game не требует атаки (checkNotNeedAttack);
+ * - побитые шашки остаются на доске до конца хода: через них нельзя перепрыгнуть и их нельзя бить второй раз
+ *   (турецкий удар запрещен), такие атаки Game тоже принимает, хотя снимает шашки сразу;
+ * - простая шашка, дошедшая до последней горизонтали во время атаки, продолжает бить как дамка;
+ * - дамка бьет на любом расстоянии, если между полями ровно одна чужая шашка и нет своих,
+ *   и если после взятия можно продолжить атаку, то встает только на такие поля.
+ * Простые шашки, как и в Game (checkCorrectMove), ходят и бьют на соседнее поле в обе стороны.
+ * Генератор не создает объектов во время работы
+ */
+public final class MoveGenerator {
+    private final Game game;
+    private final Board board;
+
+    /**
+     * Путь текущей атаки
+     */
+    private final int[] path = new int[Board.K_SQUARES + 1];
+
+    /**
+     * Маски позиции во время перебора атак: свои шашки, чужие шашки, дамки и уже побитые в этом ходе шашки
+     */
+    private int own;
+    private int enemy;
+    private int queens;
+    private int captured;
+
+    private Color color;
+    private MoveBuffer moves;
+
+    public MoveGenerator(Game game) {
+        this.game = game;
+        this.board = game.getBoard();
+    }
+
+    //------------API-------------------------------------------------------------------
+
+    /**
+     * Функция записывает в буфер все разрешенные ходы шашек цвета
+     *
+     * @param currentColor --- цвет шашек, которые ходят
+     * @param buffer       --- буфер, куда записываются ходы, предварительно очищается
+     * @return возвращает количество ходов
+     */
+    public int generate(Color currentColor, MoveBuffer buffer) {
+        this.color = currentColor;
+        this.moves = buffer;
+        buffer.clear();
+
+        generateAttacks();
+        if (buffer.size() == 0 && !game.isItNeedAttack(currentColor)) {
+            generateSimpleMoves();
+        }
+
+        this.moves = null;
+        return buffer.size();
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------simple moves----------------------------------------------------------
+
+    /**
+     * Функция добавляет все простые ходы: шашки на соседнее свободное поле в любую сторону,
+     * дамки на любое свободное поле диагонали
+     */
+    private void generateSimpleMoves() {
+        int occupied = board.getOccupied();
+        for (int rest = board.getMask(color); rest != 0; rest &= rest - 1) {
+            int square = Integer.numberOfTrailingZeros(rest);
+            boolean isItQueen = board.isItQueen(square);
+            path[0] = square;
+
+            for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+                int[] ray = Board.getRay(square, direction);
+                int lastIdx = isItQueen ? ray.length : Math.min(1, ray.length);
+                for (int idx = 0; idx < lastIdx && (occupied & 1 << ray[idx]) == 0; ++idx) {
+                    path[1] = ray[idx];
+                    moves.add(path, 2, false);
+                }
+            }
+        }
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------attacks---------------------------------------------------------------
+
+    /**
+     * Функция добавляет все атаки, которые нельзя продолжить
+     */
+    private void generateAttacks() {
+        own = board.getMask(color);
+        enemy = board.getOccupied() & ~own;
+        queens = board.getQueens();
+        captured = 0;
+
+        for (int rest = own; rest != 0; rest &= rest - 1) {
+            int square = Integer.numberOfTrailingZeros(rest);
+            path[0] = square;
+            searchAttacks(square, 1);
+        }
+    }
+
+    private boolean isItEmpty(int square) {
+        return ((own | enemy) & 1 << square) == 0;
+    }
+
+    /**
+     * Функция ищет индекс чужой шашки, которую можно побить по лучу, или -1.
+     * Простая шашка бьет только соседнюю, дамка --- первую встреченную
+     */
+    private int getVictimIdx(int[] ray, boolean isItQueen) {
+        int idx = 0;
+        if (isItQueen) {
+            while (idx < ray.length && isItEmpty(ray[idx])) {
+                idx++;
+            }
+        }
+        if (idx + 1 >= ray.length || !isItEmpty(ray[idx + 1])) {
+            return -1;
+        }
+
+        int victimBit = 1 << ray[idx];
+        if ((enemy & victimBit) == 0 || (captured & victimBit) != 0) {
+            return -1;
+        }
+        return idx;
+    }
+
+    /**
+     * Функция проверяет, может ли шашка на поле атаковать в текущей позиции
+     */
+    private boolean canAttack(int square) {
+        boolean isItQueen = (queens & 1 << square) != 0;
+        for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+            if (getVictimIdx(Board.getRay(square, direction), isItQueen) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Функция делает взятие: помечает жертву побитой, перемещает шашку и превращает ее в дамку
+     * на последней горизонтали
+     */
+    private void makeAttackStep(int from, int victim, int to) {
+        captured |= 1 << victim;
+        own ^= 1 << from | 1 << to;
+        if ((queens & 1 << from) != 0) {
+            queens ^= 1 << from | 1 << to;
+        } else if (Board.isItLastRow(to, color)) {
+            queens |= 1 << to;
+        }
+    }
+
+    /**
+     * Функция перебирает продолжения атаки из поля и добавляет в буфер законченные атаки
+     *
+     * @param square --- поле, на котором стоит атакующая шашка
+     * @param depth  --- количество полей в текущем пути
+     */
+    private void searchAttacks(int square, int depth) {
+        boolean isItQueen = (queens & 1 << square) != 0;
+
+        for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+            int[] ray = Board.getRay(square, direction);
+            int victimIdx = getVictimIdx(ray, isItQueen);
+            if (victimIdx == -1) {
+                continue;
+            }
+
+            int firstIdx = victimIdx + 1;
+            int lastIdx = firstIdx + 1;
+            if (isItQueen) {
+                while (lastIdx < ray.length && isItEmpty(ray[lastIdx])) {
+                    lastIdx++;
+                }
+            }
+
+            boolean canContinue = false;
+            for (int idx = firstIdx; idx < lastIdx; ++idx) {
+                canContinue |= canContinueAfterAttackStep(square, ray[victimIdx], ray[idx]);
+            }
+            for (int idx = firstIdx; idx < lastIdx; ++idx) {
+                expandAttackStep(square, ray[victimIdx], ray[idx], depth, canContinue);
+            }
+        }
+    }
+
+    /**
+     * Функция проверяет, можно ли продолжить атаку после взятия
+     */
+    private boolean canContinueAfterAttackStep(int from, int victim, int to) {
+        int savedOwn = own;
+        int savedQueens = queens;
+        int savedCaptured = captured;
+
+        makeAttackStep(from, victim, to);
+        boolean canContinue = canAttack(to);
+
+        own = savedOwn;
+        queens = savedQueens;
+        captured = savedCaptured;
+        return canContinue;
+    }
+
+    /**
+     * Функция делает взятие, перебирает продолжения и откатывает взятие обратно
+     *
+     * @param isItNeedContinue --- true, если атаку обязательно продолжать: поле без продолжения пропускается,
+     *                         false, если продолжения нет ни с одного поля и атака здесь заканчивается
+     */
+    private void expandAttackStep(int from, int victim, int to, int depth, boolean isItNeedContinue) {
+        int savedOwn = own;
+        int savedQueens = queens;
+        int savedCaptured = captured;
+
+        makeAttackStep(from, victim, to);
+        path[depth] = to;
+        if (!isItNeedContinue) {
+            moves.add(path, depth + 1, true);
+        } else if (canAttack(to)) {
+            searchAttacks(to, depth + 1);
+        }
+
+        own = savedOwn;
+        queens = savedQueens;
+        captured = savedCaptured;
+    }
+    //----------------------------------------------------------------------------------
+}
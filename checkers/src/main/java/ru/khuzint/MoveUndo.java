@@ -0,0 +1,35 @@
+package ru.khuzint;
+
+/**
+ * Класс для отката хода, сделанного Board.makeMove. Хранит маски и ключ доски до хода.
+ * Один объект переиспользуется на каждой глубине перебора
+ */
+final class MoveUndo {
+    private int white;
+    private int black;
+    private int queens;
+    private long key;
+
+    void save(int savedWhite, int savedBlack, int savedQueens, long savedKey) {
+        this.white = savedWhite;
+        this.black = savedBlack;
+        this.queens = savedQueens;
+        this.key = savedKey;
+    }
+
+    int getWhite() {
+        return white;
+    }
+
+    int getBlack() {
+        return black;
+    }
+
+    int getQueens() {
+        return queens;
+    }
+
+    long getKey() {
+        return key;
+    }
+}
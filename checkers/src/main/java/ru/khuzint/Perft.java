@@ -0,0 +1,120 @@
+package ru.khuzint;
+
+/**
+ * Класс perft --- подсчет количества позиций на заданной глубине перебора.
+ * Нужен для проверки генератора ходов и замера его скорости: результат сравнивается с эталонными числами.
+ * Перебор делает и откатывает ходы на доске игры, не создавая объектов
+ */
+public final class Perft {
+    /**
+     * Эталонное количество позиций из начальной позиции, K_START_COUNTS[depth - 1].
+     * Числа получены этим генератором и зависят от правил Game: простая шашка в Game ходит и назад,
+     * поэтому начиная с глубины 3 они больше общеизвестных для русских шашек
+     */
+    private static final long[] K_START_COUNTS = {
+        7, 49, 340, 1983, 12914, 84049, 546568, 3508409, 23893657, 163263732
+    };
+
+    private static final int K_DEFAULT_DEPTH = 8;
+    private static final long K_NANOS_IN_SECOND = 1_000_000_000L;
+    private static final long K_NANOS_IN_MILLI = 1_000_000L;
+
+    private static final String[] K_WHITE_START = {
+        "a1", "a3", "b2", "c1", "c3", "d2", "e1", "e3", "f2", "g1", "g3", "h2"
+    };
+    private static final String[] K_BLACK_START = {
+        "a7", "b6", "b8", "c7", "d6", "d8", "e7", "f6", "f8", "g7", "h6", "h8"
+    };
+
+    private final Board board;
+    private final MoveGenerator generator;
+    private MoveBuffer[] buffers = new MoveBuffer[0];
+    private MoveUndo[] undos = new MoveUndo[0];
+
+    public Perft(Game game) {
+        this.board = game.getBoard();
+        this.generator = new MoveGenerator(game);
+    }
+
+    //------------API-------------------------------------------------------------------
+
+    /**
+     * Функция считает количество позиций на глубине depth, первым ходит цвет color
+     */
+    public long count(Color color, int depth) {
+        if (buffers.length < depth) {
+            buffers = new MoveBuffer[depth];
+            undos = new MoveUndo[depth];
+            for (int idx = 0; idx < depth; ++idx) {
+                buffers[idx] = new MoveBuffer();
+                undos[idx] = new MoveUndo();
+            }
+        }
+        return countRecursive(color, depth);
+    }
+
+    /**
+     * Функция возвращает эталонное количество позиций из начальной позиции или -1, если оно неизвестно
+     */
+    public static long getStartCount(int depth) {
+        return depth <= K_START_COUNTS.length ? K_START_COUNTS[depth - 1] : -1;
+    }
+
+    /**
+     * Функция создает игру с начальной позицией
+     */
+    public static Game createStartGame() throws GameException {
+        Game game = new Game();
+        game.placeCheckers(K_WHITE_START, Color.WHITE);
+        game.placeCheckers(K_BLACK_START, Color.BLACK);
+        return game;
+    }
+
+    /**
+     * Команда perft: считает позиции из начальной позиции на глубинах от 1 до args[0],
+     * сверяет с эталоном и печатает скорость
+     */
+    public static void main(String[] args) throws GameException {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : K_DEFAULT_DEPTH;
+        Perft perft = new Perft(createStartGame());
+
+        boolean isItCorrect = true;
+        for (int depth = 1; depth <= maxDepth; ++depth) {
+            long start = System.nanoTime();
+            long nodes = perft.count(Color.WHITE, depth);
+            long time = Math.max(System.nanoTime() - start, 1);
+
+            long expected = getStartCount(depth);
+            String status = expected == -1 ? "unknown" : expected == nodes ? "ok" : "FAIL, expected " + expected;
+            isItCorrect &= expected == -1 || expected == nodes;
+
+            System.out.println("depth " + depth + ": " + nodes + " nodes, "
+                    + time / K_NANOS_IN_MILLI + " ms, "
+                    + nodes * K_NANOS_IN_SECOND / time + " nodes/sec, " + status);
+        }
+
+        if (!isItCorrect) {
+            System.exit(1);
+        }
+    }
+    //----------------------------------------------------------------------------------
+
+
+    private long countRecursive(Color color, int depth) {
+        MoveBuffer moves = buffers[depth - 1];
+        int count = generator.generate(color, moves);
+        if (depth == 1) {
+            return count;
+        }
+
+        Color next = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        MoveUndo undo = undos[depth - 1];
+        long nodes = 0;
+        for (int idx = 0; idx < count; ++idx) {
+            board.makeMove(moves, idx, undo);
+            nodes += countRecursive(next, depth - 1);
+            board.unmakeMove(undo);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,306 @@
+package ru.khuzint;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Класс проигрывателя партий одного потока BatchReplayer. Переиспользует одну игру, буфер ходов и буфер вывода.
+ * Партия --- строки в формате input.txt (белые шашки, черные шашки, пары ходов), партии разделяются пустой строкой.
+ * Ходы и позиции разбираются прямо из байтов без создания строк. Только токены, которые не похожи на корректный
+ * ход или позицию, передаются в Game строкой, чтобы ошибка была той же, что у App
+ */
+final class ReplayWorker {
+    private static final byte[] K_OK = "ok".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] K_GENERAL_ERROR = "general error".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] K_SOMETHING_WRONG = "something goes wrong".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] K_HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private static final int K_INITIAL_OUTPUT = 64 * 1024;
+    private static final int K_HEX_BITS = 4;
+    private static final int K_HEX_MASK = 0xF;
+    private static final int K_DECIMAL = 10;
+    private static final int K_MAX_DIGITS = 20;
+    private static final int K_RECORD_SEPARATORS = 3;
+
+    /**
+     * Константные поля формата хода: "c3-d4" и "c3:e5:c7", поле занимает 2 байта, разделитель --- 1
+     */
+    private static final int K_SIMPLE_MOVE_LENGTH = 5;
+    private static final int K_STEP_LENGTH = 3;
+
+    private final Game game = new Game();
+    private final MoveBuffer buffer = new MoveBuffer();
+    private final int[] path = new int[Board.K_SQUARES + 1];
+    private final byte[] digits = new byte[K_MAX_DIGITS];
+
+    private ByteBuffer input;
+    private byte[] output = new byte[K_INITIAL_OUTPUT];
+    private int outputSize;
+
+    //------------API-------------------------------------------------------------------
+
+    /**
+     * Функция проигрывает все партии куска файла и возвращает их результаты, по строке на партию:
+     * "статус\tколичество сделанных полуходов\tключ Зобриста итоговой позиции в hex".
+     * Статус --- "ok" или та же ошибка, что напечатал бы App
+     *
+     * @param chunk --- кусок файла из целых партий
+     */
+    byte[] replayChunk(ByteBuffer chunk) {
+        input = chunk;
+        outputSize = 0;
+
+        int pos = 0;
+        int end = chunk.limit();
+        while (pos < end) {
+            if (getContentEnd(pos) == pos) {
+                pos = getNextLine(pos);
+                continue;
+            }
+
+            int gameEnd = pos;
+            while (gameEnd < end && getContentEnd(gameEnd) != gameEnd) {
+                gameEnd = getNextLine(gameEnd);
+            }
+            replayGame(pos, gameEnd);
+            pos = gameEnd;
+        }
+
+        input = null;
+        return Arrays.copyOf(output, outputSize);
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------for replay------------------------------------------------------------
+
+    /**
+     * Функция проигрывает одну партию и записывает ее результат. Порядок действий и ошибки те же, что у App.main
+     *
+     * @param start --- начало первой строки партии
+     * @param end   --- конец последней строки партии
+     */
+    private void replayGame(int start, int end) {
+        game.clear();
+        int plies = 0;
+        byte[] status = K_OK;
+
+        try {
+            int blackLine = getNextLine(start);
+            if (blackLine >= end) {
+                throw new IllegalStateException("no line with black checkers");
+            }
+            placeLine(start, Color.WHITE);
+            placeLine(blackLine, Color.BLACK);
+
+            for (int line = getNextLine(blackLine); hasNextToken(line, end); line = getNextLine(line)) {
+                int lineEnd = getContentEnd(line);
+                int firstEnd = indexOf(' ', line, lineEnd);
+                // как в App.main: строка без хода черных --- ошибка еще до хода белых
+                if (!hasNotSpace(firstEnd, lineEnd)) {
+                    throw new IllegalStateException("no black move");
+                }
+                makeMove(line, firstEnd);
+                plies++;
+
+                makeMove(firstEnd + 1, indexOf(' ', firstEnd + 1, lineEnd));
+                plies++;
+            }
+        } catch (BusyCellException | WhiteCellException | NeedAttackException exp) {
+            status = exp.getMessage().getBytes(StandardCharsets.UTF_8);
+        } catch (GameException exp) {
+            status = K_GENERAL_ERROR;
+        } catch (RuntimeException exp) {
+            status = K_SOMETHING_WRONG;
+        }
+
+        writeRecord(status, plies, game.getZobristKey());
+    }
+
+    /**
+     * Функция кладет шашки из строки так же, как placeCheckers(line.split(" ")):
+     * пустые токены в конце строки пропускаются, пустые токены в середине --- ошибка ввода
+     */
+    private void placeLine(int start, Color color) throws GameException {
+        int lineEnd = getContentEnd(start);
+        int tokenStart = start;
+        while (hasNotSpace(tokenStart, lineEnd)) {
+            int tokenEnd = indexOf(' ', tokenStart, lineEnd);
+            placeChecker(tokenStart, tokenEnd, color);
+            tokenStart = tokenEnd + 1;
+        }
+    }
+
+    private void placeChecker(int start, int end, Color color) throws GameException {
+        int square = end - start == 2 ? decodeSquare(start) : -1;
+        if (square == -1) {
+            game.placeCheckers(new String[]{decodeString(start, end)}, color);
+            return;
+        }
+        game.placeChecker(square, color, input.get(start) <= 'H');
+    }
+
+    /**
+     * Функция делает ход из токена. Ход разбирается в путь из номеров полей и делается через MoveBuffer,
+     * проверки при этом те же, что у строкового хода
+     */
+    private void makeMove(int start, int end) throws GameException {
+        int length = decodeMove(start, end);
+        if (length == -1) {
+            game.makeMove(decodeString(start, end));
+            return;
+        }
+
+        buffer.clear();
+        buffer.add(path, length, input.get(start + 2) == ':');
+        game.makeMove(buffer, 0);
+    }
+
+    /**
+     * Функция разбирает ход формата "c3-d4" или "c3:e5:c7" по черным полям в path
+     *
+     * @return возвращает количество полей или -1, если токен не такой
+     */
+    private int decodeMove(int start, int end) {
+        int length = end - start;
+        boolean isItSimple = length == K_SIMPLE_MOVE_LENGTH && input.get(start + 2) == '-';
+        boolean isItAttack = length >= K_SIMPLE_MOVE_LENGTH && (length + 1) % K_STEP_LENGTH == 0
+                && input.get(start + 2) == ':';
+        if (!isItSimple && !isItAttack) {
+            return -1;
+        }
+
+        int count = (length + 1) / K_STEP_LENGTH;
+        if (count > path.length) {
+            return -1;
+        }
+        for (int idx = 0; idx < count; ++idx) {
+            int pos = start + idx * K_STEP_LENGTH;
+            if (isItAttack && idx > 0 && input.get(pos - 1) != ':') {
+                return -1;
+            }
+
+            path[idx] = decodeSquare(pos);
+            if (path[idx] == -1) {
+                return -1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Функция разбирает поле из двух байтов, например "c3" или "C3"
+     *
+     * @return возвращает номер черного поля или -1, если это не поле доски или поле белое
+     */
+    private int decodeSquare(int pos) {
+        int letter = input.get(pos) | ('a' - 'A');
+        int number = input.get(pos + 1);
+        if (letter < 'a' || letter > 'h' || number < '1' || number > '8') {
+            return -1;
+        }
+        return Board.getSquare(letter - 'a' + 1, number - '0');
+    }
+
+    private String decodeString(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer token = input.duplicate();
+        token.position(start);
+        token.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------for lines-------------------------------------------------------------
+
+    /**
+     * Функция возвращает начало следующей строки
+     */
+    private int getNextLine(int pos) {
+        int lineEnd = indexOf('\n', pos, input.limit());
+        return Math.min(lineEnd + 1, input.limit());
+    }
+
+    /**
+     * Функция возвращает конец содержимого строки: без перевода строки и '\r' перед ним
+     */
+    private int getContentEnd(int pos) {
+        int lineEnd = indexOf('\n', pos, input.limit());
+        return lineEnd > pos && input.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    /**
+     * Функция возвращает индекс первого байта value в [start, end) или end
+     */
+    private int indexOf(char value, int start, int end) {
+        int pos = start;
+        while (pos < end && input.get(pos) != value) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Функция проверяет, что в [start, end) есть байт кроме ' ', то есть split(" ") найдет там токен
+     */
+    private boolean hasNotSpace(int start, int end) {
+        return indexOfNot(' ', start, end) < end;
+    }
+
+    private int indexOfNot(char value, int start, int end) {
+        int pos = start;
+        while (pos < end && input.get(pos) == value) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Функция проверяет, что в [start, end) есть непробельный символ, как Scanner.hasNext
+     */
+    private boolean hasNextToken(int start, int end) {
+        for (int pos = start; pos < end; ++pos) {
+            if (!Character.isWhitespace(input.get(pos))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------for output------------------------------------------------------------
+
+    private void writeRecord(byte[] status, int plies, long key) {
+        ensureOutput(status.length + K_MAX_DIGITS + Long.SIZE / K_HEX_BITS + K_RECORD_SEPARATORS);
+
+        System.arraycopy(status, 0, output, outputSize, status.length);
+        outputSize += status.length;
+        output[outputSize++] = '\t';
+
+        int count = 0;
+        int rest = plies;
+        do {
+            digits[count++] = (byte) ('0' + rest % K_DECIMAL);
+            rest /= K_DECIMAL;
+        } while (rest != 0);
+        while (count > 0) {
+            output[outputSize++] = digits[--count];
+        }
+        output[outputSize++] = '\t';
+
+        for (int shift = Long.SIZE - K_HEX_BITS; shift >= 0; shift -= K_HEX_BITS) {
+            output[outputSize++] = K_HEX_DIGITS[(int) (key >>> shift) & K_HEX_MASK];
+        }
+        output[outputSize++] = '\n';
+    }
+
+    private void ensureOutput(int length) {
+        if (outputSize + length > output.length) {
+            output = Arrays.copyOf(output, Math.max(output.length * 2, outputSize + length));
+        }
+    }
+    //----------------------------------------------------------------------------------
+}
@@ -0,0 +1,301 @@
+package ru.khuzint;
+
+/**
+ * Класс поиска лучшего хода: итеративное углубление alpha-beta (negamax) с таблицей транспозиций.
+ * Ходы делаются и откатываются прямо на доске игры через Board.makeMove/unmakeMove, поиск не создает объектов.
+ * Порядок ходов: сначала лучший ход из таблицы, затем остальные в порядке генератора.
+ * Взятия обязательны, поэтому в узле со взятиями генератор возвращает только взятия,
+ * и такие узлы на нулевой глубине продолжают перебираться, пока не останутся тихие позиции
+ */
+public final class Search {
+    /**
+     * Константное поле оценки выигрыша: у соперника нет ходов. Выигрыш через ply полуходов оценивается K_WIN - ply
+     */
+    public static final int K_WIN = 100_000;
+
+    /**
+     * Константное поле максимальной глубины перебора в полуходах, включая продолжения взятий
+     */
+    public static final int K_MAX_PLY = 128;
+
+    private static final int K_INFINITY = 1_000_000;
+    private static final int K_DEFAULT_TABLE_SIZE_LOG = 20;
+    private static final long K_NANOS_IN_MILLI = 1_000_000L;
+
+    /**
+     * Время проверяется раз в K_TIME_CHECK_MASK + 1 узлов
+     */
+    private static final long K_TIME_CHECK_MASK = 0x3FF;
+
+    private final Board board;
+    private final MoveGenerator generator;
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+
+    private final MoveBuffer[] buffers = new MoveBuffer[K_MAX_PLY];
+    private final MoveUndo[] undos = new MoveUndo[K_MAX_PLY];
+
+    private long nodes;
+    private long deadline;
+    private boolean isItStopped;
+    private int rootBestIdx;
+
+    private int depth;
+    private int score;
+
+    public Search(Game game) {
+        this(game, new MaterialEvaluator());
+    }
+
+    public Search(Game game, Evaluator evaluator) {
+        this(game, evaluator, K_DEFAULT_TABLE_SIZE_LOG);
+    }
+
+    /**
+     * @param game         --- игра, в позиции которой ищется ход. Во время поиска игру менять нельзя
+     * @param evaluator    --- функция оценки
+     * @param tableSizeLog --- двоичный логарифм количества записей таблицы транспозиций
+     */
+    public Search(Game game, Evaluator evaluator, int tableSizeLog) {
+        this.board = game.getBoard();
+        this.generator = new MoveGenerator(game);
+        this.evaluator = evaluator;
+        this.table = new TranspositionTable(tableSizeLog);
+
+        for (int ply = 0; ply < K_MAX_PLY; ++ply) {
+            buffers[ply] = new MoveBuffer();
+            undos[ply] = new MoveUndo();
+        }
+    }
+
+    //------------API-------------------------------------------------------------------
+
+    /**
+     * Функция ищет лучший ход, углубляя перебор, пока не кончится время
+     *
+     * @param color            --- цвет, который ходит
+     * @param timeBudgetMillis --- время на поиск в миллисекундах
+     * @return возвращает строку-описание хода в формате Game.makeMove или null, если ходов нет
+     */
+    public String bestMove(Color color, long timeBudgetMillis) {
+        return bestMove(color, timeBudgetMillis, K_MAX_PLY - 1);
+    }
+
+    /**
+     * Функция ищет лучший ход, углубляя перебор, пока не кончится время или не будет пройдена глубина maxDepth.
+     * Если время кончилось до конца первой итерации, возвращается первый ход генератора
+     *
+     * @param color            --- цвет, который ходит
+     * @param timeBudgetMillis --- время на поиск в миллисекундах
+     * @param maxDepth         --- максимальная глубина в полуходах
+     * @return возвращает строку-описание хода в формате Game.makeMove или null, если ходов нет
+     */
+    public String bestMove(Color color, long timeBudgetMillis, int maxDepth) {
+        nodes = 0;
+        depth = 0;
+        score = 0;
+        isItStopped = false;
+        deadline = System.nanoTime() + timeBudgetMillis * K_NANOS_IN_MILLI;
+
+        MoveBuffer moves = buffers[0];
+        int count = generator.generate(color, moves);
+        if (count == 0) {
+            score = -K_WIN;
+            return null;
+        }
+
+        int bestIdx = 0;
+        for (int currentDepth = 1; currentDepth <= Math.min(maxDepth, K_MAX_PLY - 1) && count > 1; ++currentDepth) {
+            int value = searchRoot(color, currentDepth, bestIdx);
+            if (isItStopped) {
+                break;
+            }
+
+            bestIdx = rootBestIdx;
+            depth = currentDepth;
+            score = value;
+            if (Math.abs(value) >= K_WIN - K_MAX_PLY) {
+                break;
+            }
+        }
+        return moves.getMoveString(bestIdx);
+    }
+
+    /**
+     * Функция возвращает количество узлов, пройденных последним поиском
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Функция возвращает последнюю полностью пройденную глубину последнего поиска
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Функция возвращает оценку лучшего хода последнего поиска с точки зрения ходящего цвета
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Функция очищает таблицу транспозиций, например перед новой партией
+     */
+    public void clear() {
+        table.clear();
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------alpha-beta------------------------------------------------------------
+
+    private static Color getNext(Color color) {
+        return color == Color.WHITE ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * Функция перебирает ходы корня, начиная с лучшего хода прошлой итерации, и запоминает лучший в rootBestIdx
+     */
+    private int searchRoot(Color color, int currentDepth, int firstIdx) {
+        MoveBuffer moves = buffers[0];
+        int alpha = -K_INFINITY;
+        rootBestIdx = firstIdx;
+
+        for (int order = -1; order < moves.size(); ++order) {
+            int idx = order == -1 ? firstIdx : order;
+            if (order == firstIdx) {
+                continue;
+            }
+
+            board.makeMove(moves, idx, undos[0]);
+            int value = -alphaBeta(getNext(color), currentDepth - 1, 1, -K_INFINITY, -alpha);
+            board.unmakeMove(undos[0]);
+            if (isItStopped) {
+                return 0;
+            }
+
+            if (value > alpha) {
+                alpha = value;
+                rootBestIdx = idx;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Функция alpha-beta перебора
+     *
+     * @param color --- цвет, который ходит
+     * @param rest  --- оставшаяся глубина
+     * @param ply   --- расстояние от корня в полуходах
+     * @return возвращает оценку позиции с точки зрения ходящего цвета
+     */
+    private int alphaBeta(Color color, int rest, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes & K_TIME_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+            isItStopped = true;
+        }
+        if (isItStopped) {
+            return 0;
+        }
+
+        MoveBuffer moves = buffers[ply];
+        int count = generator.generate(color, moves);
+        if (count == 0) {
+            return -K_WIN + ply;
+        }
+        if (rest <= 0 && !moves.isItAttack(0) || ply == K_MAX_PLY - 1) {
+            return evaluate(color);
+        }
+
+        long key = board.getKey() ^ Zobrist.getSideKey(color);
+        int depthToStore = Math.max(rest, 0);
+        long entry = table.probe(key);
+        int tableIdx = -1;
+        if (entry != 0) {
+            tableIdx = TranspositionTable.getMove(entry) < count ? TranspositionTable.getMove(entry) : -1;
+            if (TranspositionTable.getDepth(entry) >= depthToStore) {
+                int value = fromTable(TranspositionTable.getScore(entry), ply);
+                int flag = TranspositionTable.getFlag(entry);
+                if (flag == TranspositionTable.K_EXACT
+                        || flag == TranspositionTable.K_LOWER && value >= beta
+                        || flag == TranspositionTable.K_UPPER && value <= alpha) {
+                    return value;
+                }
+            }
+        }
+
+        int startAlpha = alpha;
+        int bestValue = -K_INFINITY;
+        int bestIdx = -1;
+        for (int order = -1; order < count; ++order) {
+            int idx = order == -1 ? tableIdx : order;
+            if (idx == -1 || order != -1 && idx == tableIdx) {
+                continue;
+            }
+
+            board.makeMove(moves, idx, undos[ply]);
+            int value = -alphaBeta(getNext(color), rest - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove(undos[ply]);
+            if (isItStopped) {
+                return 0;
+            }
+
+            if (value > bestValue) {
+                bestValue = value;
+                bestIdx = idx;
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int flag = TranspositionTable.K_EXACT;
+        if (bestValue <= startAlpha) {
+            flag = TranspositionTable.K_UPPER;
+        } else if (bestValue >= beta) {
+            flag = TranspositionTable.K_LOWER;
+        }
+        table.store(key, depthToStore, flag, toTable(bestValue, ply), bestIdx);
+        return bestValue;
+    }
+
+    private int evaluate(Color color) {
+        int own = board.getMask(color);
+        return evaluator.evaluate(own, board.getOccupied() & ~own, board.getQueens(), color);
+    }
+
+    /**
+     * Функция переводит оценку выигрыша в расстояние от текущего узла, чтобы хранить ее в таблице
+     */
+    private static int toTable(int value, int ply) {
+        if (value >= K_WIN - K_MAX_PLY) {
+            return value + ply;
+        }
+        if (value <= -K_WIN + K_MAX_PLY) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    /**
+     * Функция переводит оценку выигрыша из таблицы обратно в расстояние от корня
+     */
+    private static int fromTable(int value, int ply) {
+        if (value >= K_WIN - K_MAX_PLY) {
+            return value - ply;
+        }
+        if (value <= -K_WIN + K_MAX_PLY) {
+            return value + ply;
+        }
+        return value;
+    }
+    //----------------------------------------------------------------------------------
+}
@@ -0,0 +1,91 @@
+package ru.khuzint;
+
+import java.util.Arrays;
+
+/**
+ * Класс таблицы транспозиций фиксированного размера. Каждая запись упакована в один long:
+ * оценка (32 бита), глубина (8 бит), тип оценки (2 бита), номер лучшего хода в MoveBuffer + 1 (12 бит)
+ * и бит занятости. Рядом хранится полный ключ Зобриста, чтобы отличать коллизии индексов
+ */
+final class TranspositionTable {
+    /**
+     * Константные поля типов оценки: точная, оценка снизу (отсечение по beta) и сверху (ни один ход не улучшил alpha)
+     */
+    static final int K_EXACT = 0;
+    static final int K_LOWER = 1;
+    static final int K_UPPER = 2;
+
+    private static final int K_DEPTH_SHIFT = 32;
+    private static final int K_FLAG_SHIFT = 40;
+    private static final int K_MOVE_SHIFT = 42;
+    private static final long K_DEPTH_MASK = 0xFF;
+    private static final long K_FLAG_MASK = 0x3;
+    private static final long K_MOVE_MASK = 0xFFF;
+    private static final long K_SCORE_MASK = 0xFFFFFFFFL;
+    private static final long K_USED = 1L << Long.SIZE - 1;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int indexMask;
+
+    /**
+     * @param sizeLog --- двоичный логарифм количества записей
+     */
+    TranspositionTable(int sizeLog) {
+        keys = new long[1 << sizeLog];
+        entries = new long[1 << sizeLog];
+        indexMask = (1 << sizeLog) - 1;
+    }
+
+    /**
+     * Функция возвращает запись для ключа или 0, если записи нет
+     */
+    long probe(long key) {
+        int index = (int) key & indexMask;
+        return keys[index] == key ? entries[index] : 0;
+    }
+
+    /**
+     * Функция сохраняет запись. Запись другой позиции заменяется всегда, той же позиции --- если глубина не меньше
+     *
+     * @param move --- номер лучшего хода в MoveBuffer или -1
+     */
+    void store(long key, int depth, int flag, int score, int move) {
+        int index = (int) key & indexMask;
+        if (keys[index] == key && entries[index] != 0 && getDepth(entries[index]) > depth) {
+            return;
+        }
+
+        long storedMove = move + 1 <= K_MOVE_MASK ? move + 1 : 0;
+        keys[index] = key;
+        entries[index] = K_USED
+                | storedMove << K_MOVE_SHIFT
+                | (long) flag << K_FLAG_SHIFT
+                | (long) depth << K_DEPTH_SHIFT
+                | score & K_SCORE_MASK;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    static int getScore(long entry) {
+        return (int) entry;
+    }
+
+    static int getDepth(long entry) {
+        return (int) (entry >>> K_DEPTH_SHIFT & K_DEPTH_MASK);
+    }
+
+    static int getFlag(long entry) {
+        return (int) (entry >>> K_FLAG_SHIFT & K_FLAG_MASK);
+    }
+
+    /**
+     * Функция возвращает номер лучшего хода записи или -1
+     */
+    static int getMove(long entry) {
+        return (int) (entry >>> K_MOVE_SHIFT & K_MOVE_MASK) - 1;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.khuzint;
+
+import java.util.SplittableRandom;
+
+/**
+ * Класс ключей Зобриста. Ключ позиции --- XOR ключей всех шашек, поэтому он обновляется за O(1) при каждом
+ * изменении доски. Ключи получаются из фиксированного зерна и одинаковы при каждом запуске
+ */
+final class Zobrist {
+    private static final long K_SEED = 0x5EED_C4EC_4E25L;
+
+    /**
+     * Ключи шашек: PIECES[цвет * 2 + дамка][поле], цвет 0 --- белые, 1 --- черные
+     */
+    private static final long[][] PIECES = new long[4][Board.K_SQUARES];
+
+    /**
+     * Ключ хода черных
+     */
+    private static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(K_SEED);
+        for (long[] keys : PIECES) {
+            for (int square = 0; square < Board.K_SQUARES; ++square) {
+                keys[square] = random.nextLong();
+            }
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long getPieceKey(int square, Color color, boolean isItQueen) {
+        int kind = (color == Color.WHITE ? 0 : 2) + (isItQueen ? 1 : 0);
+        return PIECES[kind][square];
+    }
+
+    /**
+     * Функция возвращает ключ, который добавляется к ключу доски, если ходят черные
+     */
+    static long getSideKey(Color color) {
+        return color == Color.WHITE ? 0 : SIDE;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.khuzint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.assertj.core.api.Assertions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+public class BatchReplayerTest {
+    private static final String[] K_BROKEN_MOVES = {
+        "c3-c4", "c3-d4", "i9-a1", "c3:e5:", "C3-D4", "c3-e5", "a1-b2", "h2-g3 ", "d4:f6:d8:b6"
+    };
+
+    // эталон: партия проигрывается так же, как App.main, строковыми методами Game
+    private static String replayByApp(String text) {
+        Game game = new Game();
+        int plies = 0;
+        String status = "ok";
+        try (Scanner in = new Scanner(text)) {
+            game.placeCheckers(in.nextLine().split(" "), Color.WHITE);
+            game.placeCheckers(in.nextLine().split(" "), Color.BLACK);
+            while (in.hasNext()) {
+                String[] moves = in.nextLine().split(" ");
+                // оба хода строки берутся до хода белых, поэтому строка без хода черных не делает ни одного хода
+                String whiteMove = moves[0];
+                String blackMove = moves[1];
+                game.makeMove(whiteMove);
+                plies++;
+                game.makeMove(blackMove);
+                plies++;
+            }
+        } catch (BusyCellException | WhiteCellException | NeedAttackException exp) {
+            status = exp.getMessage();
+        } catch (GameException exp) {
+            status = "general error";
+        } catch (Exception exp) {
+            status = "something goes wrong";
+        }
+        return status + "\t" + plies + "\t" + String.format("%016x", game.getZobristKey());
+    }
+
+    // случайная партия из разрешенных ходов, иногда с испорченным ходом или позицией
+    private static String createGame(Random random) throws GameException {
+        Game game = Perft.createStartGame();
+        StringBuilder text = new StringBuilder();
+        text.append(String.join(" ", game.getCheckersPosByColor(Color.WHITE))).append('\n');
+        text.append(String.join(" ", game.getCheckersPosByColor(Color.BLACK)));
+        if (random.nextInt(10) == 0) {
+            text.append(random.nextBoolean() ? " b2" : " a2");
+        }
+        text.append('\n');
+
+        MoveGenerator generator = new MoveGenerator(game);
+        MoveBuffer buffer = new MoveBuffer();
+        int pairs = random.nextInt(30);
+        for (int pair = 0; pair < pairs; ++pair) {
+            String[] moves = new String[2];
+            for (int idx = 0; idx < 2; ++idx) {
+                Color color = idx == 0 ? Color.WHITE : Color.BLACK;
+                int count = generator.generate(color, buffer);
+                if (count == 0) {
+                    moves[idx] = "a1-b2";
+                    continue;
+                }
+                moves[idx] = buffer.getMoveString(random.nextInt(count));
+                if (random.nextInt(40) == 0) {
+                    moves[idx] = K_BROKEN_MOVES[random.nextInt(K_BROKEN_MOVES.length)];
+                }
+                try {
+                    game.makeMove(moves[idx]);
+                } catch (GameException exp) {
+                    // дальше партия все равно записывается, проигрыватель должен остановиться на этом ходе
+                }
+            }
+            text.append(moves[0]);
+            if (random.nextInt(50) != 0) {
+                text.append(' ').append(moves[1]);
+            }
+            text.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    void replayTest(@TempDir Path directory) throws GameException, IOException {
+        Random random = new Random(8);
+        List<String> games = new ArrayList<>();
+        for (int idx = 0; idx < 300; ++idx) {
+            games.add(createGame(random));
+        }
+
+        StringBuilder text = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (String game : games) {
+            text.append(game).append('\n');
+            expected.append(replayByApp(game)).append('\n');
+        }
+
+        Path input = directory.resolve("games.txt");
+        Path output = directory.resolve("results.txt");
+        Files.write(input, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (int chunkSize : new int[]{1, 100, 5000, 1 << 20}) {
+            long count = new BatchReplayer(2, chunkSize).replay(input, output);
+            Assertions.assertThat(count).isEqualTo(games.size());
+            Assertions.assertThat(new String(Files.readAllBytes(output), StandardCharsets.UTF_8))
+                    .isEqualTo(expected.toString());
+        }
+
+        System.out.println("(ﾉ◕ヮ◕)ﾉ*:･ﾟ✧\n");
+    }
+
+    @Test
+    void statusTest(@TempDir Path directory) throws IOException {
+        String text = "c3 e3\nf6\nc3-d4 f6-e5\n\n"
+                + "c3 e3\nf6\nc3-d4 f6-g5\nd4-e5 g5-h4\n\r\n"
+                + "c3\nc3\n\n"
+                + "c3 b5\nf6\nc3-d4 f6-e5\n\n"
+                + "c3\nd4\nc3-d4 d4-c3\n\n"
+                + "c3\nf6\nc3-d4\n\n"
+                + "c3 h8\n";
+        Path input = directory.resolve("games.txt");
+        Path output = directory.resolve("results.txt");
+        Files.write(input, text.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertThat(new BatchReplayer(1).replay(input, output)).isEqualTo(7);
+        List<String> statuses = new ArrayList<>();
+        for (String line : Files.readAllLines(output)) {
+            statuses.add(line.split("\t")[0] + " " + line.split("\t")[1]);
+        }
+        Assertions.assertThat(statuses).containsExactly(
+                "ok 2", "ok 4", "ok 0", "white cell 0", "busy cell 0", "something goes wrong 0",
+                "something goes wrong 0");
+
+        System.out.println("ʕ•ᴥ•ʔ\n");
+    }
+}
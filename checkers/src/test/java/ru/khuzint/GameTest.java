@@ -284,4 +284,103 @@ public class GameTest {
         System.out.println("¯\\_(ツ)_/¯\n");
     }
 
+    @Test
+    void placeOnBusyCellTest() {
+        Game game = new Game();
+
+        try {
+            String[] whiteCheckersPos = {"c3"};
+            String[] blackCheckersPos = {"C3"};
+
+            game.placeCheckers(whiteCheckersPos, Color.WHITE);
+            game.placeCheckers(blackCheckersPos, Color.BLACK);
+
+            String[] newWhiteCheckersPos = game.getCheckersPosByColor(Color.WHITE);
+            String[] newBlackCheckersPos = game.getCheckersPosByColor(Color.BLACK);
+
+            String[] blackOutput = {"C3"};
+
+            Assertions.assertThat(newWhiteCheckersPos).isEmpty();
+            Assertions.assertThat(newBlackCheckersPos).isEqualTo(blackOutput);
+
+        } catch (Exception ignored) {
+        }
+
+        System.out.println("(ᵔᴥᵔ)\n");
+    }
+
+    @Test
+    void positionKeyTest() throws GameException {
+        Game first = new Game();
+        first.placeCheckers(new String[]{"c3", "a7"}, Color.WHITE);
+        first.placeCheckers(new String[]{"h6", "f8"}, Color.BLACK);
+        Game second = new Game();
+        second.placeCheckers(new String[]{"c3", "a7"}, Color.WHITE);
+        second.placeCheckers(new String[]{"h6", "f8"}, Color.BLACK);
+
+        // та же позиция другим порядком ходов, с превращением в дамку
+        for (var move : new String[]{"c3-d4", "h6-g5", "a7-b8"}) {
+            first.makeMove(move);
+        }
+        for (var move : new String[]{"a7-b8", "h6-g5", "c3-d4"}) {
+            second.makeMove(move);
+        }
+
+        Game third = new Game();
+        third.placeCheckers(new String[]{"d4", "B8"}, Color.WHITE);
+        third.placeCheckers(new String[]{"g5", "f8"}, Color.BLACK);
+
+        Assertions.assertThat(first).isEqualTo(second).isEqualTo(third);
+        Assertions.assertThat(first.hashCode()).isEqualTo(third.hashCode());
+        Assertions.assertThat(first.getZobristKey()).isEqualTo(third.getZobristKey());
+
+        // взятие меняет ключ так же, как расстановка без побитой шашки
+        Game attack = new Game();
+        attack.placeCheckers(new String[]{"c3"}, Color.WHITE);
+        attack.placeCheckers(new String[]{"d4"}, Color.BLACK);
+        attack.makeMove("c3:e5");
+        Game attackResult = new Game();
+        attackResult.placeCheckers(new String[]{"e5"}, Color.WHITE);
+
+        Assertions.assertThat(attack).isEqualTo(attackResult).isNotEqualTo(first);
+        Assertions.assertThat(attack.getZobristKey()).isEqualTo(attackResult.getZobristKey());
+        Assertions.assertThat(attack.getZobristKey()).isNotEqualTo(first.getZobristKey());
+
+        Assertions.assertThat(Checker.getCellFromPos("c3")).isEqualTo(Checker.getCellFromPos("C3"));
+        Assertions.assertThat(Checker.getCellFromPos("c3")).hasSameHashCodeAs(Checker.getCellFromPos("C3"));
+        Assertions.assertThat(Checker.getCellFromPos("c3")).isSameAs(Checker.getCellFromPos("C3"));
+        Assertions.assertThat(Checker.getCellFromPos("c3").getSquare()).isEqualTo(Board.getSquare(3, 3));
+        Assertions.assertThat(Checker.getCellFromPos("d3").isItValidCell()).isFalse();
+        Assertions.assertThat(Cell.valueOf(0, 1).isItCellInBoard()).isFalse();
+
+        System.out.println("(☞ﾟヮﾟ)☞\n");
+    }
+
+    @Test
+    void charSequenceMoveTest() throws GameException {
+        Game game = new Game();
+        game.placeCheckers(new String[]{"c3", "e3"}, Color.WHITE);
+        game.placeCheckers(new String[]{"d4", "f6"}, Color.BLACK);
+
+        // ходы читаются из середины буфера, без отдельных строк
+        StringBuilder line = new StringBuilder("c3:e5:g7 e3-f4");
+        game.makeMove(line, 0, 8);
+        game.makeMove(line, 9, line.length());
+
+        Game expected = new Game();
+        expected.placeCheckers(new String[]{"g7", "f4"}, Color.WHITE);
+        Assertions.assertThat(game).isEqualTo(expected);
+
+        // ошибки те же, что у строкового хода
+        for (var move : new String[]{"", "c3", "c3-d4-e5", "c3:d4-e5", "c3-d", "i3-d4", "c3:e5:", "c3--d4"}) {
+            Assertions.assertThatThrownBy(() -> game.makeMove(move))
+                    .isInstanceOf(IncorrectInputException.class);
+            Assertions.assertThatThrownBy(() -> game.makeMove(" " + move + " ", 1, move.length() + 1))
+                    .isInstanceOf(IncorrectInputException.class);
+        }
+        Assertions.assertThatThrownBy(() -> game.makeMove("G7-G8")).isInstanceOf(WhiteCellException.class);
+        Assertions.assertThatThrownBy(() -> game.makeMove("a1-b2")).isInstanceOf(EmptyCellException.class);
+
+        System.out.println("ヽ(•‿•)ノ\n");
+    }
 }
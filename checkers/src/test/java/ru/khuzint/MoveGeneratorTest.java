@@ -0,0 +1,117 @@
+package ru.khuzint;
+
+import org.junit.jupiter.api.Test;
+import org.assertj.core.api.Assertions;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class MoveGeneratorTest {
+    private static final String[] WHITE_START = {"a1", "a3", "b2", "c1", "c3", "d2", "e1", "e3", "f2", "g1", "g3", "h2"};
+    private static final String[] BLACK_START = {"a7", "b6", "b8", "c7", "d6", "d8", "e7", "f6", "f8", "g7", "h6", "h8"};
+
+    private static ArrayList<String> generateMoveStrings(Game game, Color color) {
+        MoveBuffer buffer = new MoveBuffer();
+        new MoveGenerator(game).generate(color, buffer);
+
+        ArrayList<String> moves = new ArrayList<>();
+        for (int idx = 0; idx < buffer.size(); ++idx) {
+            moves.add(buffer.getMoveString(idx));
+        }
+        return moves;
+    }
+
+    private static Game copyGame(Game game) throws GameException {
+        Game copy = new Game();
+        copy.placeCheckers(game.getCheckersPosByColor(Color.WHITE), Color.WHITE);
+        copy.placeCheckers(game.getCheckersPosByColor(Color.BLACK), Color.BLACK);
+        return copy;
+    }
+
+    @Test
+    void startPositionTest() throws GameException {
+        Game game = new Game();
+        game.placeCheckers(WHITE_START, Color.WHITE);
+        game.placeCheckers(BLACK_START, Color.BLACK);
+
+        Assertions.assertThat(generateMoveStrings(game, Color.WHITE)).containsExactlyInAnyOrder(
+                "a3-b4", "c3-b4", "c3-d4", "e3-d4", "e3-f4", "g3-f4", "g3-h4");
+        Assertions.assertThat(generateMoveStrings(game, Color.BLACK)).hasSize(7);
+
+        System.out.println("(ﾉ◕ヮ◕)ﾉ*:･ﾟ✧ \n");
+    }
+
+    @Test
+    void needAttackTest() throws GameException {
+        Game game = new Game();
+        game.placeCheckers(new String[]{"c3", "g1"}, Color.WHITE);
+        game.placeCheckers(new String[]{"d4", "f6", "d6"}, Color.BLACK);
+
+        Assertions.assertThat(generateMoveStrings(game, Color.WHITE)).containsExactlyInAnyOrder("c3:e5:c7", "c3:e5:g7");
+
+        System.out.println("(⌒‿⌒)\n");
+    }
+
+    @Test
+    void queenAttackTest() throws GameException {
+        Game game = new Game();
+        game.placeCheckers(new String[]{"A1"}, Color.WHITE);
+        game.placeCheckers(new String[]{"c3", "b6"}, Color.BLACK);
+
+        // после c3 дамка могла бы встать на d4, e5, f6, g7 или h8,
+        // но обязана встать на d4, откуда можно продолжить бить b6
+        Assertions.assertThat(generateMoveStrings(game, Color.WHITE)).containsExactly("a1:d4:a7");
+
+        game.placeCheckers(new String[]{"f6"}, Color.BLACK);
+        Assertions.assertThat(generateMoveStrings(game, Color.WHITE)).containsExactlyInAnyOrder(
+                "a1:d4:a7", "a1:d4:g7", "a1:d4:h8", "a1:e5:g7", "a1:e5:h8");
+
+        System.out.println("(◕‿◕)\n");
+    }
+
+    @Test
+    void becomeQueenInAttackTest() throws GameException {
+        Game game = new Game();
+        game.placeCheckers(new String[]{"b6"}, Color.WHITE);
+        game.placeCheckers(new String[]{"c7", "f6"}, Color.BLACK);
+
+        // на d8 шашка становится дамкой и продолжает бить f6 издалека
+        Assertions.assertThat(generateMoveStrings(game, Color.WHITE)).containsExactlyInAnyOrder(
+                "b6:d8:g5", "b6:d8:h4");
+
+        System.out.println("(╯✧▽✧)╯\n");
+    }
+
+    @Test
+    void randomGamesTest() throws GameException {
+        Random random = new Random(2022);
+        MoveBuffer buffer = new MoveBuffer();
+        long checkedMoves = 0;
+
+        for (int gameIdx = 0; gameIdx < 200; ++gameIdx) {
+            Game game = new Game();
+            game.placeCheckers(WHITE_START, Color.WHITE);
+            game.placeCheckers(BLACK_START, Color.BLACK);
+            MoveGenerator generator = new MoveGenerator(game);
+
+            Color color = Color.WHITE;
+            for (int ply = 0; ply < 150; ++ply) {
+                if (generator.generate(color, buffer) == 0) {
+                    break;
+                }
+
+                // каждый найденный ход должен приниматься строковым makeMove
+                for (int idx = 0; idx < buffer.size(); ++idx) {
+                    copyGame(game).makeMove(buffer.getMoveString(idx));
+                    checkedMoves++;
+                }
+
+                game.makeMove(buffer, random.nextInt(buffer.size()));
+                color = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+            }
+        }
+
+        Assertions.assertThat(checkedMoves).isGreaterThan(10000);
+        System.out.println("(* ^ ω ^)\n");
+    }
+}
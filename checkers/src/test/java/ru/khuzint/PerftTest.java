@@ -0,0 +1,88 @@
+package ru.khuzint;
+
+import org.junit.jupiter.api.Test;
+import org.assertj.core.api.Assertions;
+
+import java.util.Random;
+
+public class PerftTest {
+    private static Game copyGame(Game game) throws GameException {
+        Game copy = new Game();
+        copy.placeCheckers(game.getCheckersPosByColor(Color.WHITE), Color.WHITE);
+        copy.placeCheckers(game.getCheckersPosByColor(Color.BLACK), Color.BLACK);
+        return copy;
+    }
+
+    private static Color getNext(Color color) {
+        return color == Color.WHITE ? Color.BLACK : Color.WHITE;
+    }
+
+    // медленный perft: каждый ход делается строкой на копии игры
+    private static long countByCopy(Game game, Color color, int depth) throws GameException {
+        MoveBuffer buffer = new MoveBuffer();
+        int count = new MoveGenerator(game).generate(color, buffer);
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+        for (int idx = 0; idx < count; ++idx) {
+            Game copy = copyGame(game);
+            copy.makeMove(buffer.getMoveString(idx));
+            nodes += countByCopy(copy, getNext(color), depth - 1);
+        }
+        return nodes;
+    }
+
+    @Test
+    void startCountsTest() throws GameException {
+        Perft perft = new Perft(Perft.createStartGame());
+        for (int depth = 1; depth <= 7; ++depth) {
+            Assertions.assertThat(perft.count(Color.WHITE, depth)).isEqualTo(Perft.getStartCount(depth));
+        }
+
+        System.out.println("ᕦ(ò_óˇ)ᕤ\n");
+    }
+
+    @Test
+    void copyMakeTest() throws GameException {
+        Game game = Perft.createStartGame();
+        Assertions.assertThat(countByCopy(game, Color.WHITE, 5)).isEqualTo(Perft.getStartCount(5));
+
+        System.out.println("(•̀ᴗ•́)و\n");
+    }
+
+    @Test
+    void randomPositionsTest() throws GameException {
+        Random random = new Random(2022);
+        MoveBuffer buffer = new MoveBuffer();
+
+        for (int gameIdx = 0; gameIdx < 30; ++gameIdx) {
+            Game game = Perft.createStartGame();
+            MoveGenerator generator = new MoveGenerator(game);
+            Color color = Color.WHITE;
+
+            for (int ply = 0; ply < 60; ++ply) {
+                if (generator.generate(color, buffer) == 0) {
+                    break;
+                }
+                game.makeMove(buffer, random.nextInt(buffer.size()));
+                color = getNext(color);
+
+                if (ply % 10 == 9) {
+                    String[] white = game.getCheckersPosByColor(Color.WHITE);
+                    String[] black = game.getCheckersPosByColor(Color.BLACK);
+
+                    long fast = new Perft(game).count(color, 3);
+                    Assertions.assertThat(fast).isEqualTo(countByCopy(game, color, 3));
+
+                    // perft откатывает все ходы
+                    Assertions.assertThat(game.getCheckersPosByColor(Color.WHITE)).isEqualTo(white);
+                    Assertions.assertThat(game.getCheckersPosByColor(Color.BLACK)).isEqualTo(black);
+                }
+            }
+        }
+
+        System.out.println("(づ｡◕‿‿◕｡)づ\n");
+    }
+}
@@ -0,0 +1,110 @@
+package ru.khuzint;
+
+import org.junit.jupiter.api.Test;
+import org.assertj.core.api.Assertions;
+
+import java.util.Random;
+
+public class SearchTest {
+    private static Game createGame(String[] white, String[] black) throws GameException {
+        Game game = new Game();
+        game.placeCheckers(white, Color.WHITE);
+        game.placeCheckers(black, Color.BLACK);
+        return game;
+    }
+
+    private static Game copyGame(Game game) throws GameException {
+        return createGame(game.getCheckersPosByColor(Color.WHITE), game.getCheckersPosByColor(Color.BLACK));
+    }
+
+    @Test
+    void keyTest() throws GameException {
+        Random random = new Random(2022);
+        MoveBuffer buffer = new MoveBuffer();
+        MoveUndo undo = new MoveUndo();
+
+        for (int gameIdx = 0; gameIdx < 50; ++gameIdx) {
+            Game game = Perft.createStartGame();
+            Board board = game.getBoard();
+            MoveGenerator generator = new MoveGenerator(game);
+            Color color = Color.WHITE;
+
+            for (int ply = 0; ply < 100 && generator.generate(color, buffer) != 0; ++ply) {
+                // ключ после makeMove/unmakeMove возвращается к исходному
+                long key = board.getKey();
+                for (int idx = 0; idx < buffer.size(); ++idx) {
+                    board.makeMove(buffer, idx, undo);
+                    board.unmakeMove(undo);
+                    Assertions.assertThat(board.getKey()).isEqualTo(key);
+                }
+
+                game.makeMove(buffer, random.nextInt(buffer.size()));
+                color = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+
+                // инкрементальный ключ совпадает с ключом той же позиции, расставленной с нуля
+                Assertions.assertThat(board.getKey()).isEqualTo(copyGame(game).getBoard().getKey());
+            }
+        }
+
+        System.out.println("ʕ•ᴥ•ʔ\n");
+    }
+
+    @Test
+    void winTest() throws GameException {
+        Game game = createGame(new String[]{"a1", "e3"}, new String[]{"h4"});
+        Search search = new Search(game);
+
+        // после e3-f4 оба хода черной шашки, и вперед, и назад, подставляют ее под бой
+        Assertions.assertThat(search.bestMove(Color.WHITE, 10_000, 6)).isEqualTo("e3-f4");
+        Assertions.assertThat(search.getScore()).isEqualTo(Search.K_WIN - 3);
+
+        System.out.println("(ง'̀-'́)ง\n");
+    }
+
+    @Test
+    void noMovesTest() throws GameException {
+        Game game = createGame(new String[]{"b2", "c3"}, new String[]{"a1"});
+        Search search = new Search(game);
+
+        Assertions.assertThat(search.bestMove(Color.BLACK, 10_000)).isNull();
+        Assertions.assertThat(search.getScore()).isEqualTo(-Search.K_WIN);
+
+        System.out.println("¯\\_(ツ)_/¯\n");
+    }
+
+    @Test
+    void timeBudgetTest() throws GameException {
+        Game game = Perft.createStartGame();
+        String[] white = game.getCheckersPosByColor(Color.WHITE);
+        String[] black = game.getCheckersPosByColor(Color.BLACK);
+        Search search = new Search(game);
+
+        long start = System.nanoTime();
+        String move = search.bestMove(Color.WHITE, 300);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Assertions.assertThat(millis).isLessThan(1_000);
+        Assertions.assertThat(search.getDepth()).isGreaterThanOrEqualTo(4);
+        Assertions.assertThat(search.getNodes()).isPositive();
+
+        // поиск откатывает все ходы, а найденный ход принимает Game
+        Assertions.assertThat(game.getCheckersPosByColor(Color.WHITE)).isEqualTo(white);
+        Assertions.assertThat(game.getCheckersPosByColor(Color.BLACK)).isEqualTo(black);
+        game.makeMove(move);
+
+        System.out.println("(⌐■_■)\n");
+    }
+
+    @Test
+    void evaluatorTest() throws GameException {
+        Game game = Perft.createStartGame();
+
+        // оценка, по которой ходящему плохо, когда у соперника шашка на d4: белые должны пойти на d4
+        int target = 1 << Board.getSquare(4, 4);
+        Search search = new Search(game, (own, enemy, queens, color) -> (enemy & target) != 0 ? -1 : 0);
+
+        Assertions.assertThat(search.bestMove(Color.WHITE, 10_000, 1)).isIn("c3-d4", "e3-d4");
+
+        System.out.println("(◕‿◕✿)\n");
+    }
+}
@@ -0,0 +1,94 @@
+package khuzint.ru;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк правил пропуска в тоннель на симуляции: 10000 рандомных кораблей из SeaPort по зерну.
+ * Флот RANDOM приходит в порядке создания, флот CONVOYS - караванами: сначала все корабли одного продукта,
+ * потом другого.
+ * Время бенчмарка включает перестановку флота, а в конце каждого набора параметров печатается makespan -
+ * время по виртуальным часам до конца последней разгрузки
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AdmissionBenchmark {
+    private static final int K_SHIPS = 10_000;
+    private static final LocalDateTime START = LocalDateTime.of(2022, 10, 1, 12, 0);
+
+    @Param({"FIFO", "LONGEST_UNLOAD_FIRST", "INTERLEAVE_PRODUCTS", "LOOKAHEAD"})
+    private String policyName;
+
+    @Param({"1", "5"})
+    private int tunnelSize;
+
+    /** Скорости разгрузки доков одной группы через запятую */
+    @Param({"10", "10,50"})
+    private String unloadSpeeds;
+
+    @Param({"RANDOM", "CONVOYS"})
+    private String fleetName;
+
+    private ArrayList<Ship> ships;
+    private LocalDateTime finish;
+
+    @Setup(Level.Trial)
+    public void createShips() {
+        SeaPort.resetNumbering();
+        ships = SeaPort.createShips(K_SHIPS, 2022);
+        if ("CONVOYS".equals(fleetName)) {
+            ships.sort(Comparator.comparing(Ship::getProduct));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void printMakespan() {
+        System.out.println("makespan: " + Duration.between(START, finish).getSeconds() + " s");
+    }
+
+    @Benchmark
+    public LocalDateTime simulate() {
+        var speeds = Arrays.stream(unloadSpeeds.split(",")).mapToInt(Integer::parseInt).toArray();
+        var docks = Dock.createDockGroupsFromProducts(speeds, ExecutionMode.PLATFORM_THREADS);
+        var admitted = createPolicy().order(ships, docks);
+        finish = Simulation.simulate(admitted, docks, tunnelSize, START, DockDispatcher.shortestExpectedFinish(),
+                new PortMetrics());
+        Dock.stop(docks).join();
+        return finish;
+    }
+
+    private AdmissionPolicy createPolicy() {
+        switch (policyName) {
+            case "LONGEST_UNLOAD_FIRST":
+                return AdmissionPolicy.longestUnloadFirst();
+            case "INTERLEAVE_PRODUCTS":
+                return AdmissionPolicy.interleaveProducts();
+            case "LOOKAHEAD":
+                return AdmissionPolicy.lookahead(tunnelSize);
+            default:
+                return AdmissionPolicy.fifo();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package khuzint.ru;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк диспетчеров доков и кражи работы на симуляции: 10000 кораблей, 70% из них везут хлеб.
+ * Кроме времени симуляции в конце каждого набора параметров печатается makespan -
+ * время по виртуальным часам до конца последней разгрузки
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DockDispatchBenchmark {
+    private static final int K_SHIPS = 10_000;
+    private static final int K_TUNNEL_SIZE = 5;
+    private static final int K_BREAD_PERCENT = 70;
+    private static final int K_PERCENT = 100;
+    private static final LocalDateTime START = LocalDateTime.of(2022, 10, 1, 12, 0);
+
+    @Param({"ROUND_ROBIN", "LEAST_LOADED", "SHORTEST_EXPECTED_FINISH"})
+    private String dispatcherName;
+
+    /** Скорости разгрузки доков одной группы через запятую */
+    @Param({"10", "10,10", "10,50", "10,10,10,10"})
+    private String unloadSpeeds;
+
+    /** Кража работы: DISABLED, SAME_PRODUCT или ANY_TO_BREAD - доки всех продуктов разгружают и хлеб */
+    @Param({"DISABLED", "SAME_PRODUCT", "ANY_TO_BREAD"})
+    private String stealingName;
+
+    private ArrayList<Ship> ships;
+    private LocalDateTime finish;
+
+    @Setup(Level.Trial)
+    public void createShips() {
+        Random random = new Random(2022);
+        ships = new ArrayList<>();
+        for (int idx = 0; idx < K_SHIPS; ++idx) {
+            var product = random.nextInt(K_PERCENT) < K_BREAD_PERCENT
+                    ? Product.BREAD : Product.values()[1 + random.nextInt(Product.values().length - 1)];
+            var capacity = Capacity.values()[random.nextInt(Capacity.values().length)];
+            ships.add(new Ship(idx + 1, product, capacity));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void printMakespan() {
+        System.out.println("makespan: " + Duration.between(START, finish).getSeconds() + " s");
+    }
+
+    @Benchmark
+    public LocalDateTime simulate() {
+        var speeds = Arrays.stream(unloadSpeeds.split(",")).mapToInt(Integer::parseInt).toArray();
+        var docks = Dock.createDockGroupsFromProducts(speeds, ExecutionMode.PLATFORM_THREADS);
+        finish = Simulation.simulate(ships, docks, K_TUNNEL_SIZE, START, createDispatcher(), createStealing(),
+                new PortMetrics());
+        return finish;
+    }
+
+    private DockDispatcher createDispatcher() {
+        switch (dispatcherName) {
+            case "LEAST_LOADED":
+                return DockDispatcher.leastLoaded();
+            case "SHORTEST_EXPECTED_FINISH":
+                return DockDispatcher.shortestExpectedFinish();
+            default:
+                return DockDispatcher.roundRobin();
+        }
+    }
+
+    private WorkStealing createStealing() {
+        switch (stealingName) {
+            case "SAME_PRODUCT":
+                return WorkStealing.sameProduct();
+            case "ANY_TO_BREAD":
+                return WorkStealing.withCompatibility(Map.of(Product.BANANAS, Set.of(Product.BREAD),
+                        Product.CLOTHES, Set.of(Product.BREAD)));
+            default:
+                return WorkStealing.disabled();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package khuzint.ru;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк режимов выполнения: все корабли одновременно проходят тоннель размера shipsCount.
+ * В режиме PLATFORM_THREADS это shipsCount потоков ОС, в режиме VIRTUAL_THREADS - виртуальные потоки.
+ * Разгрузка мгновенная, поэтому время сверх одной секунды тоннеля - накладные расходы на потоки
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+    private static final int K_INSTANT_UNLOAD_SPEED = 1000;
+
+    @Param({"PLATFORM_THREADS", "VIRTUAL_THREADS"})
+    private ExecutionMode mode;
+
+    @Param({"1000", "10000"})
+    private int shipsCount;
+
+    private PrintStream out;
+    private ArrayList<Ship> ships;
+
+    @Setup(Level.Trial)
+    public void muteOutput() {
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        System.setOut(out);
+    }
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        ships = new ArrayList<>();
+        for (int idx = 0; idx < shipsCount; ++idx) {
+            ships.add(new Ship(idx + 1, Product.values()[idx % Product.values().length], Capacity.BIG));
+        }
+    }
+
+    /**
+     * Проход всех кораблей через тоннель и доки
+     */
+    @Benchmark
+    public ArrayList<Ship> sendShips() {
+        var docks = Dock.createDocksFromProducts(K_INSTANT_UNLOAD_SPEED, mode);
+        var tunnel = new Tunnel(shipsCount, mode);
+        App.sendShipsToDocksThroughTunnel(ships, docks, tunnel);
+        tunnel.stop().join();
+        Dock.stop(Dock.toDockGroups(docks)).join();
+        return ships;
+    }
+}
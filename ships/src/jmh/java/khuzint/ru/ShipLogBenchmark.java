@@ -0,0 +1,71 @@
+package khuzint.ru;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк вывода событий кораблей из нескольких потоков: прежний System.out.println со сборкой строки
+ * в потоке корабля против записи события в ShipLog. Вывод идет в пустой поток,
+ * поэтому меряется только то, сколько времени событие стоит потоку тоннеля или дока
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ShipLogBenchmark {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private PrintStream out;
+    private Ship ship;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ship = new Ship(1, Product.BREAD, Capacity.SMALL);
+        ship.setDepartureTime(LocalDateTime.of(2022, 10, 1, 12, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        ShipLog.getInstance().flush();
+        System.setOut(out);
+    }
+
+    /**
+     * Как было: строка собирается и печатается под блокировкой System.out в потоке корабля
+     */
+    @Benchmark
+    public void println() {
+        System.out.println("--> Ship number " + ship.getId() + " ".repeat(3)
+                + "departed         at " + DATE.format(ship.getDepartureTime()));
+    }
+
+    /**
+     * Как стало: событие записывается в кольцевой буфер, строку собирает и печатает писатель
+     */
+    @Benchmark
+    public void shipLog() {
+        ship.printDepartureTime();
+    }
+}
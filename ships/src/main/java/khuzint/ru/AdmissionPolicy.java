@@ -0,0 +1,162 @@
+package khuzint.ru;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Интерфейс правило пропуска в тоннель. Тоннель пропускает корабли в порядке массива,
+ * поэтому правило переставляет корабли флота до того, как он придет к тоннелю.
+ * Правило видит доки порта и может учитывать, сколько корабль будет разгружаться и когда освободятся доки
+ */
+public interface AdmissionPolicy {
+
+    /**
+     * Функция возвращает порядок, в котором корабли зайдут в тоннель
+     * @param ships - корабли флота
+     * @param docks - Map с группами доков по продуктам
+     * @return возвращает новый массив с теми же кораблями
+     */
+    ArrayList<Ship> order(List<Ship> ships, Map<Product, List<Dock>> docks);
+
+    /**
+     * Функция возвращает правило, по которому корабли заходят в тоннель в порядке флота
+     */
+    static AdmissionPolicy fifo() {
+        return (ships, docks) -> new ArrayList<>(ships);
+    }
+
+    /**
+     * Функция возвращает правило, по которому первыми заходят корабли с самой долгой разгрузкой:
+     * короткие разгрузки в конце не удлиняют время до конца последней разгрузки
+     */
+    static AdmissionPolicy longestUnloadFirst() {
+        return (ships, docks) -> {
+            var ordered = new ArrayList<>(ships);
+            ordered.sort(Comparator.comparingLong((Ship ship) -> getUnloadSeconds(ship, docks)).reversed());
+            return ordered;
+        };
+    }
+
+    /**
+     * Функция возвращает правило, которое перемешивает продукты: следующим заходит корабль продукта,
+     * у которого пропущена самая малая доля груза. Так работа приходит ко всем группам доков равномерно
+     */
+    static AdmissionPolicy interleaveProducts() {
+        return (ships, docks) -> {
+            var queues = new EnumMap<Product, ArrayDeque<Ship>>(Product.class);
+            var totalWork = new EnumMap<Product, Long>(Product.class);
+            for (var ship : ships) {
+                queues.computeIfAbsent(ship.getProduct(), product -> new ArrayDeque<>()).add(ship);
+                totalWork.merge(ship.getProduct(), getUnloadSeconds(ship, docks), Long::sum);
+            }
+            var admittedWork = new EnumMap<Product, Long>(Product.class);
+            var ordered = new ArrayList<Ship>(ships.size());
+            while (ordered.size() < ships.size()) {
+                Product next = null;
+                var nextShare = Double.MAX_VALUE;
+                for (var product : queues.keySet()) {
+                    // у группы, где все корабли разгружаются меньше секунды, вся работа уже пропущена
+                    var total = totalWork.get(product);
+                    var share = total == 0 ? 1.0 : (double) admittedWork.getOrDefault(product, 0L) / total;
+                    if (!queues.get(product).isEmpty() && share < nextShare) {
+                        next = product;
+                        nextShare = share;
+                    }
+                }
+                var ship = queues.get(next).poll();
+                admittedWork.merge(next, getUnloadSeconds(ship, docks), Long::sum);
+                ordered.add(ship);
+            }
+            return ordered;
+        };
+    }
+
+    /**
+     * Функция возвращает правило с оценкой занятости доков. Правило проводит флот через тоннель
+     * на бумаге: корабль номер k выходит из тоннеля через k / tunnelSize + 1 секунд, а док освобождается,
+     * когда разгрузит свои корабли. Следующим заходит самый долгий корабль продукта, док которого освободится
+     * раньше всех, при равенстве - продукта с большим оставшимся грузом
+     * @param tunnelSize - количество кораблей, которые одновременно могут быть в тоннеле
+     */
+    static AdmissionPolicy lookahead(int tunnelSize) {
+        if (tunnelSize <= 0) {
+            throw new IllegalArgumentException("tunnel size must be positive: " + tunnelSize);
+        }
+        return (ships, docks) -> {
+            var queues = new EnumMap<Product, ArrayDeque<Ship>>(Product.class);
+            var remainingWork = new EnumMap<Product, Long>(Product.class);
+            var byUnload = longestUnloadFirst().order(ships, docks);
+            for (var ship : byUnload) {
+                queues.computeIfAbsent(ship.getProduct(), product -> new ArrayDeque<>()).add(ship);
+                remainingWork.merge(ship.getProduct(), getUnloadSeconds(ship, docks), Long::sum);
+            }
+            var freeTimes = new EnumMap<Product, long[]>(Product.class);
+            for (var product : queues.keySet()) {
+                freeTimes.put(product, new long[docks.get(product).size()]);
+            }
+
+            var ordered = new ArrayList<Ship>(ships.size());
+            while (ordered.size() < ships.size()) {
+                Product next = null;
+                for (var product : queues.keySet()) {
+                    if (queues.get(product).isEmpty()) {
+                        continue;
+                    }
+                    if (next == null) {
+                        next = product;
+                        continue;
+                    }
+                    var free = freeTimes.get(product)[getFirstFree(freeTimes.get(product))];
+                    var nextFree = freeTimes.get(next)[getFirstFree(freeTimes.get(next))];
+                    if (free < nextFree || free == nextFree && remainingWork.get(product) > remainingWork.get(next)) {
+                        next = product;
+                    }
+                }
+                var ship = queues.get(next).poll();
+                var arrival = (long) (ordered.size() / tunnelSize + 1);
+                var times = freeTimes.get(next);
+                var dock = getFirstFree(times);
+                times[dock] = Math.max(times[dock], arrival) + getUnloadSeconds(ship, docks.get(next).get(dock));
+                remainingWork.merge(next, -getUnloadSeconds(ship, docks), Long::sum);
+                ordered.add(ship);
+            }
+            return ordered;
+        };
+    }
+
+    /**
+     * Функция возвращает номер дока группы, который освободится раньше всех
+     */
+    private static int getFirstFree(long[] freeTimes) {
+        var dock = 0;
+        for (int idx = 1; idx < freeTimes.length; ++idx) {
+            if (freeTimes[idx] < freeTimes[dock]) {
+                dock = idx;
+            }
+        }
+        return dock;
+    }
+
+    /**
+     * Функция возвращает, сколько секунд самый быстрый док группы продукта корабля будет его разгружать.
+     * Корабль разгружает один док, поэтому скорости доков не складываются
+     */
+    private static long getUnloadSeconds(Ship ship, Map<Product, List<Dock>> docks) {
+        var seconds = Long.MAX_VALUE;
+        for (var dock : docks.get(ship.getProduct())) {
+            seconds = Math.min(seconds, getUnloadSeconds(ship, dock));
+        }
+        return seconds;
+    }
+
+    /**
+     * Функция возвращает, сколько секунд док будет разгружать корабль: целое число секунд, как у Dock и Simulation
+     */
+    private static long getUnloadSeconds(Ship ship, Dock dock) {
+        return ship.getCapacity().getCapacity() / dock.getUnloadSpeed();
+    }
+}
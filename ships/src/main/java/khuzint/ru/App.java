@@ -1,8 +1,11 @@
 package khuzint.ru;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 
 public final class App {
@@ -34,16 +37,66 @@ public final class App {
     }
 
     public static void sendShipsToDocksThroughTunnel(ArrayList<Ship> ships, Map<Product, Dock> docks, Tunnel tunnel) {
+        sendShipsToDocksThroughTunnel(ships, docks, tunnel, new PortMetrics());
+    }
+
+    public static void sendShipsToDocksThroughTunnel(ArrayList<Ship> ships, Map<Product, Dock> docks, Tunnel tunnel,
+                                                     PortMetrics metrics) {
+        sendShipsToDocksThroughTunnel(ships, Dock.toDockGroups(docks), tunnel, DockDispatcher.roundRobin(), metrics);
+    }
+
+    public static void sendShipsToDocksThroughTunnel(ArrayList<Ship> ships, Map<Product, List<Dock>> docks,
+                                                     Tunnel tunnel, DockDispatcher dispatcher, PortMetrics metrics) {
+        sendShipsToDocksThroughTunnel(ships, docks, tunnel, dispatcher, WorkStealing.disabled(), metrics);
+    }
+
+    public static void sendShipsToDocksThroughTunnel(ArrayList<Ship> ships, Map<Product, List<Dock>> docks,
+                                                     Tunnel tunnel, DockDispatcher dispatcher, WorkStealing stealing,
+                                                     PortMetrics metrics) {
+        sendShipsToDocksThroughTunnel(ships, docks, tunnel, dispatcher, stealing, AdmissionPolicy.fifo(), metrics);
+    }
+
+    /**
+     * Функция пропускает корабли через тоннель в порядке правила admission и разгружает их в доках
+     * @param fleet - массив кораблей
+     * @param docks - Map с группами доков по продуктам
+     * @param tunnel - тоннель, через который проходят корабли
+     * @param dispatcher - диспетчер, который выбирает док группы
+     * @param stealing - правило кражи работы между доками
+     * @param admission - правило, в каком порядке корабли заходят в тоннель
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     */
+    public static void sendShipsToDocksThroughTunnel(ArrayList<Ship> fleet, Map<Product, List<Dock>> docks,
+                                                     Tunnel tunnel, DockDispatcher dispatcher, WorkStealing stealing,
+                                                     AdmissionPolicy admission, PortMetrics metrics) {
+        var ships = admission.order(fleet, docks);
         var futureShips = tunnel.letPassShipsAndReturnFutureShips(ships);
-        Dock.acceptShips(ships, futureShips, docks);
-        for (var futureShip : futureShips) {
-            while (true) {
-                if (futureShip.isDone()) {
-                    break;
-                }
-            }
-        }
+        var unloadedShips = Dock.acceptShips(ships, futureShips, docks, dispatcher, stealing, metrics);
+        CompletableFuture.allOf(unloadedShips.toArray(new CompletableFuture<?>[0])).join();
+        ShipLog.getInstance().flush();
+        System.out.println("--> All ships arrived at the docks and were unloaded");
+    }
+
+    /**
+     * Функция пропускает поток кораблей через тоннель и доки и ждет, пока поток кончится
+     * @param ships - поток кораблей, например ShipStream
+     * @param docks - Map с группами доков по продуктам
+     * @param tunnel - тоннель, через который проходят корабли
+     * @param bufferSize - сколько кораблей может одновременно быть в порту
+     * @param dispatcher - диспетчер, который выбирает док группы
+     * @param stealing - правило кражи работы между доками
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     * @return возвращает количество разгруженных кораблей
+     */
+    public static long sendShipStreamToDocksThroughTunnel(Flow.Publisher<Ship> ships, Map<Product, List<Dock>> docks,
+                                                          Tunnel tunnel, int bufferSize, DockDispatcher dispatcher,
+                                                          WorkStealing stealing, PortMetrics metrics) {
+        var subscriber = new PortSubscriber(bufferSize, docks, tunnel, dispatcher, stealing, metrics);
+        ships.subscribe(subscriber);
+        var unloadedShips = subscriber.join();
+        ShipLog.getInstance().flush();
         System.out.println("--> All ships arrived at the docks and were unloaded");
+        return unloadedShips;
     }
 
     public static void main(String[] args) {
@@ -54,11 +107,14 @@ public final class App {
 
             SeaPort.resetNumbering();
             var ships = SeaPort.createShips(numberOfShips);
-            var docks = Dock.createDocksFromProducts(unloadSpeed);
-            var tunnel = new Tunnel(tunnelSize);
+            var mode = args.length > 0 ? ExecutionMode.valueOf(args[0]) : ExecutionMode.PLATFORM_THREADS;
+            var docks = Dock.createDocksFromProducts(unloadSpeed, mode);
+            var tunnel = new Tunnel(tunnelSize, mode);
 
             printShipsTable(ships);
             sendShipsToDocksThroughTunnel(ships, docks, tunnel);
+            tunnel.stop().join();
+            Dock.stop(Dock.toDockGroups(docks)).join();
         } catch (Exception exp) {
             System.out.println(exp.getMessage());
         }
@@ -1,6 +1,7 @@
 package khuzint.ru;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Перечисления вместимостей, которые могут иметь корабли
@@ -11,8 +12,17 @@ enum Capacity {
     BIG;
 
     public static Capacity getRandomCapacity() {
-        Random random = new Random();
-        int number = random.nextInt(3) + 1;
+        return getCapacity(ThreadLocalRandom.current().nextInt(3) + 1);
+    }
+
+    /**
+     * Функция выбирает вместимость генератором random, например генератором части флота в SeaPort
+     */
+    public static Capacity getRandomCapacity(SplittableRandom random) {
+        return getCapacity(random.nextInt(3) + 1);
+    }
+
+    private static Capacity getCapacity(int number) {
         switch (number) {
             case 1:
                 return SMALL;
@@ -1,30 +1,90 @@
 package khuzint.ru;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Класс причал. Определеяется продуктом, который он разгружает и скоростью разгрузки.
- * Для реализации алгоритма имеет внутри себя thread pool размера 1
+ * Для реализации алгоритма имеет внутри себя thread pool и семафор на одно место:
+ * в доке одновременно разгружается только один корабль.
+ * Док помнит еще не разгруженный груз отправленных в него кораблей, по нему DockDispatcher выбирает док.
+ * Корабли ждут разгрузки в очереди дока, из которой их могут забрать свободные доки, если включена кража работы.
+ * Порядок разгрузки очереди задает правило QueuePolicy дока, по умолчанию - порядок прихода.
+ * Док - долгоживущая служба: его поток разгружает корабли любого числа флотов, пока док не остановят через stop
  */
 @Getter @Setter
 public final class Dock {
+    /** Флаг остановки в младшем бите состояния дока */
+    private static final long K_STOPPING = 1;
+    /** Один корабль в старших битах состояния дока */
+    private static final long K_SHIP = 2;
+
     private final Product product;
     private final int unloadSpeed;
     private final ExecutorService pool;
+    private final Semaphore berth;
+    private final AtomicLong remainingCargo = new AtomicLong();
+    private final QueuePolicy queuePolicy;
+    @Getter(AccessLevel.NONE)
+    private final DockQueue<QueuedShip> queue;
+    /**
+     * Состояние дока: флаг остановки в младшем бите и число кораблей, отправленных в док и еще не разгруженных.
+     * Меняется одним CAS, как и состояние тоннеля
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong state = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+
+    /**
+     * Корабль в очереди дока и Future, который завершается после его разгрузки
+     */
+    private static final class QueuedShip {
+        private final Ship ship;
+        private final CompletableFuture<Void> unloadedShip;
+
+        private QueuedShip(Ship ship, CompletableFuture<Void> unloadedShip) {
+            this.ship = ship;
+            this.unloadedShip = unloadedShip;
+        }
+    }
 
     public Dock(Product product, int unloadSpeed) {
+        this(product, unloadSpeed, ExecutionMode.PLATFORM_THREADS);
+    }
+
+    public Dock(Product product, int unloadSpeed, ExecutionMode mode) {
+        this(product, unloadSpeed, mode, QueuePolicy.fifo());
+    }
+
+    public Dock(Product product, int unloadSpeed, ExecutionMode mode, QueuePolicy queuePolicy) {
+        this(product, unloadSpeed, mode.createPool(1), queuePolicy);
+    }
+
+    /**
+     * Функция создает док с готовым пулом
+     * @param pool - пул задач разгрузки или null для дока Simulation, который разгружает по виртуальным часам
+     */
+    private Dock(Product product, int unloadSpeed, ExecutorService pool, QueuePolicy queuePolicy) {
         this.product = product;
         this.unloadSpeed = unloadSpeed;
-        this.pool = Executors.newFixedThreadPool(1);
+        this.pool = pool;
+        this.berth = new Semaphore(1, true);
+        this.queuePolicy = queuePolicy;
+        this.queue = new DockQueue<>(this);
     }
 
     /**
@@ -33,58 +93,403 @@ public final class Dock {
      * @return возвращает Map с причалами по продуктам
      */
     public static Map<Product, Dock> createDocksFromProducts(int unloadSpeed) {
+        return createDocksFromProducts(unloadSpeed, ExecutionMode.PLATFORM_THREADS);
+    }
+
+    /**
+     * Функция создает причал для каждого продукта из класса Product
+     * @param unloadSpeed - скорость разгрузки созданных причалов
+     * @param mode - режим выполнения задач разгрузки
+     * @return возвращает Map с причалами по продуктам
+     */
+    public static Map<Product, Dock> createDocksFromProducts(int unloadSpeed, ExecutionMode mode) {
         var docks = new HashMap<Product, Dock>();
         for (var product : Product.values()) {
-            var dock = new Dock(product, unloadSpeed);
+            var dock = new Dock(product, unloadSpeed, mode);
             docks.put(product, dock);
         }
         return docks;
     }
 
+    /**
+     * Функция создает группу причалов для каждого продукта из класса Product: по причалу на каждую скорость
+     * @param unloadSpeeds - скорости разгрузки причалов одной группы
+     * @param mode - режим выполнения задач разгрузки
+     * @return возвращает Map с группами причалов по продуктам
+     */
+    public static Map<Product, List<Dock>> createDockGroupsFromProducts(int[] unloadSpeeds, ExecutionMode mode) {
+        return createDockGroupsFromProducts(unloadSpeeds, mode, Map.of());
+    }
+
+    /**
+     * Функция создает группы причалов так же, как createDockGroupsFromProducts, с правилом очереди для продукта
+     * @param unloadSpeeds - скорости разгрузки причалов одной группы
+     * @param mode - режим выполнения задач разгрузки
+     * @param policies - правила очереди доков по продуктам, для остальных продуктов - fifo
+     * @return возвращает Map с группами причалов по продуктам
+     */
+    public static Map<Product, List<Dock>> createDockGroupsFromProducts(int[] unloadSpeeds, ExecutionMode mode,
+                                                                        Map<Product, QueuePolicy> policies) {
+        return createDockGroups(unloadSpeeds, policies, () -> mode.createPool(1));
+    }
+
+    /**
+     * Функция создает группы причалов для Simulation так же, как createDockGroupsFromProducts, но без пулов:
+     * симуляция берет у доков только скорость, правило очереди и учет груза, поэтому их не нужно останавливать
+     * @param unloadSpeeds - скорости разгрузки причалов одной группы
+     * @param policies - правила очереди доков по продуктам, для остальных продуктов - fifo
+     * @return возвращает Map с группами причалов по продуктам
+     */
+    static Map<Product, List<Dock>> createSimulationDockGroups(int[] unloadSpeeds, Map<Product, QueuePolicy> policies) {
+        return createDockGroups(unloadSpeeds, policies, () -> null);
+    }
+
+    private static Map<Product, List<Dock>> createDockGroups(int[] unloadSpeeds, Map<Product, QueuePolicy> policies,
+                                                             Supplier<ExecutorService> pools) {
+        var docks = new HashMap<Product, List<Dock>>();
+        for (var product : Product.values()) {
+            var policy = policies.getOrDefault(product, QueuePolicy.fifo());
+            var group = new ArrayList<Dock>();
+            for (var unloadSpeed : unloadSpeeds) {
+                group.add(new Dock(product, unloadSpeed, pools.get(), policy));
+            }
+            docks.put(product, group);
+        }
+        return docks;
+    }
+
+    /**
+     * Функция превращает Map с причалами по продуктам в группы из одного причала
+     */
+    static Map<Product, List<Dock>> toDockGroups(Map<Product, Dock> docks) {
+        var groups = new HashMap<Product, List<Dock>>();
+        for (var dock : docks.values()) {
+            groups.put(dock.getProduct(), List.of(dock));
+        }
+        return groups;
+    }
+
+    /**
+     * Функция возвращает груз отправленных в док кораблей, который еще не разгружен
+     */
+    public long getRemainingCargo() {
+        return remainingCargo.get();
+    }
+
+    /**
+     * Функция возвращает, через сколько секунд док разгрузит корабль, если отправить его в док сейчас
+     */
+    public double getExpectedFinish(Ship ship) {
+        return (double) (remainingCargo.get() + ship.getCapacity().getCapacity()) / unloadSpeed;
+    }
+
+    /**
+     * Функция выбирает док группы для корабля и сразу записывает на него груз корабля
+     * @param ship - корабль, который вышел из тоннеля
+     * @param group - доки продукта корабля
+     * @param dispatcher - диспетчер, который выбирает док
+     * @return возвращает выбранный док
+     * @throws IllegalStateException если выбранный док остановлен
+     */
+    static Dock assignShip(Ship ship, List<Dock> group, DockDispatcher dispatcher) {
+        synchronized (group) {
+            var dock = dispatcher.chooseDock(ship, group);
+            dock.enterDock();
+            dock.remainingCargo.addAndGet(ship.getCapacity().getCapacity());
+            return dock;
+        }
+    }
+
+    /**
+     * Функция отмечает, что груз корабля разгружен
+     */
+    void releaseShip(Ship ship) {
+        remainingCargo.addAndGet(-ship.getCapacity().getCapacity());
+        if (state.addAndGet(-K_SHIP) == K_STOPPING) {
+            terminate();
+        }
+    }
+
+    /**
+     * Функция записывает корабль в док, если тот еще не останавливается
+     * @throws IllegalStateException если док остановлен
+     */
+    private void enterDock() {
+        long current;
+        do {
+            current = state.get();
+            if ((current & K_STOPPING) != 0) {
+                throw new IllegalStateException("dock is stopped");
+            }
+        } while (!state.compareAndSet(current, current + K_SHIP));
+    }
+
+    private boolean isItStopping() {
+        return (state.get() & K_STOPPING) != 0;
+    }
+
+    /**
+     * Функция останавливает док: новые корабли больше не принимаются, а уже отправленные в док
+     * разгружаются до конца. Поток дока завершается, когда разгружен последний корабль
+     * @return возвращает Future, который завершается после остановки дока
+     */
+    public CompletableFuture<Void> stop() {
+        if (state.getAndUpdate(current -> current | K_STOPPING) == 0) {
+            terminate();
+        }
+        return stopped;
+    }
+
+    /**
+     * Функция останавливает все доки групп
+     * @return возвращает Future, который завершается после остановки всех доков
+     */
+    public static CompletableFuture<Void> stop(Map<Product, List<Dock>> docks) {
+        var stoppedDocks = new ArrayList<CompletableFuture<Void>>();
+        for (var group : docks.values()) {
+            for (var dock : group) {
+                stoppedDocks.add(dock.stop());
+            }
+        }
+        return CompletableFuture.allOf(stoppedDocks.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private void terminate() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        stopped.complete(null);
+    }
 
     /**
      * Одна из главных функций программы.
      * Разгружает корабли. Для каждого корабля выбирает док, в который тот должен отправиться,
-     * затем делает submit задачи разгрузки в thread pool дока.
-     * В задаче разгрузки мы ждем, пока корабль выйдет из тоннеля, затем засыпаем на время разгрузки
+     * и цепляет задачу разгрузки к Future корабля: как только корабль выходит из тоннеля,
+     * задача попадает в thread pool дока. Никто не ждет корабль в цикле.
+     * Доки после разгрузки продолжают работать, их останавливает stop
      * @param ships - массив коралей
      * @param futureShips - массив Future полученный после прохождения тоннеля
      * @param docks - Map с доками по продуктам
+     * @return возвращает массив Future, которые завершаются после разгрузки кораблей
      */
-    public static void acceptShips(ArrayList<Ship> ships, ArrayList<Future<?>> futureShips, Map<Product, Dock> docks) {
+    public static ArrayList<CompletableFuture<Void>> acceptShips(ArrayList<Ship> ships,
+                                                                 ArrayList<CompletableFuture<Ship>> futureShips,
+                                                                 Map<Product, Dock> docks) {
+        return acceptShips(ships, futureShips, docks, new PortMetrics());
+    }
+
+    /**
+     * Функция разгружает корабли так же, как acceptShips, и записывает их путь в метрики
+     * @param ships - массив коралей
+     * @param futureShips - массив Future полученный после прохождения тоннеля
+     * @param docks - Map с доками по продуктам
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     * @return возвращает массив Future, которые завершаются после разгрузки кораблей
+     */
+    public static ArrayList<CompletableFuture<Void>> acceptShips(ArrayList<Ship> ships,
+                                                                 ArrayList<CompletableFuture<Ship>> futureShips,
+                                                                 Map<Product, Dock> docks, PortMetrics metrics) {
+        return acceptShips(ships, futureShips, toDockGroups(docks), DockDispatcher.roundRobin(), metrics);
+    }
+
+    /**
+     * Функция разгружает корабли в группах доков без кражи работы
+     * @param ships - массив коралей
+     * @param futureShips - массив Future полученный после прохождения тоннеля
+     * @param docks - Map с группами доков по продуктам
+     * @param dispatcher - диспетчер, который выбирает док группы
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     * @return возвращает массив Future, которые завершаются после разгрузки кораблей
+     */
+    public static ArrayList<CompletableFuture<Void>> acceptShips(ArrayList<Ship> ships,
+                                                                 ArrayList<CompletableFuture<Ship>> futureShips,
+                                                                 Map<Product, List<Dock>> docks,
+                                                                 DockDispatcher dispatcher, PortMetrics metrics) {
+        return acceptShips(ships, futureShips, docks, dispatcher, WorkStealing.disabled(), metrics);
+    }
+
+    /**
+     * Функция разгружает корабли в группах доков. Док группы выбирается диспетчером,
+     * когда корабль выходит из тоннеля, поэтому диспетчер видит текущую нагрузку доков.
+     * Корабль встает в очередь дока, а в thread pool дока уходит задача разгрузки очереди.
+     * Если кража работы включена, свободные доки тоже получают задачу и забирают корабли из чужих очередей
+     * @param ships - массив коралей
+     * @param futureShips - массив Future полученный после прохождения тоннеля
+     * @param docks - Map с группами доков по продуктам
+     * @param dispatcher - диспетчер, который выбирает док группы
+     * @param stealing - правило кражи работы между доками
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     * @return возвращает массив Future, которые завершаются после разгрузки кораблей
+     */
+    public static ArrayList<CompletableFuture<Void>> acceptShips(ArrayList<Ship> ships,
+                                                                 ArrayList<CompletableFuture<Ship>> futureShips,
+                                                                 Map<Product, List<Dock>> docks,
+                                                                 DockDispatcher dispatcher, WorkStealing stealing,
+                                                                 PortMetrics metrics) {
+        metrics.registerDocks(docks);
+        var victims = getVictims(docks, stealing);
+        var thieves = getThieves(victims);
+
+        var unloadedShips = new ArrayList<CompletableFuture<Void>>();
         for (int idx = 0; idx < ships.size(); ++idx) {
-            var ship = ships.get(idx);
-            var dock = docks.get(ship.getProduct());
-            Runnable unloadShipTask = () -> {
-                try {
-                    while (true) {
-                        if (ship.getIsExitTunnel().get()) {
-                            // ship.printStartDock();
-                            ship.setUnloadStartTime(LocalDateTime.now());
-                            ship.printUnloadStartTime();
-
-                            //CHECKSTYLE.OFF: MagicNumber
-                            var oneSecond = 1000L;
-                            Thread.sleep((ship.getCapacity().getCapacity() / dock.unloadSpeed) * oneSecond);
-                            //CHECKSTYLE.ON: MagicNumber
-
-                            ship.setUnloadFinishTime(LocalDateTime.now());
-                            ship.printUnloadFinishTime();
-                            // ship.printEndDock();
-                            ship.printDockTime();
-
-                            break;
-                        }
-                    }
-                } catch (Exception exp) {
-                    System.out.println(exp.getMessage());
+            var group = docks.get(ships.get(idx).getProduct());
+            unloadedShips.add(acceptShip(futureShips.get(idx), group, dispatcher, victims, thieves, metrics));
+        }
+        return unloadedShips;
+    }
+
+    /**
+     * Функция возвращает для каждого дока список доков, у которых он может забирать корабли
+     */
+    static Map<Dock, List<Dock>> getVictims(Map<Product, List<Dock>> docks, WorkStealing stealing) {
+        var victims = new IdentityHashMap<Dock, List<Dock>>();
+        for (var group : docks.values()) {
+            for (var dock : group) {
+                victims.put(dock, stealing.getVictims(dock, docks));
+            }
+        }
+        return victims;
+    }
+
+    /**
+     * Функция возвращает для каждого дока список доков, которые могут забирать у него корабли
+     */
+    static Map<Dock, List<Dock>> getThieves(Map<Dock, List<Dock>> victims) {
+        var thieves = new IdentityHashMap<Dock, List<Dock>>();
+        for (var dock : victims.keySet()) {
+            thieves.put(dock, new ArrayList<>());
+        }
+        for (var dock : victims.keySet()) {
+            for (var victim : victims.get(dock)) {
+                thieves.get(victim).add(dock);
+            }
+        }
+        return thieves;
+    }
+
+    /**
+     * Функция цепляет разгрузку одного корабля к его Future: когда корабль выходит из тоннеля,
+     * диспетчер выбирает док группы, корабль встает в очередь дока, а свободные доки получают задачу разгрузки
+     * @param futureShip - Future корабля, полученный после прохождения тоннеля
+     * @param group - доки продукта корабля
+     * @param victims - для каждого дока доки, у которых он может забирать корабли
+     * @param thieves - для каждого дока доки, которые могут забирать у него корабли
+     * @return возвращает Future, который завершается после разгрузки корабля
+     */
+    static CompletableFuture<Void> acceptShip(CompletableFuture<Ship> futureShip, List<Dock> group,
+                                              DockDispatcher dispatcher, Map<Dock, List<Dock>> victims,
+                                              Map<Dock, List<Dock>> thieves, PortMetrics metrics) {
+        var unloadedShip = new CompletableFuture<Void>();
+        futureShip.thenAccept(ship -> {
+            var dock = assignShip(ship, group, dispatcher);
+            metrics.shipQueued(ship.getProduct());
+            dock.queue.add(ship, new QueuedShip(ship, unloadedShip));
+            dock.pool.execute(() -> dock.unloadQueuedShips(victims.get(dock), metrics));
+            for (var thief : thieves.get(dock)) {
+                if (!thief.isItStopping() && thief.berth.availablePermits() > 0) {
+                    thief.wakeUp(victims.get(thief), metrics);
+                }
+            }
+        }).exceptionally(exp -> {
+            unloadedShip.completeExceptionally(exp);
+            return null;
+        });
+        return unloadedShip;
+    }
+
+    /**
+     * Функция будит свободный док, чтобы он забрал корабль из чужой очереди.
+     * Док мог остановиться между проверкой и вызовом, тогда он уже не крадет корабли
+     */
+    private void wakeUp(List<Dock> dockVictims, PortMetrics metrics) {
+        try {
+            pool.execute(() -> unloadQueuedShips(dockVictims, metrics));
+        } catch (RejectedExecutionException exp) {
+            // док останавливается и уже не принимает задачи, отказ ожидаем
+        }
+    }
+
+    /**
+     * Функция-задача разгрузки очереди. Выполняется в thread pool-е дока.
+     * Разгружает корабли своей очереди, а когда она пуста - корабли, забранные у других доков
+     * @param victims - доки, у которых можно забирать корабли
+     * @param metrics - метрики, в которые записывается разгрузка
+     */
+    private void unloadQueuedShips(List<Dock> victims, PortMetrics metrics) {
+        while (true) {
+            berth.acquireUninterruptibly();
+            try {
+                var queuedShip = takeShip(victims);
+                if (queuedShip == null) {
+                    return;
                 }
-            };
-            futureShips.set(idx, dock.pool.submit(unloadShipTask));
+                unloadShip(queuedShip.ship, metrics);
+                queuedShip.unloadedShip.complete(null);
+            } finally {
+                berth.release();
+            }
         }
-        for (var key : docks.keySet()) {
-            var dock = docks.get(key);
-            dock.pool.shutdown();
+    }
+
+    /**
+     * Функция берет первый по правилу корабль своей очереди, а если она пуста - первый корабль самой длинной
+     * очереди среди victims. Груз забранного корабля переходит к этому доку
+     * @return возвращает корабль или null, если кораблей нет
+     */
+    private QueuedShip takeShip(List<Dock> victims) {
+        var queuedShip = queue.poll();
+        if (queuedShip != null || isItStopping()) {
+            return queuedShip;
+        }
+
+        Dock victim = null;
+        for (var dock : victims) {
+            if (victim == null || dock.queue.size() > victim.queue.size()) {
+                victim = dock;
+            }
+        }
+        queuedShip = victim == null ? null : victim.queue.poll();
+        if (queuedShip != null) {
+            victim.moveCargo(this, queuedShip.ship);
+        }
+        return queuedShip;
+    }
+
+    /**
+     * Функция переносит груз корабля, забранного из очереди этого дока, на док thief
+     */
+    void moveCargo(Dock thief, Ship ship) {
+        thief.state.addAndGet(K_SHIP);
+        thief.remainingCargo.addAndGet(ship.getCapacity().getCapacity());
+        releaseShip(ship);
+    }
+
+    /**
+     * Функция разгрузки одного корабля. Засыпаем на время разгрузки
+     * @param ship - корабль, который нужно разгрузить
+     * @param metrics - метрики, в которые записывается разгрузка
+     */
+    private void unloadShip(Ship ship, PortMetrics metrics) {
+        try {
+            metrics.shipUnloadStarted(ship.getProduct());
+            // ship.printStartDock();
+            ship.setUnloadStartNanos(PortClock.now());
+            ship.printUnloadStartTime();
+
+            //CHECKSTYLE.OFF: MagicNumber
+            var oneSecond = 1000L;
+            Thread.sleep((ship.getCapacity().getCapacity() / unloadSpeed) * oneSecond);
+            //CHECKSTYLE.ON: MagicNumber
+
+            ship.setUnloadFinishNanos(PortClock.now());
+            ship.printUnloadFinishTime();
+            // ship.printEndDock();
+            ship.printDockTime();
+            metrics.recordShip(ship, this);
+        } catch (Exception exp) {
+            System.out.println(exp.getMessage());
+        } finally {
+            releaseShip(ship);
         }
     }
 }
@@ -0,0 +1,63 @@
+package khuzint.ru;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Интерфейс диспетчер доков. Выбирает, в какой из доков продукта отправить корабль, вышедший из тоннеля.
+ * Функции выбора вызываются под блокировкой группы доков, поэтому нагрузка доков при выборе не меняется
+ */
+public interface DockDispatcher {
+
+    /**
+     * Функция выбирает док для корабля
+     * @param ship - корабль, который вышел из тоннеля
+     * @param docks - непустой список доков продукта корабля
+     * @return возвращает один из доков списка
+     */
+    Dock chooseDock(Ship ship, List<Dock> docks);
+
+    /**
+     * Функция возвращает диспетчер, который отправляет корабли каждого продукта в доки по кругу
+     */
+    static DockDispatcher roundRobin() {
+        Map<Product, AtomicInteger> next = new EnumMap<>(Product.class);
+        for (var product : Product.values()) {
+            next.put(product, new AtomicInteger());
+        }
+        return (ship, docks) -> docks.get(Math.floorMod(next.get(ship.getProduct()).getAndIncrement(), docks.size()));
+    }
+
+    /**
+     * Функция возвращает диспетчер, который отправляет корабль в док с наименьшим еще не разгруженным грузом
+     */
+    static DockDispatcher leastLoaded() {
+        return (ship, docks) -> {
+            var best = docks.get(0);
+            for (var dock : docks) {
+                if (dock.getRemainingCargo() < best.getRemainingCargo()) {
+                    best = dock;
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Функция возвращает диспетчер, который отправляет корабль в док, где тот раньше всего закончит разгрузку:
+     * оставшийся груз дока вместе с грузом корабля делится на скорость разгрузки дока
+     */
+    static DockDispatcher shortestExpectedFinish() {
+        return (ship, docks) -> {
+            var best = docks.get(0);
+            for (var dock : docks) {
+                if (dock.getExpectedFinish(ship) < best.getExpectedFinish(ship)) {
+                    best = dock;
+                }
+            }
+            return best;
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package khuzint.ru;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс очередь дока с приоритетом по правилу QueuePolicy дока. При равных ключах корабли выходят
+ * в порядке прихода, поэтому с правилом fifo очередь ведет себя как обычная.
+ * Очередь общая для реального режима и симуляции: в ней хранится любой элемент, связанный с кораблем
+ * @param <T> - элемент очереди, например корабль вместе с Future его разгрузки
+ */
+final class DockQueue<T> {
+    private final Dock dock;
+    private final PriorityBlockingQueue<Entry<T>> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Элемент очереди с ключом правила и номером прихода
+     */
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+        private final long key;
+        private final long sequence;
+        private final T item;
+
+        private Entry(long key, long sequence, T item) {
+            this.key = key;
+            this.sequence = sequence;
+            this.item = item;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            if (key != other.key) {
+                return Long.compare(key, other.key);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    DockQueue(Dock dock) {
+        this.dock = dock;
+    }
+
+    /**
+     * Функция ставит элемент корабля в очередь, ключ считается по правилу дока сейчас
+     */
+    void add(Ship ship, T item) {
+        queue.add(new Entry<>(dock.getQueuePolicy().getKey(ship, dock), sequence.getAndIncrement(), item));
+    }
+
+    /**
+     * Функция забирает элемент с наименьшим ключом
+     * @return возвращает элемент или null, если очередь пуста
+     */
+    T poll() {
+        var entry = queue.poll();
+        return entry == null ? null : entry.item;
+    }
+
+    int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,74 @@
+package khuzint.ru;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Перечисление режимов выполнения симуляции.
+ * PLATFORM_THREADS - тоннель и доки имеют thread pool-ы фиксированного размера.
+ * VIRTUAL_THREADS - каждая задача получает свой виртуальный поток, а размер тоннеля и доков
+ * ограничивается семафорами, поэтому заснувший корабль не занимает поток ОС. Этот режим есть только
+ * начиная с Java 21
+ */
+public enum ExecutionMode {
+    PLATFORM_THREADS,
+    VIRTUAL_THREADS;
+
+    /**
+     * Функция создает пул для задач тоннеля или дока
+     * @param poolSize - размер пула в режиме PLATFORM_THREADS
+     * @return возвращает пул, в котором задачи не ждут свободного потока
+     * @throws IllegalStateException если режим не поддерживается этой JVM
+     */
+    public ExecutorService createPool(int poolSize) {
+        if (this == PLATFORM_THREADS) {
+            return Executors.newFixedThreadPool(poolSize, ExecutionMode::createDaemonThread);
+        }
+        return createVirtualThreadPool();
+    }
+
+    /**
+     * Функция проверяет, что режим можно использовать на этой JVM
+     */
+    public boolean isItSupported() {
+        return this == PLATFORM_THREADS || getVirtualThreadPoolFactory() != null;
+    }
+
+    /**
+     * Функция создает пул виртуальных потоков. Виртуальные потоки есть только начиная с Java 21,
+     * а модуль собирается под Java 11, поэтому пул ищется через reflection.
+     * На более старых JVM режим не подменяется пулом обычных потоков: поток ОС на каждый корабль -
+     * это не то, что просили, поэтому пул не создается
+     */
+    private static ExecutorService createVirtualThreadPool() {
+        var factory = getVirtualThreadPoolFactory();
+        if (factory == null) {
+            throw new IllegalStateException("virtual threads need Java 21 or newer, running on Java "
+                    + Runtime.version().feature());
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException exp) {
+            throw new IllegalStateException("cannot create virtual thread pool", exp);
+        }
+    }
+
+    private static Method getVirtualThreadPoolFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException exp) {
+            return null;
+        }
+    }
+
+    /**
+     * Функция создает поток-демон для пулов тоннеля и доков. Тоннель и доки - долгоживущие службы,
+     * поэтому их потоки не должны держать JVM, если службу забыли остановить через stop
+     */
+    static Thread createDaemonThread(Runnable task) {
+        var thread = new Thread(task);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,91 @@
+package khuzint.ru;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Класс гистограмма длительностей в целых единицах, например в микросекундах, в духе HdrHistogram.
+ * Значения до 64 хранятся точно, дальше каждая степень двойки делится на 32 равные корзины,
+ * поэтому ошибка перцентиля не больше 1/32 значения. Запись не блокирует и может идти из разных потоков
+ */
+public final class LatencyHistogram {
+    private static final int K_EXACT_VALUES = 64;
+    private static final int K_SUB_BUCKET_BITS = 5;
+    private static final int K_SUB_BUCKETS = 1 << K_SUB_BUCKET_BITS;
+    private static final int K_FIRST_EXPONENT = 6;
+    private static final int K_LAST_EXPONENT = 62;
+    private static final int K_BUCKETS = K_EXACT_VALUES + (K_LAST_EXPONENT - K_FIRST_EXPONENT + 1) * K_SUB_BUCKETS;
+    private static final double K_PERCENT = 100.0;
+
+    private final AtomicLongArray counts = new AtomicLongArray(K_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Функция записывает одно значение. Отрицательные значения считаются нулем
+     * @param value - длительность
+     */
+    public void record(long value) {
+        var positive = Math.max(value, 0);
+        counts.incrementAndGet(getBucket(positive));
+        count.incrementAndGet();
+        sum.addAndGet(positive);
+        max.accumulateAndGet(positive, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        var total = count.get();
+        return total == 0 ? 0 : (double) sum.get() / total;
+    }
+
+    /**
+     * Функция возвращает перцентиль: наибольшее значение корзины, до которой набирается нужная доля записей
+     * @param percentile - перцентиль от 0 до 100, например 99
+     * @return возвращает значение в единицах записей или 0, если записей нет
+     */
+    public long getPercentile(double percentile) {
+        var total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        var rank = Math.max(1, (long) Math.ceil(total * percentile / K_PERCENT));
+        long seen = 0;
+        for (int bucket = 0; bucket < K_BUCKETS; ++bucket) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(getBucketMax(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    //------------for buckets-----------------------------------------------------------
+
+    private static int getBucket(long value) {
+        if (value < K_EXACT_VALUES) {
+            return (int) value;
+        }
+        var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        var subBucket = (int) (value >>> (exponent - K_SUB_BUCKET_BITS)) & (K_SUB_BUCKETS - 1);
+        return K_EXACT_VALUES + (exponent - K_FIRST_EXPONENT) * K_SUB_BUCKETS + subBucket;
+    }
+
+    private static long getBucketMax(int bucket) {
+        if (bucket < K_EXACT_VALUES) {
+            return bucket;
+        }
+        var exponent = (bucket - K_EXACT_VALUES) / K_SUB_BUCKETS + K_FIRST_EXPONENT;
+        var subBucket = (bucket - K_EXACT_VALUES) % K_SUB_BUCKETS;
+        var width = 1L << (exponent - K_SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
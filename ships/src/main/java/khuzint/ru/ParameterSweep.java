@@ -0,0 +1,255 @@
+package khuzint.ru;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Класс перебора параметров порта для планирования мощностей. Каждый сценарий прогоняется несколько раз
+ * через Simulation, поэтому прогоны не спят и идут параллельно на всех ядрах.
+ * У каждого прогона свой флот, свои доки, свои метрики и свой генератор, отделенный по порядку
+ * от генератора с зерном, поэтому результаты не зависят от числа ядер.
+ * Для каждого сценария считается среднее по прогонам и 95% доверительный интервал по t-распределению
+ */
+public final class ParameterSweep {
+    private ParameterSweep() {
+    }
+
+    private static final LocalDateTime K_START = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final double K_P99 = 99;
+    /** Квантили 0.975 распределения Стьюдента для 1..30 степеней свободы, дальше - нормальное распределение */
+    private static final double[] K_T_975 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    private static final double K_Z_975 = 1.960;
+
+    /**
+     * Показатели одного прогона: makespan, среднее и 99-й перцентиль ожидания, среднее время в порту
+     * в секундах виртуальных часов, средняя загрузка доков и доля кораблей, не успевших к сроку доставки
+     */
+    private enum Measure {
+        MAKESPAN,
+        MEAN_WAIT,
+        P99_WAIT,
+        MEAN_FLOW,
+        UTILIZATION,
+        DEADLINE_MISS
+    }
+
+    /**
+     * Оценка показателя по прогонам: среднее и половина ширины 95% доверительного интервала
+     */
+    public static final class Estimate {
+        private final double mean;
+        private final double halfWidth;
+
+        private Estimate(double[] values) {
+            var sum = 0.0;
+            for (var value : values) {
+                sum += value;
+            }
+            mean = sum / values.length;
+            var squares = 0.0;
+            for (var value : values) {
+                squares += (value - mean) * (value - mean);
+            }
+            var degrees = values.length - 1;
+            var quantile = degrees <= K_T_975.length ? K_T_975[degrees - 1] : K_Z_975;
+            halfWidth = quantile * Math.sqrt(squares / degrees / values.length);
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getHalfWidth() {
+            return halfWidth;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.2f +- %.2f", mean, halfWidth);
+        }
+    }
+
+    /**
+     * Результат сценария: оценки показателей по всем его прогонам
+     */
+    public static final class Result {
+        private final Scenario scenario;
+        private final int replicates;
+        private final Estimate[] estimates = new Estimate[Measure.values().length];
+
+        private Result(Scenario scenario, double[][] samples) {
+            this.scenario = scenario;
+            this.replicates = samples.length;
+            for (var measure : Measure.values()) {
+                var values = new double[samples.length];
+                for (int replicate = 0; replicate < samples.length; ++replicate) {
+                    values[replicate] = samples[replicate][measure.ordinal()];
+                }
+                estimates[measure.ordinal()] = new Estimate(values);
+            }
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        public int getReplicates() {
+            return replicates;
+        }
+
+        /**
+         * Функция возвращает время от входа первого корабля в тоннель до конца последней разгрузки в секундах
+         */
+        public Estimate getMakespan() {
+            return estimates[Measure.MAKESPAN.ordinal()];
+        }
+
+        /**
+         * Функция возвращает среднее ожидание корабля в секундах: ожидание тоннеля плюс ожидание в очереди дока
+         */
+        public Estimate getMeanWait() {
+            return estimates[Measure.MEAN_WAIT.ordinal()];
+        }
+
+        /**
+         * Функция возвращает 99-й перцентиль ожидания корабля в секундах
+         */
+        public Estimate getP99Wait() {
+            return estimates[Measure.P99_WAIT.ordinal()];
+        }
+
+        /**
+         * Функция возвращает среднее время корабля в порту в секундах: от прихода к тоннелю до конца разгрузки
+         */
+        public Estimate getMeanFlowTime() {
+            return estimates[Measure.MEAN_FLOW.ordinal()];
+        }
+
+        /**
+         * Функция возвращает долю кораблей со сроком доставки, которые не успели к сроку
+         * @return возвращает число от 0 до 1
+         */
+        public Estimate getDeadlineMissRate() {
+            return estimates[Measure.DEADLINE_MISS.ordinal()];
+        }
+
+        /**
+         * Функция возвращает загрузку доков, в среднем по продуктам состава флота
+         * @return возвращает число от 0 до 1
+         */
+        public Estimate getUtilization() {
+            return estimates[Measure.UTILIZATION.ordinal()];
+        }
+    }
+
+    /**
+     * Одна из главных функций перебора.
+     * Прогоняет каждый сценарий replicates раз. Все прогоны независимы и выполняются параллельным потоком
+     * в общем fork-join пуле
+     * @param scenarios - сценарии
+     * @param replicates - количество прогонов каждого сценария, не меньше 2 для доверительного интервала
+     * @param seed - зерно генератора: одно и то же зерно дает те же результаты
+     * @return возвращает результаты в порядке сценариев
+     */
+    public static List<Result> run(List<Scenario> scenarios, int replicates, long seed) {
+        if (replicates < 2) {
+            throw new IllegalArgumentException("replicates must be at least 2: " + replicates);
+        }
+        var runs = scenarios.size() * replicates;
+        var root = new SplittableRandom(seed);
+        var randoms = new SplittableRandom[runs];
+        for (int run = 0; run < runs; ++run) {
+            randoms[run] = root.split();
+        }
+
+        var samples = new double[runs][];
+        IntStream.range(0, runs).parallel()
+                .forEach(run -> samples[run] = runScenario(scenarios.get(run / replicates), randoms[run]));
+
+        var results = new ArrayList<Result>();
+        for (int idx = 0; idx < scenarios.size(); ++idx) {
+            var scenarioSamples = Arrays.copyOfRange(samples, idx * replicates, (idx + 1) * replicates);
+            results.add(new Result(scenarios.get(idx), scenarioSamples));
+        }
+        return results;
+    }
+
+    /**
+     * Функция одного прогона: создает флот и доки сценария без пулов и проводит симуляцию
+     * @return возвращает показатели прогона по порядку Measure
+     */
+    private static double[] runScenario(Scenario scenario, SplittableRandom random) {
+        var ships = scenario.getMix().createShips(scenario.getNumberOfShips(), random);
+        var speeds = new int[scenario.getDocksCount()];
+        Arrays.fill(speeds, scenario.getUnloadSpeed());
+        var policies = new EnumMap<Product, QueuePolicy>(Product.class);
+        for (var product : Product.values()) {
+            policies.put(product, scenario.getQueuePolicy());
+        }
+        var docks = Dock.createSimulationDockGroups(speeds, policies);
+        var metrics = new PortMetrics();
+        var finish = Simulation.simulate(ships, docks, scenario.getTunnelSize(), K_START,
+                DockDispatcher.roundRobin(), metrics);
+
+        var waits = new LatencyHistogram();
+        var flowSeconds = 0.0;
+        var withDeadline = 0;
+        var missedDeadline = 0;
+        for (var ship : ships) {
+            var waitNanos = ship.getDepartureNanos() - ship.getTunnelQueueNanos()
+                    + ship.getUnloadStartNanos() - ship.getArrivalNanos();
+            waits.record(TimeUnit.NANOSECONDS.toSeconds(waitNanos));
+            flowSeconds += TimeUnit.NANOSECONDS.toSeconds(ship.getUnloadFinishNanos() - ship.getTunnelQueueNanos());
+            if (ship.getDeadlineNanos() != PortClock.NO_TIME) {
+                ++withDeadline;
+                missedDeadline += ship.isDeadlineMissed() ? 1 : 0;
+            }
+        }
+        var utilization = 0.0;
+        var products = scenario.getMix().getProducts();
+        for (var product : products) {
+            utilization += metrics.getUtilization(product);
+        }
+
+        var sample = new double[Measure.values().length];
+        sample[Measure.MAKESPAN.ordinal()] = Duration.between(K_START, finish).getSeconds();
+        sample[Measure.MEAN_WAIT.ordinal()] = waits.getMean();
+        sample[Measure.P99_WAIT.ordinal()] = waits.getPercentile(K_P99);
+        sample[Measure.MEAN_FLOW.ordinal()] = flowSeconds / ships.size();
+        sample[Measure.UTILIZATION.ordinal()] = utilization / products.size();
+        sample[Measure.DEADLINE_MISS.ordinal()] = withDeadline == 0 ? 0 : (double) missedDeadline / withDeadline;
+        return sample;
+    }
+
+    /**
+     * Функция возвращает таблицу результатов, по строке на сценарий. Показатели записаны как
+     * "среднее +- половина 95% доверительного интервала"
+     */
+    public static String toTable(List<Result> results) {
+        var format = "%-7s %-6s %-6s %-10s %-9s %-6s %-4s %-20s %-16s %-16s %-16s %-14s %s%n";
+        var table = new StringBuilder(String.format(Locale.ROOT, format, "tunnel", "speed", "docks", "mix", "policy",
+                "ships", "runs", "makespan_s", "mean_wait_s", "p99_wait_s", "mean_flow_s", "utilization",
+                "deadline_miss"));
+        for (var result : results) {
+            var scenario = result.getScenario();
+            table.append(String.format(Locale.ROOT, format, scenario.getTunnelSize(), scenario.getUnloadSpeed(),
+                    scenario.getDocksCount(), scenario.getMix(), scenario.getQueuePolicy(),
+                    scenario.getNumberOfShips(), result.getReplicates(), result.getMakespan(), result.getMeanWait(),
+                    result.getP99Wait(), result.getMeanFlowTime(), result.getUtilization(),
+                    result.getDeadlineMissRate()));
+        }
+        return table.toString();
+    }
+}
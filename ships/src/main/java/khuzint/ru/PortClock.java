@@ -0,0 +1,43 @@
+package khuzint.ru;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Класс часы порта. Времена кораблей хранятся в наносекундах System.nanoTime: их дешево брать
+ * и они не прыгают при переводе системных часов. В LocalDateTime они переводятся только для вывода
+ * через пару "nanoTime и LocalDateTime", снятую один раз при загрузке класса
+ */
+public final class PortClock {
+    private PortClock() {
+    }
+
+    /** Значение для еще не записанного времени */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final long ANCHOR_NANOS = System.nanoTime();
+    private static final LocalDateTime ANCHOR_TIME = LocalDateTime.now();
+
+    /**
+     * Функция возвращает текущее время в наносекундах System.nanoTime
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Функция переводит время в наносекундах в LocalDateTime
+     * @return возвращает null для NO_TIME
+     */
+    public static LocalDateTime toDateTime(long nanos) {
+        return nanos == NO_TIME ? null : ANCHOR_TIME.plusNanos(nanos - ANCHOR_NANOS);
+    }
+
+    /**
+     * Функция переводит LocalDateTime во время в наносекундах, например время виртуальных часов симуляции
+     * @return возвращает NO_TIME для null
+     */
+    public static long toNanos(LocalDateTime time) {
+        return time == null ? NO_TIME : ANCHOR_NANOS + Duration.between(ANCHOR_TIME, time).toNanos();
+    }
+}
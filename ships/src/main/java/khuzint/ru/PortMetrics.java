@@ -0,0 +1,312 @@
+package khuzint.ru;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Класс метрики порта. Собирает гистограммы этапов пути корабля по продуктам и по вместимостям,
+ * а также показатели доков: текущую и максимальную длину очереди и загрузку,
+ * и показатели кораблей: время в порту и долю кораблей, не успевших к сроку доставки.
+ * Времена берутся из самих кораблей, поэтому метрики одинаково работают в реальном режиме и в симуляции.
+ * Гистограммы хранят длительности в микросекундах, а снимки показывают их в миллисекундах с долями.
+ * Все функции можно вызывать из разных потоков
+ */
+public final class PortMetrics {
+    private static final double[] PERCENTILES = {50, 90, 99};
+    private static final double K_MICROS_IN_MILLI = 1000.0;
+
+    /**
+     * Этапы пути корабля:
+     * TUNNEL_WAIT - ожидание места в тоннеле, TUNNEL_TRANSIT - проход тоннеля,
+     * DOCK_WAIT - ожидание в очереди дока, UNLOAD - разгрузка
+     */
+    public enum Stage {
+        TUNNEL_WAIT,
+        TUNNEL_TRANSIT,
+        DOCK_WAIT,
+        UNLOAD
+    }
+
+    /**
+     * Показатели одного дока
+     */
+    private static final class DockGauges {
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private volatile int docksCount = 1;
+    }
+
+    /**
+     * Показатели кораблей одного продукта: время от прихода к тоннелю до конца разгрузки
+     * и сроки доставки
+     */
+    private static final class ShipCounters {
+        private final LatencyHistogram flowTime = new LatencyHistogram();
+        private final AtomicLong withDeadline = new AtomicLong();
+        private final AtomicLong missedDeadline = new AtomicLong();
+    }
+
+    private final Map<Stage, Map<Product, LatencyHistogram>> byProduct = new EnumMap<>(Stage.class);
+    private final Map<Stage, Map<Capacity, LatencyHistogram>> byCapacity = new EnumMap<>(Stage.class);
+    private final Map<Product, DockGauges> docks = new EnumMap<>(Product.class);
+    private final Map<Product, ShipCounters> ships = new EnumMap<>(Product.class);
+
+    /** Самое раннее и самое позднее время среди записанных кораблей в наносекундах, окно для загрузки доков */
+    private final AtomicLong firstNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastNanos = new AtomicLong(Long.MIN_VALUE);
+
+    public PortMetrics() {
+        for (var stage : Stage.values()) {
+            var products = new EnumMap<Product, LatencyHistogram>(Product.class);
+            for (var product : Product.values()) {
+                products.put(product, new LatencyHistogram());
+            }
+            byProduct.put(stage, products);
+
+            var capacities = new EnumMap<Capacity, LatencyHistogram>(Capacity.class);
+            for (var capacity : Capacity.values()) {
+                capacities.put(capacity, new LatencyHistogram());
+            }
+            byCapacity.put(stage, capacities);
+        }
+        for (var product : Product.values()) {
+            docks.put(product, new DockGauges());
+            ships.put(product, new ShipCounters());
+        }
+    }
+
+    //------------for recording---------------------------------------------------------
+
+    /**
+     * Функция запоминает, сколько доков у каждого продукта, чтобы загрузка считалась на один док
+     * @param groups - Map с группами доков по продуктам
+     */
+    public void registerDocks(Map<Product, List<Dock>> groups) {
+        for (var group : groups.entrySet()) {
+            docks.get(group.getKey()).docksCount = group.getValue().size();
+        }
+    }
+
+    /**
+     * Функция отмечает, что корабль вышел из тоннеля и встал в очередь дока
+     */
+    public void shipQueued(Product product) {
+        var gauges = docks.get(product);
+        var depth = gauges.queueDepth.incrementAndGet();
+        gauges.maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Функция отмечает, что корабль вышел из очереди дока и начал разгрузку
+     */
+    public void shipUnloadStarted(Product product) {
+        docks.get(product).queueDepth.decrementAndGet();
+    }
+
+    /**
+     * Функция записывает этапы пути разгруженного корабля.
+     * У корабля должны быть заполнены все времена, кроме времени очереди в тоннель
+     * @param ship - корабль, который закончил разгрузку
+     */
+    public void recordShip(Ship ship) {
+        recordShip(ship, ship.getProduct());
+    }
+
+    /**
+     * Функция записывает этапы пути корабля, разгруженного в доке dock.
+     * Время разгрузки идет в загрузку дока, даже если корабль вез другой продукт
+     * @param ship - корабль, который закончил разгрузку
+     * @param dock - док, в котором корабль разгрузился
+     */
+    public void recordShip(Ship ship, Dock dock) {
+        recordShip(ship, dock.getProduct());
+    }
+
+    private void recordShip(Ship ship, Product dockProduct) {
+        var queueNanos = ship.getTunnelQueueNanos() != PortClock.NO_TIME
+                ? ship.getTunnelQueueNanos() : ship.getDepartureNanos();
+        record(Stage.TUNNEL_WAIT, ship, queueNanos, ship.getDepartureNanos());
+        record(Stage.TUNNEL_TRANSIT, ship, ship.getDepartureNanos(), ship.getArrivalNanos());
+        record(Stage.DOCK_WAIT, ship, ship.getArrivalNanos(), ship.getUnloadStartNanos());
+        record(Stage.UNLOAD, ship, ship.getUnloadStartNanos(), ship.getUnloadFinishNanos());
+
+        docks.get(dockProduct).busyNanos.addAndGet(ship.getUnloadFinishNanos() - ship.getUnloadStartNanos());
+        var counters = ships.get(ship.getProduct());
+        counters.flowTime.record(TimeUnit.NANOSECONDS.toMicros(ship.getUnloadFinishNanos() - queueNanos));
+        if (ship.getDeadlineNanos() != PortClock.NO_TIME) {
+            counters.withDeadline.incrementAndGet();
+            if (ship.isDeadlineMissed()) {
+                counters.missedDeadline.incrementAndGet();
+            }
+        }
+        firstNanos.accumulateAndGet(queueNanos, Math::min);
+        lastNanos.accumulateAndGet(ship.getUnloadFinishNanos(), Math::max);
+    }
+
+    private void record(Stage stage, Ship ship, long fromNanos, long toNanos) {
+        var micros = TimeUnit.NANOSECONDS.toMicros(toNanos - fromNanos);
+        byProduct.get(stage).get(ship.getProduct()).record(micros);
+        byCapacity.get(stage).get(ship.getCapacity()).record(micros);
+    }
+
+    //------------for reading-----------------------------------------------------------
+
+    /**
+     * Функция возвращает гистограмму этапа для продукта, значения в микросекундах
+     */
+    public LatencyHistogram getHistogram(Stage stage, Product product) {
+        return byProduct.get(stage).get(product);
+    }
+
+    /**
+     * Функция возвращает гистограмму этапа для вместимости, значения в микросекундах
+     */
+    public LatencyHistogram getHistogram(Stage stage, Capacity capacity) {
+        return byCapacity.get(stage).get(capacity);
+    }
+
+    public int getQueueDepth(Product product) {
+        return docks.get(product).queueDepth.get();
+    }
+
+    public int getMaxQueueDepth(Product product) {
+        return docks.get(product).maxQueueDepth.get();
+    }
+
+    /**
+     * Функция возвращает загрузку доков продукта: долю времени от первого до последнего записанного события,
+     * когда в доке шла разгрузка, в среднем на один док
+     * @return возвращает число от 0 до 1
+     */
+    public double getUtilization(Product product) {
+        var first = firstNanos.get();
+        var last = lastNanos.get();
+        if (first == Long.MAX_VALUE || last <= first) {
+            return 0;
+        }
+        var gauges = docks.get(product);
+        return (double) gauges.busyNanos.get() / (last - first) / gauges.docksCount;
+    }
+
+    /**
+     * Функция возвращает гистограмму времени кораблей продукта в порту: от прихода к тоннелю
+     * до конца разгрузки, значения в микросекундах
+     */
+    public LatencyHistogram getFlowTime(Product product) {
+        return ships.get(product).flowTime;
+    }
+
+    /**
+     * Функция возвращает долю кораблей продукта со сроком доставки, которые не успели к сроку
+     * @return возвращает число от 0 до 1 или 0, если кораблей со сроком не было
+     */
+    public double getDeadlineMissRate(Product product) {
+        var counters = ships.get(product);
+        var total = counters.withDeadline.get();
+        return total == 0 ? 0 : (double) counters.missedDeadline.get() / total;
+    }
+
+    //------------for snapshots---------------------------------------------------------
+
+    /**
+     * Функция возвращает снимок метрик в CSV. Строки гистограмм:
+     * "stage,group,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms", строки доков: "dock,product,queue_depth,
+     * max_queue_depth,utilization"
+     */
+    public String toCsv() {
+        var csv = new StringBuilder("stage,group,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms\n");
+        for (var stage : Stage.values()) {
+            for (var product : Product.values()) {
+                appendCsv(csv, stage, product, getHistogram(stage, product));
+            }
+            for (var capacity : Capacity.values()) {
+                appendCsv(csv, stage, capacity, getHistogram(stage, capacity));
+            }
+        }
+        csv.append("dock,product,queue_depth,max_queue_depth,utilization\n");
+        for (var product : Product.values()) {
+            csv.append("dock,").append(product).append(',').append(getQueueDepth(product)).append(',')
+                    .append(getMaxQueueDepth(product)).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f", getUtilization(product))).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static void appendCsv(StringBuilder csv, Stage stage, Enum<?> group, LatencyHistogram histogram) {
+        csv.append(stage).append(',').append(group).append(',').append(histogram.getCount()).append(',')
+                .append(toMillis(histogram.getMean()));
+        for (var percentile : PERCENTILES) {
+            csv.append(',').append(toMillis(histogram.getPercentile(percentile)));
+        }
+        csv.append(',').append(toMillis(histogram.getMax())).append('\n');
+    }
+
+    /**
+     * Функция возвращает снимок метрик в JSON:
+     * {"stages": {этап: {группа: {count, mean_ms, p50_ms, p90_ms, p99_ms, max_ms}}}, "docks": {продукт: {...}}}
+     */
+    public String toJson() {
+        var json = new StringBuilder("{\"stages\":{");
+        for (var stage : Stage.values()) {
+            json.append(stage.ordinal() == 0 ? "" : ",").append('"').append(stage).append("\":{");
+            for (var product : Product.values()) {
+                appendJson(json, product, getHistogram(stage, product));
+                json.append(',');
+            }
+            for (var capacity : Capacity.values()) {
+                appendJson(json, capacity, getHistogram(stage, capacity));
+                json.append(capacity.ordinal() == Capacity.values().length - 1 ? "" : ",");
+            }
+            json.append('}');
+        }
+        json.append("},\"docks\":{");
+        for (var product : Product.values()) {
+            json.append(product.ordinal() == 0 ? "" : ",").append('"').append(product)
+                    .append("\":{\"queue_depth\":").append(getQueueDepth(product))
+                    .append(",\"max_queue_depth\":").append(getMaxQueueDepth(product))
+                    .append(",\"utilization\":").append(String.format(Locale.ROOT, "%.3f", getUtilization(product)))
+                    .append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void appendJson(StringBuilder json, Enum<?> group, LatencyHistogram histogram) {
+        json.append('"').append(group).append("\":{\"count\":").append(histogram.getCount())
+                .append(",\"mean_ms\":").append(toMillis(histogram.getMean()));
+        for (var percentile : PERCENTILES) {
+            json.append(",\"p").append((int) percentile).append("_ms\":")
+                    .append(toMillis(histogram.getPercentile(percentile)));
+        }
+        json.append(",\"max_ms\":").append(toMillis(histogram.getMax())).append('}');
+    }
+
+    /**
+     * Функция переводит микросекунды гистограммы в миллисекунды с тремя знаками после точки
+     */
+    private static String toMillis(double micros) {
+        return String.format(Locale.ROOT, "%.3f", micros / K_MICROS_IN_MILLI);
+    }
+
+    /**
+     * Функция периодически отдает снимки метрик, например в файл или в System.out
+     * @param scheduler - планировщик, в котором будут делаться снимки
+     * @param periodMillis - период снимков в миллисекундах
+     * @param isItJson - формат снимка: JSON или CSV
+     * @param sink - получатель снимков
+     * @return возвращает задачу, которую нужно отменить, чтобы снимки прекратились
+     */
+    public ScheduledFuture<?> scheduleSnapshots(ScheduledExecutorService scheduler, long periodMillis,
+                                                boolean isItJson, Consumer<String> sink) {
+        return scheduler.scheduleAtFixedRate(() -> sink.accept(isItJson ? toJson() : toCsv()),
+                periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,140 @@
+package khuzint.ru;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс подписчик порта на поток кораблей. Пропускает каждый пришедший корабль через тоннель и доки,
+ * но в порту одновременно не больше bufferSize кораблей: следующий корабль запрашивается
+ * только после разгрузки предыдущего. Поэтому очереди тоннеля и доков ограничены,
+ * и память не растет даже на бесконечном потоке. Тоннель и доки после конца потока продолжают работать,
+ * их можно отдать следующему подписчику или остановить через stop
+ */
+public final class PortSubscriber implements Flow.Subscriber<Ship> {
+    private final int bufferSize;
+    private final Map<Product, List<Dock>> docks;
+    private final Tunnel tunnel;
+    private final DockDispatcher dispatcher;
+    private final Map<Dock, List<Dock>> victims;
+    private final Map<Dock, List<Dock>> thieves;
+    private final PortMetrics metrics;
+
+    /** Корабли в тоннеле и в доках */
+    private final AtomicLong shipsInPort = new AtomicLong();
+    private final AtomicLong unloadedShips = new AtomicLong();
+    private final CompletableFuture<Long> done = new CompletableFuture<>();
+    private volatile boolean isItCompleted;
+    private Flow.Subscription subscription;
+    /** Запросы, еще не переданные подписке. Передает их только поток, который увеличил счетчик с нуля */
+    private final AtomicLong pendingRequests = new AtomicLong();
+    private volatile boolean isItCancelled;
+    /** Отмена уже передана подписке. Меняет только поток, который передает запросы */
+    private boolean isItCancelSent;
+
+    /**
+     * Функция создает подписчика
+     * @param bufferSize - сколько кораблей может одновременно быть в порту
+     * @param docks - Map с группами доков по продуктам
+     * @param tunnel - тоннель, через который проходят корабли
+     * @param dispatcher - диспетчер, который выбирает док группы
+     * @param stealing - правило кражи работы между доками
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     */
+    public PortSubscriber(int bufferSize, Map<Product, List<Dock>> docks, Tunnel tunnel,
+                          DockDispatcher dispatcher, WorkStealing stealing, PortMetrics metrics) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("buffer size must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.docks = docks;
+        this.tunnel = tunnel;
+        this.dispatcher = dispatcher;
+        this.victims = Dock.getVictims(docks, stealing);
+        this.thieves = Dock.getThieves(victims);
+        this.metrics = metrics;
+        metrics.registerDocks(docks);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription newSubscription) {
+        subscription = newSubscription;
+        requestShips(bufferSize);
+    }
+
+    @Override
+    public void onNext(Ship ship) {
+        shipsInPort.incrementAndGet();
+        CompletableFuture<Ship> futureShip;
+        try {
+            futureShip = tunnel.letPassShip(ship);
+        } catch (IllegalStateException exp) {
+            onError(exp);
+            return;
+        }
+        Dock.acceptShip(futureShip, docks.get(ship.getProduct()), dispatcher, victims, thieves, metrics)
+                .whenComplete((ignored, exp) -> {
+                    if (exp != null) {
+                        onError(exp);
+                        return;
+                    }
+                    unloadedShips.incrementAndGet();
+                    if (shipsInPort.decrementAndGet() == 0 && isItCompleted) {
+                        finish();
+                    } else {
+                        requestShips(1);
+                    }
+                });
+    }
+
+    @Override
+    public void onError(Throwable exp) {
+        isItCancelled = true;
+        requestShips(1);
+        done.completeExceptionally(exp);
+    }
+
+    @Override
+    public void onComplete() {
+        isItCompleted = true;
+        if (shipsInPort.get() == 0) {
+            finish();
+        }
+    }
+
+    /**
+     * Функция ждет, пока поток кончится и все его корабли разгрузятся
+     * @return возвращает количество разгруженных кораблей
+     */
+    public long join() {
+        return done.join();
+    }
+
+    /**
+     * Функция передает подписке запросы и отмену. Корабли разгружаются в потоках разных доков,
+     * а по правилам Flow вызовы request и cancel должны идти последовательно. Поэтому запросы копятся
+     * в счетчике, и передает их тот поток, который застал счетчик нулевым, пока счетчик не опустеет.
+     * Отмена тоже добавляет единицу, чтобы этот поток прошел цикл еще раз и передал ее вместо запроса
+     */
+    private void requestShips(long count) {
+        if (pendingRequests.getAndAdd(count) != 0) {
+            return;
+        }
+        var requested = count;
+        do {
+            if (!isItCancelled) {
+                subscription.request(requested);
+            } else if (!isItCancelSent) {
+                isItCancelSent = true;
+                subscription.cancel();
+            }
+            requested = pendingRequests.addAndGet(-requested);
+        } while (requested != 0);
+    }
+
+    private void finish() {
+        done.complete(unloadedShips.get());
+    }
+}
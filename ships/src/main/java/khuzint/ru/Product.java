@@ -1,6 +1,7 @@
 package khuzint.ru;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Перечисление продуктов, которые могут перевозить корабли
@@ -11,8 +12,17 @@ enum Product {
     CLOTHES;
 
     public static Product getRandomProduct() {
-        Random random = new Random();
-        int number = random.nextInt(3) + 1;
+        return getProduct(ThreadLocalRandom.current().nextInt(3) + 1);
+    }
+
+    /**
+     * Функция выбирает продукт генератором random: одно и то же зерно дает одни и те же продукты
+     */
+    public static Product getRandomProduct(SplittableRandom random) {
+        return getProduct(random.nextInt(3) + 1);
+    }
+
+    private static Product getProduct(int number) {
         switch (number) {
             case 1:
                 return BREAD;
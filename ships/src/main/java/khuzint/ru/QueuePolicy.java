@@ -0,0 +1,60 @@
+package khuzint.ru;
+
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Класс правило очереди дока. Задает ключ корабля, по которому док выбирает следующий корабль:
+ * первым разгружается корабль с наименьшим ключом, при равных ключах - пришедший раньше.
+ * Ключ считается, когда корабль встает в очередь дока. Правило выбирается для каждого дока отдельно,
+ * например доки бананов разгружают корабли по сроку доставки, а остальные - по порядку прихода
+ */
+public final class QueuePolicy {
+    private final String name;
+    private final ToLongBiFunction<Ship, Dock> key;
+
+    private QueuePolicy(String name, ToLongBiFunction<Ship, Dock> key) {
+        this.name = name;
+        this.key = key;
+    }
+
+    /**
+     * Функция возвращает правило, по которому корабли разгружаются в порядке прихода
+     */
+    public static QueuePolicy fifo() {
+        return new QueuePolicy("fifo", (ship, dock) -> 0);
+    }
+
+    /**
+     * Функция возвращает правило, по которому первым разгружается корабль с самым ранним сроком доставки.
+     * Корабли без срока разгружаются после кораблей со сроком
+     */
+    public static QueuePolicy earliestDeadline() {
+        return new QueuePolicy("deadline", (ship, dock) -> {
+            var deadline = ship.getDeadlineNanos();
+            return deadline == PortClock.NO_TIME ? Long.MAX_VALUE : deadline;
+        });
+    }
+
+    /**
+     * Функция возвращает правило, по которому первым разгружается корабль с самой короткой разгрузкой в доке
+     */
+    public static QueuePolicy shortestUnloadFirst() {
+        return new QueuePolicy("shortest", (ship, dock) -> ship.getCapacity().getCapacity() / dock.getUnloadSpeed());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Функция возвращает ключ корабля в очереди дока, меньший ключ разгружается раньше
+     */
+    public long getKey(Ship ship, Dock dock) {
+        return key.applyAsLong(ship, dock);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,104 @@
+package khuzint.ru;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Класс сценарий перебора параметров порта: сколько кораблей и какого состава приходит,
+ * сколько кораблей помещается в тоннель, сколько доков у каждого продукта, с какой скоростью они разгружают
+ * и по какому правилу доки выбирают корабли из очереди
+ */
+@Getter
+public final class Scenario {
+    private final int numberOfShips;
+    private final int tunnelSize;
+    private final int unloadSpeed;
+    private final int docksCount;
+    private final ShipMix mix;
+    private final QueuePolicy queuePolicy;
+
+    /**
+     * Функция создает сценарий
+     * @param numberOfShips - количество кораблей флота
+     * @param tunnelSize - количество кораблей, которые одновременно могут быть в тоннеле
+     * @param unloadSpeed - скорость разгрузки каждого дока
+     * @param docksCount - количество доков у каждого продукта
+     * @param mix - состав флота
+     */
+    public Scenario(int numberOfShips, int tunnelSize, int unloadSpeed, int docksCount, ShipMix mix) {
+        this(numberOfShips, tunnelSize, unloadSpeed, docksCount, mix, QueuePolicy.fifo());
+    }
+
+    /**
+     * Функция создает сценарий с правилом очереди доков
+     * @param numberOfShips - количество кораблей флота
+     * @param tunnelSize - количество кораблей, которые одновременно могут быть в тоннеле
+     * @param unloadSpeed - скорость разгрузки каждого дока
+     * @param docksCount - количество доков у каждого продукта
+     * @param mix - состав флота
+     * @param queuePolicy - правило очереди всех доков
+     */
+    public Scenario(int numberOfShips, int tunnelSize, int unloadSpeed, int docksCount, ShipMix mix,
+                    QueuePolicy queuePolicy) {
+        checkPositive("number of ships", numberOfShips);
+        checkPositive("tunnel size", tunnelSize);
+        checkPositive("unload speed", unloadSpeed);
+        checkPositive("docks count", docksCount);
+        this.numberOfShips = numberOfShips;
+        this.tunnelSize = tunnelSize;
+        this.unloadSpeed = unloadSpeed;
+        this.docksCount = docksCount;
+        this.mix = mix;
+        this.queuePolicy = queuePolicy;
+    }
+
+    /**
+     * Функция создает сценарии для всех сочетаний параметров, последним меняется состав флота
+     * @param numberOfShips - количество кораблей флота
+     * @param tunnelSizes - размеры тоннеля
+     * @param unloadSpeeds - скорости разгрузки доков
+     * @param docksCounts - количества доков у каждого продукта
+     * @param mixes - составы флота
+     * @return возвращает список сценариев
+     */
+    public static List<Scenario> createGrid(int numberOfShips, int[] tunnelSizes, int[] unloadSpeeds,
+                                            int[] docksCounts, List<ShipMix> mixes) {
+        return createGrid(numberOfShips, tunnelSizes, unloadSpeeds, docksCounts, mixes, List.of(QueuePolicy.fifo()));
+    }
+
+    /**
+     * Функция создает сценарии для всех сочетаний параметров и правил очереди, последним меняется правило
+     * @param numberOfShips - количество кораблей флота
+     * @param tunnelSizes - размеры тоннеля
+     * @param unloadSpeeds - скорости разгрузки доков
+     * @param docksCounts - количества доков у каждого продукта
+     * @param mixes - составы флота
+     * @param queuePolicies - правила очереди доков
+     * @return возвращает список сценариев
+     */
+    public static List<Scenario> createGrid(int numberOfShips, int[] tunnelSizes, int[] unloadSpeeds,
+                                            int[] docksCounts, List<ShipMix> mixes, List<QueuePolicy> queuePolicies) {
+        var scenarios = new ArrayList<Scenario>();
+        for (var tunnelSize : tunnelSizes) {
+            for (var unloadSpeed : unloadSpeeds) {
+                for (var docksCount : docksCounts) {
+                    for (var mix : mixes) {
+                        for (var queuePolicy : queuePolicies) {
+                            scenarios.add(new Scenario(numberOfShips, tunnelSize, unloadSpeed, docksCount, mix,
+                                    queuePolicy));
+                        }
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    private static void checkPositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+    }
+}
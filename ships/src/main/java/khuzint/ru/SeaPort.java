@@ -1,28 +1,63 @@
 package khuzint.ru;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 /**
  * Класс морской порт. Нужен только для создания кораблей.
+ * Корабли можно создавать из разных потоков: каждый поток берет номера кораблей блоками
+ * из общего счетчика, поэтому потоки не спорят за счетчик на каждом корабле.
+ * Номера уникальны, но у кораблей разных потоков идут не подряд
  */
 public final class SeaPort {
     private SeaPort() {
     }
 
-    private static int currentShipNumber = 1;
+    private static final int K_ID_BLOCK_SIZE = 1024;
+    /** Размер части флота со своим генератором, от него не зависит, какие корабли получатся */
+    private static final int K_CHUNK_SIZE = 4096;
+
+    private static final AtomicInteger NEXT_SHIP_NUMBER = new AtomicInteger(1);
+    private static final ThreadLocal<IdBlock> ID_BLOCK = ThreadLocal.withInitial(IdBlock::new);
+    /** Номер обнуления нумерации: блоки, взятые до обнуления, выбрасываются */
+    private static volatile int numbering;
 
     /**
-     * Функция чтобы обнулить нумерацию
+     * Блок номеров потока: номера от next до end, не включая end
      */
-    public static void resetNumbering() {
-        currentShipNumber = 1;
+    private static final class IdBlock {
+        private int next;
+        private int end;
+        private int numbering = -1;
+    }
+
+    /**
+     * Функция чтобы обнулить нумерацию. Нельзя вызывать, пока другие потоки создают корабли
+     */
+    public static synchronized void resetNumbering() {
+        NEXT_SHIP_NUMBER.set(1);
+        ++numbering;
     }
 
     /**
      * Функция создает новый корабль с рандомными значениями продукта и вместимости
      */
     public static Ship createShip() {
-        return new Ship(currentShipNumber++, Product.getRandomProduct(), Capacity.getRandomCapacity());
+        return new Ship(getNextShipNumber(), Product.getRandomProduct(), Capacity.getRandomCapacity());
+    }
+
+    private static int getNextShipNumber() {
+        var block = ID_BLOCK.get();
+        var currentNumbering = numbering;
+        if (block.numbering != currentNumbering || block.next == block.end) {
+            block.next = NEXT_SHIP_NUMBER.getAndAdd(K_ID_BLOCK_SIZE);
+            block.end = block.next + K_ID_BLOCK_SIZE;
+            block.numbering = currentNumbering;
+        }
+        return block.next++;
     }
 
     /**
@@ -38,4 +73,51 @@ public final class SeaPort {
         }
         return ships;
     }
+
+    /**
+     * Функция создает флот по зерну: одно и то же зерно после resetNumbering дает те же корабли
+     * с теми же номерами, подряд начиная со следующего свободного номера
+     * @param numberOfShips - количество кораблей, которые нужно создать
+     * @param seed - зерно генератора
+     * @return возвращает массив созданных кораблей
+     */
+    public static ArrayList<Ship> createShips(int numberOfShips, long seed) {
+        return createFleet(numberOfShips, seed, false);
+    }
+
+    /**
+     * Функция создает флот по зерну на всех ядрах. Корабли те же, что и у createShips с тем же зерном
+     * @param numberOfShips - количество кораблей, которые нужно создать
+     * @param seed - зерно генератора
+     * @return возвращает массив созданных кораблей
+     */
+    public static ArrayList<Ship> createShipsInParallel(int numberOfShips, long seed) {
+        return createFleet(numberOfShips, seed, true);
+    }
+
+    /**
+     * Функция делит флот на части по K_CHUNK_SIZE кораблей. Генераторы частей по порядку отделяются
+     * от генератора с зерном, поэтому корабли не зависят от того, какой поток заполняет часть
+     */
+    private static ArrayList<Ship> createFleet(int numberOfShips, long seed, boolean isItParallel) {
+        var firstNumber = NEXT_SHIP_NUMBER.getAndAdd(numberOfShips);
+        var chunks = (numberOfShips + K_CHUNK_SIZE - 1) / K_CHUNK_SIZE;
+        var root = new SplittableRandom(seed);
+        var randoms = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; ++chunk) {
+            randoms[chunk] = root.split();
+        }
+
+        var ships = new Ship[numberOfShips];
+        var range = IntStream.range(0, chunks);
+        (isItParallel ? range.parallel() : range).forEach(chunk -> {
+            var random = randoms[chunk];
+            var end = Math.min(numberOfShips, (chunk + 1) * K_CHUNK_SIZE);
+            for (int idx = chunk * K_CHUNK_SIZE; idx < end; ++idx) {
+                ships[idx] = new Ship(firstNumber + idx, Product.getRandomProduct(random),
+                        Capacity.getRandomCapacity(random));
+            }
+        });
+        return new ArrayList<>(Arrays.asList(ships));
+    }
 }
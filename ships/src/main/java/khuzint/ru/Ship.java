@@ -3,10 +3,7 @@ package khuzint.ru;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Класс корабль. Runnable объект, определяется своими id, продуктом и вместимостью.
@@ -23,72 +20,117 @@ public final class Ship implements Runnable {
         this.capacity = capacity;
     }
 
-    /** Статическое поле - формат даты для вывода */
-    //CHECKSTYLE.OFF: ConstantName
-    private static final DateTimeFormatter date = DateTimeFormatter.ofPattern("HH:mm:ss");
-    //CHECKSTYLE.ON: ConstantName
+    // времена хранятся в наносекундах PortClock, пока время не записано - PortClock.NO_TIME
 
+    /** Время, когда корабль встал в очередь в тоннель */
+    private long tunnelQueueNanos = PortClock.NO_TIME;
     /** Время, когда корадль зашел в тоннель */
-    private LocalDateTime departureTime;
+    private long departureNanos = PortClock.NO_TIME;
     /** Время, когда корадль вышел из тоннеля */
-    private LocalDateTime arrivalTime;
+    private long arrivalNanos = PortClock.NO_TIME;
 
     /** Время, когда корабль зашел в док и начал разгрузку */
-    private LocalDateTime unloadStartTime;
+    private long unloadStartNanos = PortClock.NO_TIME;
     /** Время, когда корадль закончил разгрузку */
-    private LocalDateTime unloadFinishTime;
+    private long unloadFinishNanos = PortClock.NO_TIME;
 
-    /** Атомарное поле, чтобы знать, что корадль уже вышел из тоннеля */
-    private AtomicBoolean isExitTunnel = new AtomicBoolean(false);
+    /** Срок доставки: за сколько наносекунд после прихода к тоннелю груз должен быть разгружен */
+    private long slaNanos = PortClock.NO_TIME;
 
-    //CHECKSTYLE.OFF: MagicNumber
-    private String getSpacesForId() {
-        int spaceCount = 4 - Integer.toString(id).length();
-        return " ".repeat(spaceCount);
+    //------------for wall clock--------------------------------------------------------
+    // те же времена в LocalDateTime: переводятся при каждом вызове, поэтому нужны только для вывода и тестов
+
+    public LocalDateTime getTunnelQueueTime() {
+        return PortClock.toDateTime(tunnelQueueNanos);
+    }
+
+    public void setTunnelQueueTime(LocalDateTime time) {
+        tunnelQueueNanos = PortClock.toNanos(time);
+    }
+
+    public LocalDateTime getDepartureTime() {
+        return PortClock.toDateTime(departureNanos);
+    }
+
+    public void setDepartureTime(LocalDateTime time) {
+        departureNanos = PortClock.toNanos(time);
+    }
+
+    public LocalDateTime getArrivalTime() {
+        return PortClock.toDateTime(arrivalNanos);
+    }
+
+    public void setArrivalTime(LocalDateTime time) {
+        arrivalNanos = PortClock.toNanos(time);
+    }
+
+    public LocalDateTime getUnloadStartTime() {
+        return PortClock.toDateTime(unloadStartNanos);
+    }
+
+    public void setUnloadStartTime(LocalDateTime time) {
+        unloadStartNanos = PortClock.toNanos(time);
     }
 
-    private String getSpacesForProduct() {
-        int spaceCount = 8 - product.toString().length();
-        return " ".repeat(spaceCount);
+    public LocalDateTime getUnloadFinishTime() {
+        return PortClock.toDateTime(unloadFinishNanos);
     }
-    //CHECKSTYLE.ON: MagicNumber
+
+    public void setUnloadFinishTime(LocalDateTime time) {
+        unloadFinishNanos = PortClock.toNanos(time);
+    }
+
+    //------------for deadlines-------------------------------------------------------
+
+    /**
+     * Функция возвращает время, до которого корабль должен быть разгружен
+     * @return возвращает NO_TIME, если у корабля нет срока или он еще не пришел к тоннелю
+     */
+    public long getDeadlineNanos() {
+        var queueNanos = tunnelQueueNanos != PortClock.NO_TIME ? tunnelQueueNanos : departureNanos;
+        if (slaNanos == PortClock.NO_TIME || queueNanos == PortClock.NO_TIME) {
+            return PortClock.NO_TIME;
+        }
+        return queueNanos + slaNanos;
+    }
+
+    /**
+     * Функция проверяет, что разгруженный корабль не успел к сроку доставки
+     */
+    public boolean isDeadlineMissed() {
+        var deadline = getDeadlineNanos();
+        return deadline != PortClock.NO_TIME && unloadFinishNanos != PortClock.NO_TIME && unloadFinishNanos > deadline;
+    }
+
+    //------------for printing----------------------------------------------------------
+    // строки печатает ShipLog в своем потоке, здесь событие только записывается в его буфер
 
     public void printDepartureTime() {
-        System.out.println("--> Ship number " + id + getSpacesForId()
-                + "departed         at " + date.format(departureTime));
+        ShipLog.getInstance().log(ShipLog.EventType.DEPARTED, this);
     }
 
     public void printArrivalTime() {
-        System.out.println("--> Ship number " + id + getSpacesForId()
-                + "arrived to dock  at " + date.format(arrivalTime));
+        ShipLog.getInstance().log(ShipLog.EventType.ARRIVED, this);
     }
 
     public void printUnloadStartTime() {
-        System.out.println("--> Ship number " + id + getSpacesForId()
-                + "start unload     at " + date.format(unloadStartTime));
+        ShipLog.getInstance().log(ShipLog.EventType.UNLOAD_STARTED, this);
     }
 
     public void printUnloadFinishTime() {
-        System.out.println("--> Ship number " + id + getSpacesForId()
-                + "finish unload    at " + date.format(unloadFinishTime));
+        ShipLog.getInstance().log(ShipLog.EventType.UNLOAD_FINISHED, this);
     }
 
     public void printStartDock() {
-        System.out.println("--> Dock of " + product
-                + getSpacesForProduct() + "accept ship number " + getId()
-                + " and start unloading");
+        ShipLog.getInstance().log(ShipLog.EventType.DOCK_ACCEPTED, this);
     }
 
     public void printEndDock() {
-        System.out.println("--> Dock of " + product
-                + getSpacesForProduct() + "finish unloading ship number " + id);
+        ShipLog.getInstance().log(ShipLog.EventType.DOCK_FINISHED, this);
     }
 
     public void printDockTime() {
-        var timeDiff = Duration.between(unloadStartTime, unloadFinishTime);
-        System.out.println("--> Ship number " + id + getSpacesForId()
-                + "was in the dock of " + product + getSpacesForProduct()
-                + "for " + timeDiff.getSeconds() + " seconds");
+        ShipLog.getInstance().log(ShipLog.EventType.DOCK_TIME, this);
     }
 
     /**
@@ -98,7 +140,7 @@ public final class Ship implements Runnable {
     @Override
     public void run() {
         try {
-            departureTime = LocalDateTime.now();
+            departureNanos = PortClock.now();
             printDepartureTime();
 
             //CHECKSTYLE.OFF: MagicNumber
@@ -106,11 +148,8 @@ public final class Ship implements Runnable {
             Thread.sleep(oneSecond);
             //CHECKSTYLE.ON: MagicNumber
 
-            arrivalTime = LocalDateTime.now();
+            arrivalNanos = PortClock.now();
             printArrivalTime();
-
-
-            isExitTunnel.set(true);
         } catch (Exception exp) {
             System.out.println(exp.getMessage());
         }
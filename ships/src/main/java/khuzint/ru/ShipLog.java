@@ -0,0 +1,238 @@
+package khuzint.ru;
+
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Класс асинхронный журнал событий кораблей. Потоки тоннеля и доков не форматируют строки и не берут
+ * блокировку System.out: они кладут короткую запись события в кольцевой буфер без блокировок,
+ * а один поток-писатель форматирует записи и печатает их пачками. Текст вывода тот же, что и раньше.
+ * События печатаются в порядке номеров, полученных при записи в буфер, поэтому события одного корабля
+ * не перемешиваются. Когда событий нет, писатель спит, и его будит первый же производитель
+ */
+public final class ShipLog {
+    private static final int K_CAPACITY = 65_536;
+    private static final int K_BATCH_SIZE = 1024;
+    /** Период проверки в flush, пока писатель не дошел до нужной записи */
+    private static final long K_FLUSH_NANOS = 100_000;
+    private static final int K_ID_WIDTH = 4;
+    private static final int K_PRODUCT_WIDTH = 8;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static final ShipLog INSTANCE = new ShipLog(K_CAPACITY);
+
+    /**
+     * Типы событий, по одному на каждую функцию Ship.print
+     */
+    enum EventType {
+        DEPARTED,
+        ARRIVED,
+        UNLOAD_STARTED,
+        UNLOAD_FINISHED,
+        DOCK_ACCEPTED,
+        DOCK_FINISHED,
+        DOCK_TIME
+    }
+
+    /**
+     * Запись события: все, что нужно для строки, копируется из корабля в момент события.
+     * Время в наносекундах PortClock переводится в LocalDateTime только писателем
+     */
+    private static final class Event {
+        private final EventType type;
+        private final int id;
+        private final Product product;
+        private final long time;
+        private final long seconds;
+
+        private Event(EventType type, int id, Product product, long time, long seconds) {
+            this.type = type;
+            this.id = id;
+            this.product = product;
+            this.time = time;
+            this.seconds = seconds;
+        }
+    }
+
+    private final AtomicReferenceArray<Event> slots;
+    private final int mask;
+    /** Номер следующей записи, которую получит поток-производитель */
+    private final AtomicLong claimed = new AtomicLong();
+    /** Номер следующей записи, которую напечатает писатель. Меняет только писатель */
+    private volatile long written;
+    private final Thread writer;
+    /** Писатель собирается заснуть или спит, производитель должен его разбудить */
+    private volatile boolean isItParked;
+
+    private ShipLog(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.writer = new Thread(this::writeEvents, "ship-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+    }
+
+    public static ShipLog getInstance() {
+        return INSTANCE;
+    }
+
+    //------------for producers---------------------------------------------------------
+
+    /**
+     * Функция записывает событие корабля в буфер. Не блокирует: номер записи берется одним getAndIncrement,
+     * а запись кладется в свою ячейку. Ждать придется, только если писатель отстал на весь буфер:
+     * тогда производитель уступает процессор писателю
+     * @param type - тип события
+     * @param ship - корабль, времена которого уже записаны
+     * @throws IllegalStateException если нужное событию время корабля еще не записано
+     */
+    void log(EventType type, Ship ship) {
+        var time = getTime(type, ship);
+        if (time == PortClock.NO_TIME && hasTime(type)) {
+            throw new IllegalStateException("ship " + ship.getId() + " has no time for event " + type);
+        }
+        var event = new Event(type, ship.getId(), ship.getProduct(), time, getSeconds(type, ship));
+        var sequence = claimed.getAndIncrement();
+        while (sequence - written >= slots.length()) {
+            Thread.yield();
+        }
+        slots.set(getIndex(sequence), event);
+        if (isItParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private static boolean hasTime(EventType type) {
+        return type != EventType.DOCK_ACCEPTED && type != EventType.DOCK_FINISHED && type != EventType.DOCK_TIME;
+    }
+
+    private static long getTime(EventType type, Ship ship) {
+        switch (type) {
+            case DEPARTED:
+                return ship.getDepartureNanos();
+            case ARRIVED:
+                return ship.getArrivalNanos();
+            case UNLOAD_STARTED:
+                return ship.getUnloadStartNanos();
+            case UNLOAD_FINISHED:
+                return ship.getUnloadFinishNanos();
+            default:
+                return PortClock.NO_TIME;
+        }
+    }
+
+    private static long getSeconds(EventType type, Ship ship) {
+        if (type != EventType.DOCK_TIME) {
+            return 0;
+        }
+        if (ship.getUnloadStartNanos() == PortClock.NO_TIME || ship.getUnloadFinishNanos() == PortClock.NO_TIME) {
+            throw new IllegalStateException("ship " + ship.getId() + " has no time for event " + type);
+        }
+        return TimeUnit.NANOSECONDS.toSeconds(ship.getUnloadFinishNanos() - ship.getUnloadStartNanos());
+    }
+
+    /**
+     * Функция ждет, пока писатель напечатает все события, записанные до ее вызова.
+     * Нужна перед выводом в System.out мимо журнала, чтобы строки не перемешались
+     */
+    public void flush() {
+        var target = claimed.get();
+        while (written < target) {
+            LockSupport.parkNanos(K_FLUSH_NANOS);
+        }
+    }
+
+    //------------for writer------------------------------------------------------------
+
+    /**
+     * Функция-задача писателя. Забирает подряд идущие записанные события, но не больше K_BATCH_SIZE,
+     * форматирует их в одну строку и печатает ее одним вызовом System.out.
+     * Событие, которое не удалось отформатировать, печатается строкой с ошибкой, и писатель продолжает работу
+     */
+    private void writeEvents() {
+        var batch = new StringBuilder();
+        while (true) {
+            var first = written;
+            var next = first;
+            var event = slots.get(getIndex(next));
+            while (event != null && next - first < K_BATCH_SIZE) {
+                slots.set(getIndex(next), null);
+                var length = batch.length();
+                try {
+                    format(batch, event);
+                } catch (RuntimeException exp) {
+                    batch.setLength(length);
+                    batch.append("--> Ship number ").append(event.id).append(" event ").append(event.type)
+                            .append(" was not printed: ").append(exp).append(System.lineSeparator());
+                }
+                ++next;
+                event = slots.get(getIndex(next));
+            }
+            if (next == first) {
+                // флаг ставится до повторной проверки: производитель либо увидит флаг, либо его событие увидим мы
+                isItParked = true;
+                if (slots.get(getIndex(next)) == null) {
+                    LockSupport.park(this);
+                }
+                isItParked = false;
+                continue;
+            }
+            System.out.print(batch);
+            System.out.flush();
+            batch.setLength(0);
+            written = next;
+        }
+    }
+
+    private int getIndex(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    private static void format(StringBuilder batch, Event event) {
+        if (event.type == EventType.DOCK_ACCEPTED || event.type == EventType.DOCK_FINISHED) {
+            batch.append("--> Dock of ").append(event.product);
+            appendSpaces(batch, K_PRODUCT_WIDTH - event.product.toString().length());
+            if (event.type == EventType.DOCK_ACCEPTED) {
+                batch.append("accept ship number ").append(event.id).append(" and start unloading");
+            } else {
+                batch.append("finish unloading ship number ").append(event.id);
+            }
+            batch.append(System.lineSeparator());
+            return;
+        }
+
+        batch.append("--> Ship number ").append(event.id);
+        appendSpaces(batch, K_ID_WIDTH - Integer.toString(event.id).length());
+        switch (event.type) {
+            case DEPARTED:
+                batch.append("departed         at ");
+                break;
+            case ARRIVED:
+                batch.append("arrived to dock  at ");
+                break;
+            case UNLOAD_STARTED:
+                batch.append("start unload     at ");
+                break;
+            case UNLOAD_FINISHED:
+                batch.append("finish unload    at ");
+                break;
+            default:
+                batch.append("was in the dock of ").append(event.product);
+                appendSpaces(batch, K_PRODUCT_WIDTH - event.product.toString().length());
+                batch.append("for ").append(event.seconds).append(" seconds").append(System.lineSeparator());
+                return;
+        }
+        DATE.formatTo(PortClock.toDateTime(event.time), batch);
+        batch.append(System.lineSeparator());
+    }
+
+    private static void appendSpaces(StringBuilder batch, int count) {
+        for (int idx = 0; idx < count; ++idx) {
+            batch.append(' ');
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package khuzint.ru;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Класс состав флота: веса продуктов и вместимостей, с которыми создаются корабли.
+ * Продукт и вместимость корабля выбираются независимо, с вероятностью, пропорциональной весу.
+ * У продуктов может быть срок доставки, например у скоропортящихся бананов
+ */
+public final class ShipMix {
+    private final String name;
+    private final Product[] products;
+    private final int[] productWeights;
+    private final Capacity[] capacities;
+    private final int[] capacityWeights;
+    private final Map<Product, Duration> deadlines;
+
+    /**
+     * Функция создает состав флота
+     * @param name - имя состава для таблиц результатов
+     * @param products - веса продуктов, продукты без веса не встречаются
+     * @param capacities - веса вместимостей, вместимости без веса не встречаются
+     */
+    public ShipMix(String name, Map<Product, Integer> products, Map<Capacity, Integer> capacities) {
+        this(name, products, capacities, Map.of());
+    }
+
+    /**
+     * Функция создает состав флота со сроками доставки
+     * @param name - имя состава для таблиц результатов
+     * @param products - веса продуктов, продукты без веса не встречаются
+     * @param capacities - веса вместимостей, вместимости без веса не встречаются
+     * @param deadlines - сроки доставки продуктов от прихода корабля к тоннелю, у остальных продуктов срока нет
+     */
+    public ShipMix(String name, Map<Product, Integer> products, Map<Capacity, Integer> capacities,
+                   Map<Product, Duration> deadlines) {
+        this.name = name;
+        this.deadlines = Map.copyOf(deadlines);
+        this.products = Product.values();
+        this.productWeights = getWeights(products, this.products);
+        this.capacities = Capacity.values();
+        this.capacityWeights = getWeights(capacities, this.capacities);
+    }
+
+    /**
+     * Функция возвращает состав, в котором все продукты и вместимости встречаются одинаково часто, как в SeaPort
+     */
+    public static ShipMix uniform() {
+        var products = new EnumMap<Product, Integer>(Product.class);
+        for (var product : Product.values()) {
+            products.put(product, 1);
+        }
+        var capacities = new EnumMap<Capacity, Integer>(Capacity.class);
+        for (var capacity : Capacity.values()) {
+            capacities.put(capacity, 1);
+        }
+        return new ShipMix("uniform", products, capacities);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Функция возвращает продукты, которые встречаются в составе
+     */
+    public List<Product> getProducts() {
+        var result = new ArrayList<Product>();
+        for (int idx = 0; idx < products.length; ++idx) {
+            if (productWeights[idx] > 0) {
+                result.add(products[idx]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Функция создает флот генератором random. Номера кораблей идут с 1 и не берутся из SeaPort,
+     * поэтому флоты разных потоков не делят общий счетчик
+     * @param numberOfShips - количество кораблей, которые нужно создать
+     * @param random - генератор флота
+     * @return возвращает массив созданных кораблей
+     */
+    public ArrayList<Ship> createShips(int numberOfShips, SplittableRandom random) {
+        var ships = new ArrayList<Ship>(numberOfShips);
+        for (int idx = 0; idx < numberOfShips; ++idx) {
+            var product = products[choose(productWeights, random)];
+            var capacity = capacities[choose(capacityWeights, random)];
+            var ship = new Ship(idx + 1, product, capacity);
+            if (deadlines.containsKey(product)) {
+                ship.setSlaNanos(deadlines.get(product).toNanos());
+            }
+            ships.add(ship);
+        }
+        return ships;
+    }
+
+    /**
+     * Функция раскладывает веса по порядку значений перечисления, а не по порядку Map,
+     * поэтому один и тот же генератор всегда дает тот же флот
+     */
+    private static <T> int[] getWeights(Map<T, Integer> weights, T[] keys) {
+        var result = new int[keys.length];
+        long total = 0;
+        for (int idx = 0; idx < keys.length; ++idx) {
+            result[idx] = weights.getOrDefault(keys[idx], 0);
+            if (result[idx] < 0) {
+                throw new IllegalArgumentException("weight must not be negative: " + result[idx]);
+            }
+            total += result[idx];
+        }
+        if (total <= 0 || total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("total weight must be positive: " + total);
+        }
+        return result;
+    }
+
+    private static int choose(int[] weights, SplittableRandom random) {
+        var total = 0;
+        for (var weight : weights) {
+            total += weight;
+        }
+        var point = random.nextInt(total);
+        var idx = 0;
+        while (point >= weights[idx]) {
+            point -= weights[idx];
+            ++idx;
+        }
+        return idx;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
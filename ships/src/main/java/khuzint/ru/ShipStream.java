@@ -0,0 +1,135 @@
+package khuzint.ru;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Класс поток кораблей. В отличие от SeaPort.createShips не создает все корабли сразу:
+ * корабли приходят по одному со скоростью shipsPerSecond и только тогда, когда подписчик их запросил.
+ * Каждый подписчик получает свой поток и свой поток-планировщик, а в памяти нет ни одного лишнего корабля,
+ * поэтому поток может быть бесконечным
+ */
+public final class ShipStream implements Flow.Publisher<Ship> {
+    /** Количество кораблей для бесконечного потока */
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final long numberOfShips;
+    private final double shipsPerSecond;
+    private final Supplier<Ship> factory;
+
+    /**
+     * Функция создает поток рандомных кораблей из SeaPort
+     * @param numberOfShips - сколько кораблей придет, UNBOUNDED для бесконечного потока
+     * @param shipsPerSecond - сколько кораблей приходит за секунду
+     */
+    public ShipStream(long numberOfShips, double shipsPerSecond) {
+        this(numberOfShips, shipsPerSecond, SeaPort::createShip);
+    }
+
+    /**
+     * Функция создает поток кораблей
+     * @param numberOfShips - сколько кораблей придет, UNBOUNDED для бесконечного потока
+     * @param shipsPerSecond - сколько кораблей приходит за секунду
+     * @param factory - функция, которая создает следующий корабль
+     */
+    public ShipStream(long numberOfShips, double shipsPerSecond, Supplier<Ship> factory) {
+        this.numberOfShips = numberOfShips;
+        this.shipsPerSecond = shipsPerSecond;
+        this.factory = factory;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Ship> subscriber) {
+        var subscription = new ShipSubscription(subscriber);
+        subscription.scheduler.execute(() -> subscriber.onSubscribe(subscription));
+    }
+
+    /**
+     * Подписка на поток кораблей. Все состояние меняется только в потоке планировщика,
+     * скорость держит ведро токенов на один корабль
+     */
+    private final class ShipSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Ship> subscriber;
+        private final ScheduledExecutorService scheduler =
+                Executors.newSingleThreadScheduledExecutor(ExecutionMode::createDaemonThread);
+        private final TokenBucket bucket = new TokenBucket(shipsPerSecond, 1);
+
+        private long demand;
+        private long sentShips;
+        private boolean isItScheduled;
+        private boolean isItDone;
+
+        private ShipSubscription(Flow.Subscriber<? super Ship> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long count) {
+            execute(() -> {
+                if (isItDone) {
+                    return;
+                }
+                if (count <= 0) {
+                    finish();
+                    subscriber.onError(new IllegalArgumentException("request must be positive: " + count));
+                    return;
+                }
+                demand = demand + count < demand ? Long.MAX_VALUE : demand + count;
+                if (!isItScheduled) {
+                    sendShips();
+                }
+            });
+        }
+
+        @Override
+        public void cancel() {
+            execute(this::finish);
+        }
+
+        /**
+         * Функция передает задачу планировщику. После конца потока планировщик завершен,
+         * и запросы подписчика по правилам Flow просто игнорируются
+         */
+        private void execute(Runnable task) {
+            try {
+                scheduler.execute(task);
+            } catch (RejectedExecutionException exp) {
+                // поток кораблей закончился и планировщик завершен, отказ ожидаем
+            }
+        }
+
+        /**
+         * Функция-задача планировщика. Отдает подписчику корабли, пока они запрошены и есть токены,
+         * и планирует себя на время появления следующего токена
+         */
+        private void sendShips() {
+            while (!isItDone && demand > 0 && sentShips < numberOfShips && bucket.tryAcquire()) {
+                --demand;
+                ++sentShips;
+                subscriber.onNext(factory.get());
+            }
+            if (isItDone) {
+                return;
+            }
+            if (sentShips == numberOfShips) {
+                finish();
+                subscriber.onComplete();
+            } else if (demand > 0) {
+                isItScheduled = true;
+                scheduler.schedule(() -> {
+                    isItScheduled = false;
+                    sendShips();
+                }, bucket.getNanosUntilToken(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void finish() {
+            isItDone = true;
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package khuzint.ru;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс дискретно-событийной симуляции. Проводит корабли через тоннель и доки по тем же правилам,
+ * что и App.sendShipsToDocksThroughTunnel, но без потоков и Thread.sleep: время идет по виртуальным часам,
+ * а события хранятся в очереди с приоритетом по времени.
+ * Корабли заходят в тоннель по порядку массива, в док - по правилу очереди дока, а при равных ключах
+ * по порядку выхода из тоннеля,
+ * одновременные события обрабатываются в порядке их появления.
+ * Док группы выбирает тот же DockDispatcher, что и в реальном режиме, в момент выхода корабля из тоннеля,
+ * а свободные доки забирают корабли из чужих очередей по тому же правилу WorkStealing
+ */
+public final class Simulation {
+    /** Время прохода через тоннель в секундах, как в Ship.run */
+    private static final long K_TUNNEL_SECONDS = 1;
+
+    /**
+     * Типы событий: зашел в тоннель, вышел из тоннеля, начал разгрузку, закончил разгрузку
+     */
+    private enum EventType {
+        ENTER_TUNNEL,
+        EXIT_TUNNEL,
+        START_UNLOAD,
+        FINISH_UNLOAD
+    }
+
+    /**
+     * Событие: время по виртуальным часам в секундах от начала, номер события для одновременных событий и корабль
+     */
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final EventType type;
+        private final Ship ship;
+
+        private Event(long time, long sequence, EventType type, Ship ship) {
+            this.time = time;
+            this.sequence = sequence;
+            this.type = type;
+            this.ship = ship;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (time != other.time) {
+                return Long.compare(time, other.time);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Состояние дока: очередь кораблей, ждущих разгрузки, занят ли док,
+     * доки, у которых он может забирать корабли, и доки, которые могут забирать корабли у него
+     */
+    private static final class DockState {
+        private final Dock dock;
+        private final DockQueue<Ship> queue;
+        private final List<DockState> victims = new ArrayList<>();
+        private final List<DockState> thieves = new ArrayList<>();
+        private boolean isBusy;
+
+        private DockState(Dock dock) {
+            this.dock = dock;
+            this.queue = new DockQueue<>(dock);
+        }
+    }
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final ArrayDeque<Ship> tunnelQueue;
+    private final Map<Product, List<Dock>> groups;
+    private final Map<Dock, DockState> docks = new IdentityHashMap<>();
+    private final Map<Ship, DockState> assignedDocks = new IdentityHashMap<>();
+    private final DockDispatcher dispatcher;
+    private final LocalDateTime start;
+    private final long startNanos;
+    private final PortMetrics metrics;
+
+    private int freeTunnelPlaces;
+    private long clock;
+    private long sequence;
+
+    private Simulation(ArrayList<Ship> ships, Map<Product, List<Dock>> groups, int tunnelSize, LocalDateTime start,
+                       DockDispatcher dispatcher, WorkStealing stealing, PortMetrics metrics) {
+        this.tunnelQueue = new ArrayDeque<>(ships);
+        this.groups = groups;
+        this.freeTunnelPlaces = tunnelSize;
+        this.start = start;
+        this.startNanos = PortClock.toNanos(start);
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        for (var group : groups.values()) {
+            for (var dock : group) {
+                this.docks.put(dock, new DockState(dock));
+            }
+        }
+        for (var thief : docks.values()) {
+            for (var victim : stealing.getVictims(thief.dock, groups)) {
+                thief.victims.add(docks.get(victim));
+                docks.get(victim).thieves.add(thief);
+            }
+        }
+    }
+
+    /**
+     * Одна из главных функций симуляции.
+     * Проводит корабли через тоннель и доки и записывает в корабли те же времена, что и в реальном режиме.
+     * Ничего не печатает и не ждет
+     * @param ships - массив кораблей
+     * @param docks - Map с доками по продуктам, из доков берется только скорость разгрузки
+     * @param tunnelSize - количество кораблей, которые одновременно могут быть в тоннеле
+     * @param start - время, когда первые корабли заходят в тоннель
+     * @return возвращает время по виртуальным часам, когда разгрузился последний корабль
+     */
+    public static LocalDateTime simulate(ArrayList<Ship> ships, Map<Product, Dock> docks,
+                                         int tunnelSize, LocalDateTime start) {
+        return simulate(ships, docks, tunnelSize, start, new PortMetrics());
+    }
+
+    /**
+     * Функция проводит симуляцию так же, как simulate, и записывает путь кораблей в метрики
+     * @param ships - массив кораблей
+     * @param docks - Map с доками по продуктам, из доков берется только скорость разгрузки
+     * @param tunnelSize - количество кораблей, которые одновременно могут быть в тоннеле
+     * @param start - время, когда первые корабли заходят в тоннель
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     * @return возвращает время по виртуальным часам, когда разгрузился последний корабль
+     */
+    public static LocalDateTime simulate(ArrayList<Ship> ships, Map<Product, Dock> docks,
+                                         int tunnelSize, LocalDateTime start, PortMetrics metrics) {
+        return simulate(ships, Dock.toDockGroups(docks), tunnelSize, start, DockDispatcher.roundRobin(), metrics);
+    }
+
+    /**
+     * Функция проводит симуляцию с группами доков без кражи работы
+     * @param ships - массив кораблей
+     * @param docks - Map с группами доков по продуктам, из доков берется скорость разгрузки и груз для диспетчера
+     * @param tunnelSize - количество кораблей, которые одновременно могут быть в тоннеле
+     * @param start - время, когда первые корабли заходят в тоннель
+     * @param dispatcher - диспетчер, который выбирает док группы
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     * @return возвращает время по виртуальным часам, когда разгрузился последний корабль
+     */
+    public static LocalDateTime simulate(ArrayList<Ship> ships, Map<Product, List<Dock>> docks, int tunnelSize,
+                                         LocalDateTime start, DockDispatcher dispatcher, PortMetrics metrics) {
+        return simulate(ships, docks, tunnelSize, start, dispatcher, WorkStealing.disabled(), metrics);
+    }
+
+    /**
+     * Функция проводит симуляцию с группами доков и кражей работы между доками
+     * @param ships - массив кораблей
+     * @param docks - Map с группами доков по продуктам, из доков берется скорость разгрузки и груз для диспетчера
+     * @param tunnelSize - количество кораблей, которые одновременно могут быть в тоннеле
+     * @param start - время, когда первые корабли заходят в тоннель
+     * @param dispatcher - диспетчер, который выбирает док группы
+     * @param stealing - правило кражи работы между доками
+     * @param metrics - метрики, в которые записываются очереди доков и этапы пути кораблей
+     * @return возвращает время по виртуальным часам, когда разгрузился последний корабль
+     */
+    public static LocalDateTime simulate(ArrayList<Ship> ships, Map<Product, List<Dock>> docks, int tunnelSize,
+                                         LocalDateTime start, DockDispatcher dispatcher, WorkStealing stealing,
+                                         PortMetrics metrics) {
+        metrics.registerDocks(docks);
+        for (var ship : ships) {
+            ship.setTunnelQueueNanos(PortClock.toNanos(start));
+        }
+        var simulation = new Simulation(ships, docks, tunnelSize, start, dispatcher, stealing, metrics);
+        simulation.letPassNextShips();
+        while (!simulation.events.isEmpty()) {
+            simulation.handle(simulation.events.poll());
+        }
+        return simulation.getTime();
+    }
+
+    //------------for events------------------------------------------------------------
+
+    private void handle(Event event) {
+        clock = event.time;
+        var ship = event.ship;
+        DockState dock;
+        switch (event.type) {
+            case ENTER_TUNNEL:
+                ship.setDepartureNanos(getNanos());
+                schedule(K_TUNNEL_SECONDS, EventType.EXIT_TUNNEL, ship);
+                break;
+            case EXIT_TUNNEL:
+                ship.setArrivalNanos(getNanos());
+                ++freeTunnelPlaces;
+                letPassNextShips();
+                dock = docks.get(Dock.assignShip(ship, groups.get(ship.getProduct()), dispatcher));
+                dock.queue.add(ship, ship);
+                metrics.shipQueued(ship.getProduct());
+                unloadNextShip(dock);
+                for (var thief : dock.thieves) {
+                    unloadNextShip(thief);
+                }
+                break;
+            case START_UNLOAD:
+                ship.setUnloadStartNanos(getNanos());
+                metrics.shipUnloadStarted(ship.getProduct());
+                dock = assignedDocks.get(ship);
+                schedule(ship.getCapacity().getCapacity() / dock.dock.getUnloadSpeed(), EventType.FINISH_UNLOAD, ship);
+                break;
+            default:
+                ship.setUnloadFinishNanos(getNanos());
+                dock = assignedDocks.remove(ship);
+                metrics.recordShip(ship, dock.dock);
+                dock.dock.releaseShip(ship);
+                dock.isBusy = false;
+                unloadNextShip(dock);
+                break;
+        }
+    }
+
+    /**
+     * Функция запускает в тоннель следующие корабли, пока в нем есть места
+     */
+    private void letPassNextShips() {
+        while (freeTunnelPlaces > 0 && !tunnelQueue.isEmpty()) {
+            --freeTunnelPlaces;
+            schedule(0, EventType.ENTER_TUNNEL, tunnelQueue.poll());
+        }
+    }
+
+    /**
+     * Функция начинает разгрузку следующего корабля, если док свободен.
+     * Если своя очередь пуста, док забирает первый корабль самой длинной очереди среди доков victims
+     */
+    private void unloadNextShip(DockState dock) {
+        if (dock.isBusy) {
+            return;
+        }
+        var ship = dock.queue.poll();
+        if (ship == null) {
+            DockState victim = null;
+            for (var other : dock.victims) {
+                if (victim == null || other.queue.size() > victim.queue.size()) {
+                    victim = other;
+                }
+            }
+            ship = victim == null ? null : victim.queue.poll();
+            if (ship != null) {
+                victim.dock.moveCargo(dock.dock, ship);
+            }
+        }
+        if (ship != null) {
+            dock.isBusy = true;
+            assignedDocks.put(ship, dock);
+            schedule(0, EventType.START_UNLOAD, ship);
+        }
+    }
+
+    private void schedule(long delay, EventType type, Ship ship) {
+        events.add(new Event(clock + delay, sequence++, type, ship));
+    }
+
+    private LocalDateTime getTime() {
+        return start.plusSeconds(clock);
+    }
+
+    private long getNanos() {
+        return startNanos + TimeUnit.SECONDS.toNanos(clock);
+    }
+}
@@ -0,0 +1,101 @@
+package khuzint.ru;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Класс ведро токенов для пропуска кораблей в тоннель. Токены копятся со скоростью ratePerSecond,
+ * но не больше burst, каждый корабль забирает один токен. Так в среднем проходит ratePerSecond кораблей
+ * в секунду, а после простоя - сразу до burst кораблей.
+ * Скорость и размер ведра можно менять во время работы, все функции можно вызывать из разных потоков
+ */
+public final class TokenBucket {
+    private static final double K_NANOS_IN_SECOND = 1e9;
+
+    private final LongSupplier clock;
+    private double ratePerSecond;
+    private double burst;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Функция создает полное ведро
+     * @param ratePerSecond - сколько токенов добавляется за секунду
+     * @param burst - сколько токенов помещается в ведро
+     */
+    public TokenBucket(double ratePerSecond, double burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, double burst, LongSupplier clock) {
+        checkPositive(ratePerSecond);
+        checkPositive(burst);
+        this.clock = clock;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Функция забирает токен, если он есть
+     * @return возвращает true, если токен взят
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        --tokens;
+        return true;
+    }
+
+    /**
+     * Функция возвращает, через сколько наносекунд в ведре появится токен при текущей скорости
+     */
+    public synchronized long getNanosUntilToken() {
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / ratePerSecond * K_NANOS_IN_SECOND);
+    }
+
+    public synchronized double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public synchronized double getBurst() {
+        return burst;
+    }
+
+    /**
+     * Функция меняет скорость. Токены, накопленные до вызова, считаются по старой скорости
+     */
+    public synchronized void setRatePerSecond(double ratePerSecond) {
+        checkPositive(ratePerSecond);
+        refill();
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Функция меняет размер ведра. Лишние токены выбрасываются
+     */
+    public synchronized void setBurst(double burst) {
+        checkPositive(burst);
+        refill();
+        this.burst = burst;
+        tokens = Math.min(tokens, burst);
+    }
+
+    private void refill() {
+        var now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / K_NANOS_IN_SECOND * ratePerSecond);
+        lastRefill = now;
+    }
+
+    private static void checkPositive(double value) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException("rate and burst must be positive: " + value);
+        }
+    }
+}
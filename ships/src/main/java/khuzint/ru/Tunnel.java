@@ -1,37 +1,213 @@
 package khuzint.ru;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Класс тоннель. Определяется размером - количеством кораблей, которые он может пропустить через себя за 1 секунду.
- * Для реализации имеет внутри себя thread pool заданного размера.
+ * Для реализации имеет внутри себя thread pool и семафор на tunnelSize мест.
+ * В режиме PLATFORM_THREADS размер тоннеля ограничивает thread pool, в режиме VIRTUAL_THREADS - семафор.
+ * Тоннель с TokenBucket пускает корабли по токенам ведра и не держит поток на корабль:
+ * вход и выход кораблей - задачи одного планировщика, поэтому потоков не больше при любом числе кораблей.
+ * Тоннель - долгоживущая служба: корабли можно пропускать в любой момент, потоки переиспользуются
+ * между флотами, а stop останавливает тоннель, когда из него выйдут уже пропущенные корабли
  */
 public final class Tunnel {
+    /** Время прохода через тоннель в миллисекундах, как в Ship.run */
+    private static final long K_TRANSIT_MILLIS = 1000;
+
     private final int tunnelSize;
     private final ExecutorService pool;
+    private final Semaphore places;
+
+    private final TokenBucket bucket;
+    private final ScheduledExecutorService scheduler;
+    /** Корабли, которые ждут токена, и их Future. Меняются только в потоке планировщика */
+    private final ArrayDeque<Ship> waitingShips = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<Ship>> waitingFutures = new ArrayDeque<>();
+    private ScheduledFuture<?> nextAdmission;
+
+    /** Флаг остановки в младшем бите состояния тоннеля */
+    private static final long K_STOPPING = 1;
+    /** Один корабль в старших битах состояния тоннеля */
+    private static final long K_SHIP = 2;
+
+    /**
+     * Состояние тоннеля: флаг остановки и число кораблей, которые пришли к тоннелю и еще не вышли из него.
+     * Меняется одним CAS, поэтому stop не может завершить потоки между проверкой и приходом корабля
+     */
+    private final AtomicLong state = new AtomicLong();
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
 
     public Tunnel(int tunnelSize) {
+        this(tunnelSize, ExecutionMode.PLATFORM_THREADS);
+    }
+
+    public Tunnel(int tunnelSize, ExecutionMode mode) {
         this.tunnelSize = tunnelSize;
-        this.pool = Executors.newFixedThreadPool(tunnelSize);
+        this.pool = mode.createPool(tunnelSize);
+        this.places = new Semaphore(tunnelSize, true);
+        this.bucket = null;
+        this.scheduler = null;
+    }
+
+    /**
+     * Функция создает тоннель, который пускает корабли по токенам ведра
+     * @param bucket - ведро токенов, его скорость и размер можно менять во время прохода кораблей
+     */
+    public Tunnel(TokenBucket bucket) {
+        this.tunnelSize = (int) Math.ceil(bucket.getBurst());
+        this.pool = null;
+        this.places = null;
+        this.bucket = bucket;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(ExecutionMode::createDaemonThread);
     }
 
     /**
      * Функция пропускает корабли через тоннель.
-     * Для каждого корабля делает submit корабля-задачи в свой thread pool и получает оттуда Future
+     * Для каждого корабля запускает корабль-задачу в своем thread pool-е и получает CompletableFuture,
+     * который завершается кораблем, когда тот выходит из тоннеля
      * @param ships - массив кораблей
      * @return возвращает полученный массив Future
      */
-    public ArrayList<Future<?>> letPassShipsAndReturnFutureShips(ArrayList<Ship> ships) {
-        var futureShips = new ArrayList<Future<?>>();
+    public ArrayList<CompletableFuture<Ship>> letPassShipsAndReturnFutureShips(ArrayList<Ship> ships) {
+        var futureShips = new ArrayList<CompletableFuture<Ship>>();
+        var queueTime = PortClock.now();
         for (var ship : ships) {
-            var futureShip = pool.submit(ship);
-            futureShips.add(futureShip);
+            futureShips.add(letPassShip(ship, queueTime));
         }
-        pool.shutdown();
         return futureShips;
     }
 
+    /**
+     * Функция пропускает через тоннель один корабль, например корабль из потока кораблей
+     * @param ship - корабль, который только что пришел к тоннелю
+     * @return возвращает Future, который завершается кораблем, когда тот выходит из тоннеля
+     */
+    public CompletableFuture<Ship> letPassShip(Ship ship) {
+        return letPassShip(ship, PortClock.now());
+    }
+
+    private CompletableFuture<Ship> letPassShip(Ship ship, long queueTime) {
+        enterTunnel();
+        ship.setTunnelQueueNanos(queueTime);
+        CompletableFuture<Ship> futureShip;
+        if (bucket == null) {
+            futureShip = CompletableFuture.runAsync(() -> passShip(ship), pool).thenApply(ignored -> ship);
+        } else {
+            var tokenShip = new CompletableFuture<Ship>();
+            scheduler.execute(() -> {
+                waitingShips.add(ship);
+                waitingFutures.add(tokenShip);
+                admitShips();
+            });
+            futureShip = tokenShip;
+        }
+        futureShip.whenComplete((ignored, exp) -> leaveTunnel());
+        return futureShip;
+    }
+
+    /**
+     * Функция останавливает тоннель: новые корабли больше не принимаются, а уже пропущенные
+     * проходят тоннель до конца. Потоки тоннеля завершаются, когда из него выходит последний корабль
+     * @return возвращает Future, который завершается после остановки тоннеля
+     */
+    public CompletableFuture<Void> stop() {
+        if (state.getAndUpdate(current -> current | K_STOPPING) == 0) {
+            terminate();
+        }
+        return stopped;
+    }
+
+    /**
+     * Функция записывает корабль в тоннель, если тот еще не останавливается
+     * @throws IllegalStateException если тоннель остановлен
+     */
+    private void enterTunnel() {
+        long current;
+        do {
+            current = state.get();
+            if ((current & K_STOPPING) != 0) {
+                throw new IllegalStateException("tunnel is stopped");
+            }
+        } while (!state.compareAndSet(current, current + K_SHIP));
+    }
+
+    private void leaveTunnel() {
+        if (state.addAndGet(-K_SHIP) == K_STOPPING) {
+            terminate();
+        }
+    }
+
+    private void terminate() {
+        if (bucket == null) {
+            pool.shutdown();
+        } else {
+            scheduler.shutdown();
+        }
+        stopped.complete(null);
+    }
+
+    /**
+     * Функция-задача прохода через тоннель. Корабль ждет свободного места, не занимая его дольше, чем нужно
+     * @param ship - корабль, который проходит тоннель
+     */
+    private void passShip(Ship ship) {
+        places.acquireUninterruptibly();
+        try {
+            ship.run();
+        } finally {
+            places.release();
+        }
+    }
+
+    //------------for token bucket------------------------------------------------------
+
+    /**
+     * Функция меняет пропускную способность тоннеля с ведром во время прохода кораблей.
+     * Ждущие корабли сразу пускаются по новой скорости
+     * @param shipsPerSecond - сколько кораблей в среднем заходит в тоннель за секунду
+     * @param burst - сколько кораблей может зайти сразу после простоя
+     */
+    public void setThroughput(double shipsPerSecond, double burst) {
+        if (bucket == null) {
+            throw new IllegalStateException("tunnel has no token bucket");
+        }
+        bucket.setRatePerSecond(shipsPerSecond);
+        bucket.setBurst(burst);
+        scheduler.execute(this::admitShips);
+    }
+
+    /**
+     * Функция-задача планировщика. Пускает в тоннель ждущие корабли, пока в ведре есть токены,
+     * и планирует себя на время появления следующего токена
+     */
+    private void admitShips() {
+        if (nextAdmission != null) {
+            nextAdmission.cancel(false);
+            nextAdmission = null;
+        }
+        while (!waitingShips.isEmpty() && bucket.tryAcquire()) {
+            var ship = waitingShips.poll();
+            var futureShip = waitingFutures.poll();
+            ship.setDepartureNanos(PortClock.now());
+            ship.printDepartureTime();
+            scheduler.schedule(() -> {
+                ship.setArrivalNanos(PortClock.now());
+                ship.printArrivalTime();
+                futureShip.complete(ship);
+            }, K_TRANSIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (!waitingShips.isEmpty()) {
+            nextAdmission = scheduler.schedule(this::admitShips, bucket.getNanosUntilToken(), TimeUnit.NANOSECONDS);
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package khuzint.ru;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Класс правила кражи работы между доками. Свободный док может забрать корабль из очереди другого дока,
+ * если док разгружает тот же продукт или продукт, совместимый по матрице совместимости.
+ * Корабль забирается у дока с самой длинной очередью, первым в очереди
+ */
+public final class WorkStealing {
+    private final boolean isItEnabled;
+
+    /** Для продукта дока - продукты, корабли которых док может разгружать кроме своего */
+    private final Map<Product, Set<Product>> compatible = new EnumMap<>(Product.class);
+
+    private WorkStealing(boolean isItEnabled, Map<Product, Set<Product>> compatible) {
+        this.isItEnabled = isItEnabled;
+        for (var product : Product.values()) {
+            this.compatible.put(product, EnumSet.noneOf(Product.class));
+        }
+        for (var products : compatible.entrySet()) {
+            this.compatible.get(products.getKey()).addAll(products.getValue());
+        }
+    }
+
+    /**
+     * Функция возвращает правило без кражи работы: каждый док разгружает только свою очередь
+     */
+    public static WorkStealing disabled() {
+        return new WorkStealing(false, Map.of());
+    }
+
+    /**
+     * Функция возвращает правило, по которому свободный док забирает корабли у доков того же продукта
+     */
+    public static WorkStealing sameProduct() {
+        return new WorkStealing(true, Map.of());
+    }
+
+    /**
+     * Функция возвращает правило с матрицей совместимости: кроме своего продукта док может забирать корабли
+     * с продуктами из матрицы
+     * @param compatible - для продукта дока множество продуктов, которые он может разгружать
+     */
+    public static WorkStealing withCompatibility(Map<Product, Set<Product>> compatible) {
+        return new WorkStealing(true, compatible);
+    }
+
+    public boolean isItEnabled() {
+        return isItEnabled;
+    }
+
+    /**
+     * Функция проверяет, что док продукта thief может разгружать корабли с продуктом victim
+     */
+    public boolean canSteal(Product thief, Product victim) {
+        return isItEnabled && (thief == victim || compatible.get(thief).contains(victim));
+    }
+
+    /**
+     * Функция возвращает доки, у которых док может забирать корабли
+     * @param thief - док, который забирает корабли
+     * @param docks - Map с группами доков по продуктам
+     * @return возвращает список доков без самого thief
+     */
+    public List<Dock> getVictims(Dock thief, Map<Product, List<Dock>> docks) {
+        var victims = new ArrayList<Dock>();
+        for (var group : docks.values()) {
+            for (var dock : group) {
+                if (dock != thief && canSteal(thief.getProduct(), dock.getProduct())) {
+                    victims.add(dock);
+                }
+            }
+        }
+        return victims;
+    }
+}
@@ -3,10 +3,24 @@ package khuzint.ru;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class AppTest {
 
@@ -144,6 +158,788 @@ public class AppTest {
         }
     }
 
+    @Test
+    void virtualThreadsTest() {
+        System.out.println("--> Test for virtual threads");
+        System.out.println("--> ----------------------------------------------------------");
+
+        var ships = new ArrayList<Ship>();
+        for (int idx = 0; idx < 6; ++idx) {
+            ships.add(new Ship(idx + 1, Product.values()[idx % 3], Capacity.SMALL));
+        }
+
+        // до Java 21 режим не подменяется обычными потоками, а сразу отказывает
+        if (!ExecutionMode.VIRTUAL_THREADS.isItSupported()) {
+            Assertions.assertThrows(IllegalStateException.class, () -> new Tunnel(5, ExecutionMode.VIRTUAL_THREADS));
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> Dock.createDocksFromProducts(10, ExecutionMode.VIRTUAL_THREADS));
+            return;
+        }
+        var docks = Dock.createDocksFromProducts(10, ExecutionMode.VIRTUAL_THREADS);
+        var tunnel = new Tunnel(5, ExecutionMode.VIRTUAL_THREADS);
+
+        App.printShipsTable(ships);
+        App.sendShipsToDocksThroughTunnel(ships, docks, tunnel);
+
+        // размер тоннеля держит семафор: пять кораблей заходят сразу, шестой - когда место освободится
+        var departures = new ArrayList<LocalDateTime>();
+        for (var ship : ships) {
+            departures.add(ship.getDepartureTime());
+            checkShipTime(ship);
+        }
+        departures.sort(null);
+        Assertions.assertEquals(0, Duration.between(departures.get(0), departures.get(4)).getSeconds());
+        Assertions.assertEquals(1, Duration.between(departures.get(0), departures.get(5)).getSeconds());
+
+        // в доке разгружается только один корабль за раз
+        for (int idx = 0; idx < 3; ++idx) {
+            var first = ships.get(idx);
+            var second = ships.get(idx + 3);
+            Assertions.assertTrue(!second.getUnloadStartTime().isBefore(first.getUnloadFinishTime())
+                    || !first.getUnloadStartTime().isBefore(second.getUnloadFinishTime()));
+        }
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> ヽ(•‿•)ノ");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    private ArrayList<Ship> createQueueShips() {
+        var ships = new ArrayList<Ship>();
+        ships.add(new Ship(1, Product.BREAD, Capacity.SMALL));
+        ships.add(new Ship(2, Product.BREAD, Capacity.AVERAGE));
+        ships.add(new Ship(3, Product.BREAD, Capacity.SMALL));
+        ships.add(new Ship(4, Product.BANANAS, Capacity.SMALL));
+        return ships;
+    }
+
+    private long getSecondsFrom(LocalDateTime start, LocalDateTime time) {
+        return Duration.between(start, time).getSeconds();
+    }
+
+    @Test
+    void simulationTest() {
+        System.out.println("--> Test for simulation");
+        System.out.println("--> ----------------------------------------------------------");
+
+        var realShips = createQueueShips();
+        App.printShipsTable(realShips);
+        // тоннель на один корабль: в реальном режиме одновременные выходы из тоннеля идут в док в любом порядке
+        App.sendShipsToDocksThroughTunnel(realShips, Dock.createDocksFromProducts(10), new Tunnel(1));
+
+        var simulatedShips = createQueueShips();
+        var start = LocalDateTime.of(2022, 10, 1, 12, 0);
+        var finish = Simulation.simulate(simulatedShips, Dock.createDocksFromProducts(10), 1, start);
+
+        // симуляция дает те же времена, что и реальный запуск (с точностью до секунд)
+        var realStart = realShips.get(0).getDepartureTime();
+        for (int idx = 0; idx < realShips.size(); ++idx) {
+            var real = realShips.get(idx);
+            var simulated = simulatedShips.get(idx);
+
+            Assertions.assertEquals(getSecondsFrom(realStart, real.getDepartureTime()),
+                    getSecondsFrom(start, simulated.getDepartureTime()));
+            Assertions.assertEquals(getSecondsFrom(realStart, real.getArrivalTime()),
+                    getSecondsFrom(start, simulated.getArrivalTime()));
+            Assertions.assertEquals(getSecondsFrom(realStart, real.getUnloadStartTime()),
+                    getSecondsFrom(start, simulated.getUnloadStartTime()));
+            Assertions.assertEquals(getSecondsFrom(realStart, real.getUnloadFinishTime()),
+                    getSecondsFrom(start, simulated.getUnloadFinishTime()));
+        }
+
+        // третий корабль хлеба ждет в доке, пока разгрузится второй
+        Assertions.assertEquals(3, getSecondsFrom(start, simulatedShips.get(2).getArrivalTime()));
+        Assertions.assertEquals(7, getSecondsFrom(start, simulatedShips.get(2).getUnloadStartTime()));
+        Assertions.assertEquals(8, getSecondsFrom(start, finish));
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (ᵔᴥᵔ)");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void bigSimulationTest() {
+        System.out.println("--> Test for big simulation");
+        System.out.println("--> ----------------------------------------------------------");
+
+        SeaPort.resetNumbering();
+        var ships = SeaPort.createShips(100_000);
+        var start = LocalDateTime.of(2022, 10, 1, 12, 0);
+        Simulation.simulate(ships, Dock.createDocksFromProducts(10), 5, start);
+
+        // 100000 кораблей проходят тоннель по 5 штук за секунду
+        Assertions.assertEquals(19_999, getSecondsFrom(start, ships.get(ships.size() - 1).getDepartureTime()));
+        for (var ship : ships) {
+            Assertions.assertFalse(ship.getArrivalTime().isBefore(ship.getDepartureTime().plusSeconds(1)));
+            Assertions.assertFalse(ship.getUnloadStartTime().isBefore(ship.getArrivalTime()));
+            Assertions.assertEquals(ship.getCapacity().getCapacity() / 10,
+                    getSecondsFrom(ship.getUnloadStartTime(), ship.getUnloadFinishTime()));
+        }
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (づ｡◕‿‿◕｡)づ");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void metricsTest() {
+        System.out.println("--> Test for metrics");
+        System.out.println("--> ----------------------------------------------------------");
+
+        var metrics = new PortMetrics();
+        var ships = createQueueShips();
+        Simulation.simulate(ships, Dock.createDocksFromProducts(10), 1, LocalDateTime.of(2022, 10, 1, 12, 0), metrics);
+
+        // корабли хлеба ждали дока 0, 0 и 4 секунды, а тоннеля - 0, 1 и 2 секунды, гистограммы в микросекундах
+        var dockWait = metrics.getHistogram(PortMetrics.Stage.DOCK_WAIT, Product.BREAD);
+        Assertions.assertEquals(3, dockWait.getCount());
+        Assertions.assertEquals(0, dockWait.getPercentile(50));
+        Assertions.assertEquals(4_000_000, dockWait.getPercentile(99));
+        Assertions.assertEquals(3_000_000, metrics.getHistogram(PortMetrics.Stage.TUNNEL_WAIT, Product.BANANAS)
+                .getMax());
+        Assertions.assertEquals(5_000_000, metrics.getHistogram(PortMetrics.Stage.UNLOAD, Capacity.AVERAGE).getMax());
+
+        // док хлеба разгружал 7 секунд из 8, в очереди одновременно стоял один корабль
+        Assertions.assertEquals(7.0 / 8, metrics.getUtilization(Product.BREAD), 1e-9);
+        Assertions.assertEquals(1, metrics.getMaxQueueDepth(Product.BREAD));
+        Assertions.assertEquals(0, metrics.getQueueDepth(Product.BREAD));
+
+        Assertions.assertTrue(metrics.toCsv().contains(
+                "DOCK_WAIT,BREAD,3,1333.333,0.000,4000.000,4000.000,4000.000\n"));
+        Assertions.assertTrue(metrics.toJson().contains("\"BREAD\":{\"queue_depth\":0,\"max_queue_depth\":1,"
+                + "\"utilization\":0.875}"));
+
+        // времена в наносекундах дают доли миллисекунды
+        var ship = new Ship(1, Product.CLOTHES, Capacity.SMALL);
+        ship.setDepartureNanos(0);
+        ship.setArrivalNanos(1_000_250_000);
+        ship.setUnloadStartNanos(1_000_250_000 + 37_000);
+        ship.setUnloadFinishNanos(2_000_000_000);
+        metrics = new PortMetrics();
+        metrics.recordShip(ship);
+        Assertions.assertEquals(1_000_250, metrics.getHistogram(PortMetrics.Stage.TUNNEL_TRANSIT, Product.CLOTHES)
+                .getMax());
+        Assertions.assertEquals(37, metrics.getHistogram(PortMetrics.Stage.DOCK_WAIT, Product.CLOTHES).getMax());
+        Assertions.assertTrue(metrics.toCsv().contains("TUNNEL_TRANSIT,CLOTHES,1,1000.250,"));
+        Assertions.assertTrue(metrics.toCsv().contains("DOCK_WAIT,CLOTHES,1,0.037,0.037,0.037,0.037,0.037\n"));
+
+        // перцентили больших значений точны до 1/32
+        var histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100_000; ++value) {
+            histogram.record(value);
+        }
+        Assertions.assertEquals(99_000, histogram.getPercentile(99), 99_000 / 32);
+        Assertions.assertEquals(100_000, histogram.getMax());
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (｡◕‿◕｡)");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    private long simulateBigBreadShips(int[] unloadSpeeds, DockDispatcher dispatcher) {
+        var ships = new ArrayList<Ship>();
+        for (int idx = 0; idx < 6; ++idx) {
+            ships.add(new Ship(idx + 1, Product.BREAD, Capacity.BIG));
+        }
+        var start = LocalDateTime.of(2022, 10, 1, 12, 0);
+        var docks = Dock.createDockGroupsFromProducts(unloadSpeeds, ExecutionMode.PLATFORM_THREADS);
+        var finish = Simulation.simulate(ships, docks, 6, start, dispatcher, new PortMetrics());
+
+        for (var group : docks.values()) {
+            for (var dock : group) {
+                Assertions.assertEquals(0, dock.getRemainingCargo());
+            }
+        }
+        return getSecondsFrom(start, finish);
+    }
+
+    @Test
+    void dockDispatchTest() {
+        System.out.println("--> Test for dock dispatch");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // шесть больших кораблей хлеба одновременно выходят из тоннеля
+        Assertions.assertEquals(61, simulateBigBreadShips(new int[]{10}, DockDispatcher.roundRobin()));
+        Assertions.assertEquals(31, simulateBigBreadShips(new int[]{10, 10}, DockDispatcher.roundRobin()));
+        Assertions.assertEquals(31, simulateBigBreadShips(new int[]{10, 10}, DockDispatcher.leastLoaded()));
+
+        // с медленным и быстрым доком выигрывает только выбор по ожидаемому времени окончания
+        Assertions.assertEquals(31, simulateBigBreadShips(new int[]{10, 50}, DockDispatcher.roundRobin()));
+        Assertions.assertEquals(31, simulateBigBreadShips(new int[]{10, 50}, DockDispatcher.leastLoaded()));
+        Assertions.assertEquals(11, simulateBigBreadShips(new int[]{10, 50},
+                DockDispatcher.shortestExpectedFinish()));
+
+        // в реальном режиме два дока хлеба разгружают два корабля одновременно
+        var ships = new ArrayList<Ship>();
+        ships.add(new Ship(1, Product.BREAD, Capacity.SMALL));
+        ships.add(new Ship(2, Product.BREAD, Capacity.SMALL));
+        var docks = Dock.createDockGroupsFromProducts(new int[]{10, 10}, ExecutionMode.PLATFORM_THREADS);
+        App.sendShipsToDocksThroughTunnel(ships, docks, new Tunnel(2), DockDispatcher.leastLoaded(),
+                new PortMetrics());
+        Assertions.assertEquals(ships.get(0).getUnloadStartTime().getSecond(),
+                ships.get(1).getUnloadStartTime().getSecond());
+        for (var ship : ships) {
+            checkShipTime(ship);
+        }
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> ٩(◕‿◕)۶");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void workStealingTest() {
+        System.out.println("--> Test for work stealing");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // большие и малые корабли хлеба по очереди: по кругу оба больших попадают в первый док
+        var ships = new ArrayList<Ship>();
+        for (int idx = 0; idx < 4; ++idx) {
+            ships.add(new Ship(idx + 1, Product.BREAD, idx % 2 == 0 ? Capacity.BIG : Capacity.SMALL));
+        }
+        var start = LocalDateTime.of(2022, 10, 1, 12, 0);
+        var metrics = new PortMetrics();
+        var finish = Simulation.simulate(ships, Dock.createDockGroupsFromProducts(new int[]{10, 10},
+                ExecutionMode.PLATFORM_THREADS), 1, start, DockDispatcher.roundRobin(), metrics);
+        Assertions.assertEquals(21, getSecondsFrom(start, finish));
+        Assertions.assertEquals(22.0 / 21 / 2, metrics.getUtilization(Product.BREAD), 1e-9);
+
+        // свободный второй док забирает большой корабль из очереди первого, а первый - малый у второго
+        metrics = new PortMetrics();
+        var docks = Dock.createDockGroupsFromProducts(new int[]{10, 10}, ExecutionMode.PLATFORM_THREADS);
+        finish = Simulation.simulate(ships, docks, 1, start, DockDispatcher.roundRobin(),
+                WorkStealing.sameProduct(), metrics);
+        Assertions.assertEquals(13, getSecondsFrom(start, finish));
+        Assertions.assertEquals(22.0 / 13 / 2, metrics.getUtilization(Product.BREAD), 1e-9);
+        Assertions.assertEquals(3, getSecondsFrom(start, ships.get(2).getUnloadStartTime()));
+        for (var dock : docks.get(Product.BREAD)) {
+            Assertions.assertEquals(0, dock.getRemainingCargo());
+        }
+
+        // по матрице совместимости док бананов разгружает малые корабли хлеба, пока док хлеба занят средним
+        ships = new ArrayList<>();
+        ships.add(new Ship(1, Product.BREAD, Capacity.AVERAGE));
+        ships.add(new Ship(2, Product.BREAD, Capacity.SMALL));
+        ships.add(new Ship(3, Product.BREAD, Capacity.SMALL));
+        metrics = new PortMetrics();
+        finish = Simulation.simulate(ships, Dock.toDockGroups(Dock.createDocksFromProducts(10)), 1, start,
+                DockDispatcher.roundRobin(), WorkStealing.withCompatibility(Map.of(Product.BANANAS,
+                        Set.of(Product.BREAD))), metrics);
+        Assertions.assertEquals(6, getSecondsFrom(start, finish));
+        Assertions.assertEquals(2.0 / 6, metrics.getUtilization(Product.BANANAS), 1e-9);
+        Assertions.assertEquals(5.0 / 6, metrics.getUtilization(Product.BREAD), 1e-9);
+
+        // в реальном режиме свободный второй док хлеба сразу забирает корабль из очереди первого
+        ships = new ArrayList<>();
+        ships.add(new Ship(1, Product.BREAD, Capacity.AVERAGE));
+        ships.add(new Ship(2, Product.BREAD, Capacity.SMALL));
+        ships.add(new Ship(3, Product.BANANAS, Capacity.SMALL));
+        ships.add(new Ship(4, Product.BREAD, Capacity.SMALL));
+        App.sendShipsToDocksThroughTunnel(ships, Dock.createDockGroupsFromProducts(new int[]{10, 10},
+                ExecutionMode.PLATFORM_THREADS), new Tunnel(1), DockDispatcher.roundRobin(),
+                WorkStealing.sameProduct(), new PortMetrics());
+        Assertions.assertTrue(ships.get(3).getUnloadFinishTime().isBefore(ships.get(0).getUnloadFinishTime()));
+        for (var ship : ships) {
+            checkShipTime(ship);
+        }
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (ง •̀_•́)ง");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void shipLogTest() {
+        System.out.println("--> Test for ship log");
+        System.out.println("--> ----------------------------------------------------------");
+
+        var ship = new Ship(7, Product.BREAD, Capacity.AVERAGE);
+        ship.setDepartureTime(LocalDateTime.of(2022, 10, 1, 12, 0, 0));
+        ship.setArrivalTime(LocalDateTime.of(2022, 10, 1, 12, 0, 1));
+        ship.setUnloadStartTime(LocalDateTime.of(2022, 10, 1, 12, 0, 2));
+        ship.setUnloadFinishTime(LocalDateTime.of(2022, 10, 1, 12, 0, 7));
+
+        var out = System.out;
+        var buffer = new ByteArrayOutputStream();
+        ShipLog.getInstance().flush();
+        System.setOut(new PrintStream(buffer, true));
+        try {
+            ship.printDepartureTime();
+            ship.printArrivalTime();
+            ship.printStartDock();
+            ship.printUnloadStartTime();
+            ship.printUnloadFinishTime();
+            ship.printEndDock();
+            ship.printDockTime();
+            ShipLog.getInstance().flush();
+        } finally {
+            System.setOut(out);
+        }
+
+        // писатель журнала печатает те же строки, что и System.out.println в Ship раньше
+        var expected = String.join(System.lineSeparator(),
+                "--> Ship number 7   departed         at 12:00:00",
+                "--> Ship number 7   arrived to dock  at 12:00:01",
+                "--> Dock of BREAD   accept ship number 7 and start unloading",
+                "--> Ship number 7   start unload     at 12:00:02",
+                "--> Ship number 7   finish unload    at 12:00:07",
+                "--> Dock of BREAD   finish unloading ship number 7",
+                "--> Ship number 7   was in the dock of BREAD   for 5 seconds", "");
+        Assertions.assertEquals(expected, buffer.toString());
+
+        // события из разных потоков не теряются и не блокируют друг друга
+        var ships = new ArrayList<Ship>();
+        for (int idx = 0; idx < 1000; ++idx) {
+            ships.add(new Ship(idx + 1, Product.CLOTHES, Capacity.SMALL));
+            ships.get(idx).setDepartureTime(ship.getDepartureTime());
+        }
+        buffer.reset();
+        System.setOut(new PrintStream(buffer, true));
+        try {
+            ships.parallelStream().forEach(Ship::printDepartureTime);
+            ShipLog.getInstance().flush();
+        } finally {
+            System.setOut(out);
+        }
+        Assertions.assertEquals(1000, buffer.toString().lines().count());
+
+        // событие без времени отклоняется в потоке производителя, и писатель продолжает печатать
+        var late = new Ship(8, Product.BREAD, Capacity.SMALL);
+        Assertions.assertThrows(IllegalStateException.class, late::printArrivalTime);
+        Assertions.assertThrows(IllegalStateException.class, late::printDockTime);
+        buffer.reset();
+        System.setOut(new PrintStream(buffer, true));
+        try {
+            ship.printDepartureTime();
+            ShipLog.getInstance().flush();
+        } finally {
+            System.setOut(out);
+        }
+        Assertions.assertEquals("--> Ship number 7   departed         at 12:00:00" + System.lineSeparator(),
+                buffer.toString());
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> φ(゜▽゜*)♪");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void tokenBucketTest() {
+        System.out.println("--> Test for token bucket");
+        System.out.println("--> ----------------------------------------------------------");
+
+        var nanos = new long[]{0};
+        var bucket = new TokenBucket(2, 3, () -> nanos[0]);
+
+        // полное ведро пускает три корабля сразу, дальше - по одному раз в полсекунды
+        for (int idx = 0; idx < 3; ++idx) {
+            Assertions.assertTrue(bucket.tryAcquire());
+        }
+        Assertions.assertFalse(bucket.tryAcquire());
+        Assertions.assertEquals(500_000_000L, bucket.getNanosUntilToken());
+        nanos[0] = 500_000_000L;
+        Assertions.assertTrue(bucket.tryAcquire());
+
+        // за простой ведро набирает не больше burst токенов
+        nanos[0] += 10_000_000_000L;
+        bucket.setBurst(1);
+        Assertions.assertTrue(bucket.tryAcquire());
+        Assertions.assertFalse(bucket.tryAcquire());
+
+        // новая скорость действует сразу
+        bucket.setRatePerSecond(10);
+        Assertions.assertEquals(100_000_000L, bucket.getNanosUntilToken());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bucket.setRatePerSecond(0));
+
+        // тоннель с ведром на 2 корабля в секунду: два корабля заходят сразу, следующие - через полсекунды
+        var ships = new ArrayList<Ship>();
+        for (int idx = 0; idx < 4; ++idx) {
+            ships.add(new Ship(idx + 1, Product.values()[idx % Product.values().length], Capacity.SMALL));
+        }
+        var tunnel = new Tunnel(new TokenBucket(2, 2));
+        App.sendShipsToDocksThroughTunnel(ships, Dock.createDocksFromProducts(10), tunnel);
+        var start = ships.get(0).getDepartureTime();
+        Assertions.assertTrue(Duration.between(start, ships.get(1).getDepartureTime()).toMillis() < 100);
+        Assertions.assertTrue(Duration.between(start, ships.get(2).getDepartureTime()).toMillis() >= 450);
+        Assertions.assertTrue(Duration.between(start, ships.get(3).getDepartureTime()).toMillis() >= 950);
+        for (var ship : ships) {
+            checkShipTime(ship);
+        }
+
+        // тысячи кораблей в тоннеле не занимают поток каждый, а скорость можно поднять во время прохода
+        ships = new ArrayList<>();
+        for (int idx = 0; idx < 2000; ++idx) {
+            ships.add(new Ship(idx + 1, Product.values()[idx % Product.values().length], Capacity.SMALL));
+        }
+        var threads = Thread.activeCount();
+        tunnel = new Tunnel(new TokenBucket(10, 10));
+        var futureShips = tunnel.letPassShipsAndReturnFutureShips(ships);
+        tunnel.setThroughput(10_000, 1000);
+        Assertions.assertTrue(Thread.activeCount() <= threads + 1);
+        CompletableFuture.allOf(futureShips.toArray(new CompletableFuture<?>[0])).join();
+        ShipLog.getInstance().flush();
+        Assertions.assertTrue(Duration.between(ships.get(0).getDepartureTime(),
+                ships.get(ships.size() - 1).getArrivalTime()).getSeconds() < 3);
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (っ˘ω˘ς )");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void shipStreamTest() {
+        System.out.println("--> Test for ship stream");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // подписчик запросил три корабля из бесконечного потока - больше ему не присылают
+        var received = new AtomicInteger();
+        var subscriptions = new ArrayList<Flow.Subscription>();
+        var isItDaemon = new AtomicBoolean();
+        new ShipStream(ShipStream.UNBOUNDED, 1000).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                isItDaemon.set(Thread.currentThread().isDaemon());
+                subscriptions.add(subscription);
+                subscription.request(3);
+            }
+
+            @Override
+            public void onNext(Ship ship) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable exp) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        }
+        Assertions.assertEquals(3, received.get());
+        // планировщик потока - демон и не держит JVM, если подписку забыли отменить
+        Assertions.assertTrue(isItDaemon.get());
+        subscriptions.get(0).cancel();
+
+        // шесть кораблей приходят по четыре в секунду, а в порту одновременно не больше двух
+        var ships = new ArrayList<Ship>();
+        var stream = new ShipStream(6, 4, () -> {
+            var ship = new Ship(ships.size() + 1, Product.values()[ships.size() % Product.values().length],
+                    Capacity.SMALL);
+            ships.add(ship);
+            return ship;
+        });
+        var unloadedShips = App.sendShipStreamToDocksThroughTunnel(stream,
+                Dock.toDockGroups(Dock.createDocksFromProducts(10)), new Tunnel(5), 2, DockDispatcher.roundRobin(),
+                WorkStealing.disabled(), new PortMetrics());
+        Assertions.assertEquals(6, unloadedShips);
+        for (var ship : ships) {
+            checkShipTime(ship);
+            var shipsInPort = ships.stream().filter(other -> !other.getTunnelQueueTime().isAfter(
+                    ship.getTunnelQueueTime()) && ship.getTunnelQueueTime().isBefore(other.getUnloadFinishTime()))
+                    .count();
+            Assertions.assertTrue(shipsInPort <= 2);
+        }
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> ～(˘▽˘～)");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void portSubscriberRequestTest() {
+        System.out.println("--> Test for port subscriber request");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // доки разгружают мгновенно, поэтому корабли выходят из тоннеля и разгружаются почти одновременно
+        var docks = Dock.toDockGroups(Dock.createDocksFromProducts(1000));
+        var tunnel = new Tunnel(12);
+        var subscriber = new PortSubscriber(4, docks, tunnel, DockDispatcher.roundRobin(), WorkStealing.disabled(),
+                new PortMetrics());
+
+        // подписка замечает, если request вызван из двух потоков одновременно
+        var calls = new AtomicInteger();
+        var overlaps = new AtomicInteger();
+        var requested = new AtomicLong();
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long count) {
+                if (calls.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                requested.addAndGet(count);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException exp) {
+                    Thread.currentThread().interrupt();
+                }
+                calls.decrementAndGet();
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (int idx = 0; idx < 12; ++idx) {
+            subscriber.onNext(new Ship(idx + 1, Product.values()[idx % Product.values().length], Capacity.SMALL));
+        }
+        while (requested.get() < 4 + 12) {
+            Thread.yield();
+        }
+        subscriber.onComplete();
+
+        Assertions.assertEquals(12, subscriber.join());
+        Assertions.assertEquals(4 + 12, requested.get());
+        Assertions.assertEquals(0, overlaps.get());
+        tunnel.stop().join();
+        Dock.stop(docks).join();
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (•̀ᴗ•́)و");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void seaPortTest() {
+        System.out.println("--> Test for sea port");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // одно зерно дает тот же флот и последовательно, и на всех ядрах, другое зерно - другой флот
+        SeaPort.resetNumbering();
+        var ships = SeaPort.createShips(10_000, 2022);
+        SeaPort.resetNumbering();
+        var parallelShips = SeaPort.createShipsInParallel(10_000, 2022);
+        SeaPort.resetNumbering();
+        var otherShips = SeaPort.createShipsInParallel(10_000, 2023);
+        var isItSameFleet = true;
+        for (int idx = 0; idx < ships.size(); ++idx) {
+            Assertions.assertEquals(idx + 1, ships.get(idx).getId());
+            Assertions.assertEquals(ships.get(idx).getId(), parallelShips.get(idx).getId());
+            Assertions.assertEquals(ships.get(idx).getProduct(), parallelShips.get(idx).getProduct());
+            Assertions.assertEquals(ships.get(idx).getCapacity(), parallelShips.get(idx).getCapacity());
+            isItSameFleet &= ships.get(idx).getProduct() == otherShips.get(idx).getProduct()
+                    && ships.get(idx).getCapacity() == otherShips.get(idx).getCapacity();
+        }
+        Assertions.assertFalse(isItSameFleet);
+
+        // корабли из разных потоков получают разные номера
+        SeaPort.resetNumbering();
+        var ids = IntStream.range(0, 100_000).parallel().map(idx -> SeaPort.createShip().getId()).boxed()
+                .collect(Collectors.toSet());
+        Assertions.assertEquals(100_000, ids.size());
+
+        // в одном потоке номера после обнуления снова идут подряд
+        SeaPort.resetNumbering();
+        Assertions.assertEquals(1, SeaPort.createShip().getId());
+        Assertions.assertEquals(2, SeaPort.createShip().getId());
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (ﾉ´ヮ`)ﾉ*: ･ﾟ");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void serviceReuseTest() {
+        System.out.println("--> Test for service reuse");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // тоннель и доки обслуживают несколько флотов подряд одними и теми же потоками:
+        // Future корабля завершается в потоке тоннеля, а Future разгрузки - в потоке дока
+        var docks = Dock.createDocksFromProducts(10);
+        var tunnel = new Tunnel(2);
+        var tunnelThreads = new HashSet<Thread>();
+        var dockThreads = new HashSet<Thread>();
+        for (int fleet = 0; fleet < 2; ++fleet) {
+            var ships = new ArrayList<Ship>();
+            for (int idx = 0; idx < 4; ++idx) {
+                ships.add(new Ship(fleet * 4 + idx + 1, Product.values()[idx % 3], Capacity.SMALL));
+            }
+            var futureShips = tunnel.letPassShipsAndReturnFutureShips(ships);
+            var passedThreads = futureShips.stream().map(futureShip -> futureShip.thenApply(
+                    ignored -> Thread.currentThread())).collect(Collectors.toList());
+            var unloadedThreads = Dock.acceptShips(ships, futureShips, docks).stream().map(unloadedShip ->
+                    unloadedShip.thenApply(ignored -> Thread.currentThread())).collect(Collectors.toList());
+            passedThreads.forEach(thread -> tunnelThreads.add(thread.join()));
+            unloadedThreads.forEach(thread -> dockThreads.add(thread.join()));
+            for (var ship : ships) {
+                checkShipTime(ship);
+            }
+        }
+        // два флота прошли через два потока тоннеля и по одному потоку на каждый из трех доков
+        Assertions.assertEquals(2, tunnelThreads.size());
+        Assertions.assertEquals(3, dockThreads.size());
+
+        // stop дожидается уже пропущенных кораблей и не принимает новые
+        var ships = new ArrayList<Ship>();
+        ships.add(new Ship(9, Product.BREAD, Capacity.SMALL));
+        ships.add(new Ship(10, Product.BANANAS, Capacity.SMALL));
+        var futureShips = tunnel.letPassShipsAndReturnFutureShips(ships);
+        var unloadedShips = Dock.acceptShips(ships, futureShips, docks);
+        var tunnelStopped = tunnel.stop();
+        Assertions.assertFalse(tunnelStopped.isDone());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> tunnel.letPassShip(new Ship(11, Product.BREAD, Capacity.SMALL)));
+        CompletableFuture.allOf(unloadedShips.toArray(new CompletableFuture<?>[0])).join();
+        tunnelStopped.join();
+        for (var ship : ships) {
+            checkShipTime(ship);
+        }
+
+        Dock.stop(Dock.toDockGroups(docks)).join();
+        var lateShip = new Ship(12, Product.BREAD, Capacity.SMALL);
+        var lateShips = new ArrayList<Ship>(List.of(lateShip));
+        var lateFutures = new ArrayList<CompletableFuture<Ship>>(List.of(CompletableFuture.completedFuture(lateShip)));
+        var lateUnloaded = Dock.acceptShips(lateShips, lateFutures, docks).get(0);
+        Assertions.assertThrows(CompletionException.class, lateUnloaded::join);
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> ♪(´▽｀)");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void parameterSweepTest() {
+        System.out.println("--> Test for parameter sweep");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // флот без случайности: 4 корабля с хлебом по 1 секунде разгрузки, все выходят из тоннеля через 1 секунду
+        var bread = new ShipMix("bread", Map.of(Product.BREAD, 1), Map.of(Capacity.SMALL, 1));
+        var scenarios = Scenario.createGrid(4, new int[]{5}, new int[]{10}, new int[]{1, 2}, List.of(bread));
+        var results = ParameterSweep.run(scenarios, 3, 2022);
+        System.out.print(ParameterSweep.toTable(results));
+
+        var oneDock = results.get(0);
+        Assertions.assertEquals(1, oneDock.getScenario().getDocksCount());
+        Assertions.assertEquals(5, oneDock.getMakespan().getMean());
+        Assertions.assertEquals(0, oneDock.getMakespan().getHalfWidth());
+        Assertions.assertEquals(1.5, oneDock.getMeanWait().getMean());
+        Assertions.assertEquals(3, oneDock.getP99Wait().getMean());
+        Assertions.assertEquals(0.8, oneDock.getUtilization().getMean(), 1e-9);
+
+        var twoDocks = results.get(1);
+        Assertions.assertEquals(3, twoDocks.getMakespan().getMean());
+        Assertions.assertEquals(0.5, twoDocks.getMeanWait().getMean());
+        Assertions.assertEquals(4.0 / 3 / 2, twoDocks.getUtilization().getMean(), 1e-9);
+
+        // случайные флоты: то же зерно дает ту же таблицу, у разных прогонов разброс не нулевой
+        var grid = Scenario.createGrid(200, new int[]{1, 5}, new int[]{10, 50}, new int[]{1, 2},
+                List.of(ShipMix.uniform(), bread));
+        Assertions.assertEquals(16, grid.size());
+        var table = ParameterSweep.toTable(ParameterSweep.run(grid, 4, 7));
+        Assertions.assertEquals(table, ParameterSweep.toTable(ParameterSweep.run(grid, 4, 7)));
+        System.out.print(table);
+        Assertions.assertTrue(ParameterSweep.run(grid, 4, 7).get(0).getMakespan().getHalfWidth() > 0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ParameterSweep.run(grid, 1, 7));
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> ᕕ( ᐛ )ᕗ");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void queuePolicyTest() {
+        System.out.println("--> Test for queue policy");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // бананы приходят к доку в одну секунду: первый корабль сразу начинает разгрузку, дальше порядок задает правило
+        var policies = List.of(QueuePolicy.fifo(), QueuePolicy.shortestUnloadFirst(), QueuePolicy.earliestDeadline());
+        var expectedOrders = List.of(List.of(1, 2, 3, 4), List.of(1, 3, 4, 2), List.of(1, 2, 4, 3));
+        var expectedFlows = new double[]{20.25, 16.75, 21.25};
+        var expectedMisses = new double[]{0, 0.5, 0};
+        for (int idx = 0; idx < policies.size(); ++idx) {
+            var ships = new ArrayList<Ship>();
+            ships.add(new Ship(1, Product.BANANAS, Capacity.BIG));
+            ships.add(new Ship(2, Product.BANANAS, Capacity.BIG));
+            ships.add(new Ship(3, Product.BANANAS, Capacity.SMALL));
+            ships.add(new Ship(4, Product.BANANAS, Capacity.AVERAGE));
+            ships.get(1).setSlaNanos(Duration.ofSeconds(25).toNanos());
+            ships.get(3).setSlaNanos(Duration.ofSeconds(30).toNanos());
+            var docks = Dock.createDockGroupsFromProducts(new int[]{10}, ExecutionMode.PLATFORM_THREADS,
+                    Map.of(Product.BANANAS, policies.get(idx)));
+            var metrics = new PortMetrics();
+            Simulation.simulate(ships, docks, 5, LocalDateTime.of(2022, 10, 1, 12, 0), DockDispatcher.roundRobin(),
+                    metrics);
+
+            var order = ships.stream().sorted(Comparator.comparingLong(Ship::getUnloadStartNanos))
+                    .map(Ship::getId).collect(Collectors.toList());
+            Assertions.assertEquals(expectedOrders.get(idx), order);
+            Assertions.assertEquals(expectedFlows[idx] * 1_000_000, metrics.getFlowTime(Product.BANANAS).getMean());
+            Assertions.assertEquals(expectedMisses[idx], metrics.getDeadlineMissRate(Product.BANANAS));
+        }
+
+        // на случайных флотах короткие разгрузки первыми сокращают время кораблей в порту
+        var mix = new ShipMix("bananas", Map.of(Product.BANANAS, 1, Product.BREAD, 1),
+                Map.of(Capacity.SMALL, 1, Capacity.AVERAGE, 1, Capacity.BIG, 1),
+                Map.of(Product.BANANAS, Duration.ofMinutes(5)));
+        var results = ParameterSweep.run(Scenario.createGrid(100, new int[]{5}, new int[]{10}, new int[]{1},
+                List.of(mix), policies), 4, 2022);
+        System.out.print(ParameterSweep.toTable(results));
+        Assertions.assertTrue(results.get(1).getMeanFlowTime().getMean() < results.get(0).getMeanFlowTime().getMean());
+        Assertions.assertTrue(results.get(1).getDeadlineMissRate().getMean()
+                <= results.get(0).getDeadlineMissRate().getMean());
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (ᗒᗨᗕ)");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
+    @Test
+    void admissionPolicyTest() {
+        System.out.println("--> Test for admission policy");
+        System.out.println("--> ----------------------------------------------------------");
+
+        // короткая разгрузка бананов перед долгой разгрузкой хлеба удлиняет makespan на секунду
+        var start = LocalDateTime.of(2022, 10, 1, 12, 0);
+        var docks = Dock.createDockGroupsFromProducts(new int[]{10}, ExecutionMode.PLATFORM_THREADS);
+        var ships = new ArrayList<Ship>();
+        ships.add(new Ship(1, Product.BANANAS, Capacity.SMALL));
+        ships.add(new Ship(2, Product.BREAD, Capacity.BIG));
+        Assertions.assertEquals(12, getSecondsFrom(start, Simulation.simulate(
+                AdmissionPolicy.fifo().order(ships, docks), docks, 1, start, DockDispatcher.roundRobin(),
+                new PortMetrics())));
+        for (var policy : List.of(AdmissionPolicy.longestUnloadFirst(), AdmissionPolicy.lookahead(1))) {
+            var ordered = policy.order(ships, docks);
+            Assertions.assertEquals(List.of(2, 1), ordered.stream().map(Ship::getId).collect(Collectors.toList()));
+            Assertions.assertEquals(11, getSecondsFrom(start, Simulation.simulate(ordered, docks, 1, start,
+                    DockDispatcher.roundRobin(), new PortMetrics())));
+        }
+
+        // караван из двух кораблей хлеба и двух кораблей бананов: продукты чередуются
+        ships = new ArrayList<>();
+        ships.add(new Ship(1, Product.BREAD, Capacity.BIG));
+        ships.add(new Ship(2, Product.BREAD, Capacity.BIG));
+        ships.add(new Ship(3, Product.BANANAS, Capacity.BIG));
+        ships.add(new Ship(4, Product.BANANAS, Capacity.BIG));
+        Assertions.assertEquals(23, getSecondsFrom(start, Simulation.simulate(ships, docks, 1, start,
+                DockDispatcher.roundRobin(), new PortMetrics())));
+        var interleaved = AdmissionPolicy.interleaveProducts().order(ships, docks);
+        Assertions.assertEquals(List.of(1, 3, 2, 4), interleaved.stream().map(Ship::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(22, getSecondsFrom(start, Simulation.simulate(interleaved, docks, 1, start,
+                DockDispatcher.roundRobin(), new PortMetrics())));
+        Assertions.assertEquals(4, new HashSet<>(AdmissionPolicy.lookahead(1).order(ships, docks)).size());
+
+        // док разгружает целое число секунд: при скорости 100 малый и средний корабли разгружаются мгновенно,
+        // поэтому правило не переставляет их между собой
+        var fastDocks = Dock.createDockGroupsFromProducts(new int[]{100}, ExecutionMode.PLATFORM_THREADS);
+        ships = new ArrayList<>();
+        ships.add(new Ship(1, Product.BREAD, Capacity.SMALL));
+        ships.add(new Ship(2, Product.BREAD, Capacity.AVERAGE));
+        ships.add(new Ship(3, Product.BREAD, Capacity.BIG));
+        Assertions.assertEquals(List.of(3, 1, 2), AdmissionPolicy.longestUnloadFirst().order(ships, fastDocks)
+                .stream().map(Ship::getId).collect(Collectors.toList()));
+        Dock.stop(docks).join();
+        Dock.stop(fastDocks).join();
+
+        System.out.println("--> ----------------------------------------------------------");
+        System.out.println("--> (☞ﾟヮﾟ)☞");
+        System.out.println("--> ----------------------------------------------------------");
+    }
+
     private void randomTest(int numberOfShips) {
         try {
             SeaPort.resetNumbering();
@@ -0,0 +1,90 @@
+package ru.khuzint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки API игры: расстановка, ходы строками и выдача позиции.
+ * Партия для makeMove записывается один раз в setup случайными ходами генератора
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    // дамки ходят туда и обратно, а простые башни не могут бить: каждый ход --- полная проверка checkNotNeedAttack
+    private static final String[] QUIET_TOWERS = {
+        "a1_Wb", "a3_wb", "c1_w", "c3_wwb", "e1_w", "e3_wbb", "g1_w", "g3_wb",
+        "h8_Bw", "b8_b", "d8_bw", "f8_b", "b6_bww", "d6_b", "f6_bw", "h6_b"
+    };
+    private static final String[] QUIET_MOVES = {"a1-b2", "h8-g7", "b2-a1", "g7-h8"};
+
+    private static final int K_PLIES = 60;
+
+    private String[] moves;
+    private Game quietGame;
+    private Game finalGame;
+
+    @Setup
+    public void setup() throws GameException {
+        Game game = Perft.createStartGame();
+        MoveGenerator generator = new MoveGenerator(game);
+        MoveBuffer buffer = new MoveBuffer();
+        Random random = new Random(2022);
+
+        ArrayList<String> played = new ArrayList<>();
+        Color color = Color.WHITE;
+        while (played.size() < K_PLIES && generator.generate(color, buffer) != 0) {
+            int idx = random.nextInt(buffer.size());
+            played.add(buffer.getMoveString(idx));
+            game.makeMove(buffer, idx);
+            color = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        }
+        moves = played.toArray(new String[0]);
+        finalGame = game;
+
+        quietGame = new Game();
+        quietGame.placeTowers(QUIET_TOWERS);
+    }
+
+    @Benchmark
+    public Game placeTowers() throws GameException {
+        return Perft.createStartGame();
+    }
+
+    @Benchmark
+    public Game makeMoveReplay() throws GameException {
+        Game game = Perft.createStartGame();
+        for (String move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+
+    @Benchmark
+    public Game makeMoveQuiet() throws GameException {
+        for (String move : QUIET_MOVES) {
+            quietGame.makeMove(move);
+        }
+        return quietGame;
+    }
+
+    @Benchmark
+    public String[] getTowersDescriptionByColor() {
+        return finalGame.getTowersDescriptionByColor(Color.WHITE);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.khuzint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки генератора ходов: генерация на позициях из случайных партий и perft из начальной позиции
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGeneratorBenchmark {
+    private static final int K_POSITIONS = 64;
+    private static final int K_PLIES = 30;
+    private static final int K_PERFT_DEPTH = 6;
+
+    private final MoveBuffer buffer = new MoveBuffer();
+    private MoveGenerator[] generators;
+    private Color[] colors;
+    private Perft perft;
+
+    @Setup
+    public void setup() throws GameException {
+        Random random = new Random(2022);
+        generators = new MoveGenerator[K_POSITIONS];
+        colors = new Color[K_POSITIONS];
+
+        for (int position = 0; position < K_POSITIONS; ++position) {
+            Game game = Perft.createStartGame();
+            MoveGenerator generator = new MoveGenerator(game);
+            Color color = Color.WHITE;
+            for (int ply = 0; ply < K_PLIES && generator.generate(color, buffer) != 0; ++ply) {
+                game.makeMove(buffer, random.nextInt(buffer.size()));
+                color = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+            }
+            generators[position] = generator;
+            colors[position] = color;
+        }
+
+        perft = new Perft(Perft.createStartGame());
+    }
+
+    /**
+     * Генерация ходов сразу на K_POSITIONS позициях
+     */
+    @Benchmark
+    public int generate() {
+        int count = 0;
+        for (int position = 0; position < K_POSITIONS; ++position) {
+            count += generators[position].generate(colors[position], buffer);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long perft() {
+        return perft.count(Color.WHITE, K_PERFT_DEPTH);
+    }
+}
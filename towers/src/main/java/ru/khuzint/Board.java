@@ -0,0 +1,367 @@
+package ru.khuzint;
+
+import java.util.Arrays;
+
+/**
+ * Класс доска на 32 черных поля.
+ * Черные поля нумеруются снизу вверх и слева направо: a1 = 0, c1 = 1, ..., h8 = 31.
+ * Башни хранятся массивом по номеру поля, а цвета верхних шашек --- двумя масками.
+ * Вместе с масками поддерживается ключ Зобриста позиции: после любого изменения башни нужно вызвать refresh.
+ */
+final class Board {
+
+    //------------tables----------------------------------------------------------------
+    /**
+     * Константное поле количества черных полей
+     */
+    static final int K_SQUARES = 32;
+
+    /**
+     * Константное поле количества диагональных направлений
+     */
+    static final int K_DIRECTIONS = 4;
+
+    /**
+     * Направления в порядке: вверх-влево, вверх-вправо, вниз-влево, вниз-вправо
+     */
+    private static final int[] DIRECTION_X = {-1, +1, -1, +1};
+    private static final int[] DIRECTION_Y = {+1, +1, -1, -1};
+
+    /**
+     * Координаты полей по номеру поля
+     */
+    private static final int[] SQUARE_X = new int[K_SQUARES];
+    private static final int[] SQUARE_Y = new int[K_SQUARES];
+
+    /**
+     * Лучи по диагоналям: RAYS[square][direction] --- номера полей от ближнего к дальнему
+     */
+    private static final int[][][] RAYS = new int[K_SQUARES][K_DIRECTIONS][];
+
+    /**
+     * Маски полей строго между двумя полями одной диагонали, 0 если поля не на одной диагонали
+     */
+    private static final int[][] BETWEEN = new int[K_SQUARES][K_SQUARES];
+
+    static {
+        for (int square = 0; square < K_SQUARES; ++square) {
+            int y = square / 4 + 1;
+            int x = square % 4 * 2 + 1 + (y + 1) % 2;
+            SQUARE_X[square] = x;
+            SQUARE_Y[square] = y;
+        }
+
+        for (int square = 0; square < K_SQUARES; ++square) {
+            for (int direction = 0; direction < K_DIRECTIONS; ++direction) {
+                int[] buffer = new int[Game.K_BOARD_SIZE];
+                int length = 0;
+                int between = 0;
+
+                int x = SQUARE_X[square] + DIRECTION_X[direction];
+                int y = SQUARE_Y[square] + DIRECTION_Y[direction];
+                while (getSquare(x, y) != -1) {
+                    int next = getSquare(x, y);
+                    buffer[length++] = next;
+                    BETWEEN[square][next] = between;
+                    between |= 1 << next;
+
+                    x += DIRECTION_X[direction];
+                    y += DIRECTION_Y[direction];
+                }
+
+                RAYS[square][direction] = Arrays.copyOf(buffer, length);
+            }
+        }
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------fields----------------------------------------------------------------
+    /**
+     * Башни по номеру поля, null если поле пусто
+     */
+    private final Tower[] towers = new Tower[K_SQUARES];
+
+    /**
+     * Маска башен с белой шашкой сверху
+     */
+    private int white;
+
+    /**
+     * Маска башен с черной шашкой сверху
+     */
+    private int black;
+
+    /**
+     * Ключи Зобриста башен по номеру поля на момент последнего refresh, 0 если поле пусто
+     */
+    private final long[] towerKeys = new long[K_SQUARES];
+
+    /**
+     * Ключ Зобриста башен на доске, без учета того, чей ход
+     */
+    private long key;
+    //----------------------------------------------------------------------------------
+
+
+    //------------squares---------------------------------------------------------------
+
+    /**
+     * Функция возвращает номер черного поля по координатам
+     *
+     * @return возвращает номер поля или -1, если поле белое или вне доски
+     */
+    static int getSquare(int x, int y) {
+        if (x < 1 || x > Game.K_BOARD_SIZE || y < 1 || y > Game.K_BOARD_SIZE || x % 2 != y % 2) {
+            return -1;
+        }
+        return (y - 1) * 4 + (x - 1) / 2;
+    }
+
+    static int getX(int square) {
+        return SQUARE_X[square];
+    }
+
+    static int getY(int square) {
+        return SQUARE_Y[square];
+    }
+
+    /**
+     * Функция возвращает поле типа Cell из общей таблицы Cell
+     */
+    static Cell getCell(int square) {
+        return Cell.valueOf(SQUARE_X[square], SQUARE_Y[square]);
+    }
+
+    /**
+     * Функция возвращает луч из поля в направлении. Массив общий, изменять его нельзя
+     */
+    static int[] getRay(int square, int direction) {
+        return RAYS[square][direction];
+    }
+
+    /**
+     * Функция возвращает маску полей строго между from и to
+     */
+    static int getBetween(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Функция проверяет, что поле находится на последней горизонтали для шашек цвета
+     */
+    static boolean isItLastRow(int square, Color color) {
+        if (color == Color.WHITE) {
+            return SQUARE_Y[square] == Game.K_BOARD_SIZE;
+        } else {
+            return SQUARE_Y[square] == 1;
+        }
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------masks-----------------------------------------------------------------
+
+    int getMask(Color color) {
+        return color == Color.WHITE ? white : black;
+    }
+
+    int getOccupied() {
+        return white | black;
+    }
+
+    boolean isItEmpty(int square) {
+        return towers[square] == null;
+    }
+
+    /**
+     * Функция возвращает цвет верхней шашки башни на поле. Следует использовать, когда уверены, что поле не пусто
+     */
+    Color getColor(int square) {
+        return towers[square].getColor();
+    }
+
+    long getKey() {
+        return key;
+    }
+
+    /**
+     * Функция проверяет, что на досках одинаковые позиции: на каждом поле башни одного состава или пусто
+     */
+    boolean isItSamePosition(Board other) {
+        if (key != other.key || white != other.white || black != other.black) {
+            return false;
+        }
+        for (int square = 0; square < K_SQUARES; ++square) {
+            Tower tower = towers[square];
+            Tower otherTower = other.towers[square];
+            if (tower == null || otherTower == null) {
+                if (tower != otherTower) {
+                    return false;
+                }
+            } else if (tower.getColors() != otherTower.getColors()
+                    || tower.getQueens() != otherTower.getQueens()
+                    || tower.getHeight() != otherTower.getHeight()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Функция возвращает башню на поле или null
+     */
+    Tower getTower(int square) {
+        return towers[square];
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------changes---------------------------------------------------------------
+
+    /**
+     * Функция ставит башню на пустое поле
+     */
+    void place(int square, Tower tower) {
+        towers[square] = tower;
+        tower.setCell(getCell(square));
+        refresh(square);
+    }
+
+    /**
+     * Функция снимает башню с поля и возвращает ее
+     */
+    Tower remove(int square) {
+        Tower tower = towers[square];
+        towers[square] = null;
+        refresh(square);
+        return tower;
+    }
+
+    void clear() {
+        for (int square = 0; square < K_SQUARES; ++square) {
+            remove(square);
+        }
+    }
+
+    /**
+     * Функция делает доску копией другой доски, башни копируются
+     */
+    void copyFrom(Board other) {
+        for (int square = 0; square < K_SQUARES; ++square) {
+            remove(square);
+            if (other.towers[square] != null) {
+                place(square, new Tower(other.towers[square]));
+            }
+        }
+    }
+
+    /**
+     * Функция делает верхнюю шашку башни на поле дамкой
+     */
+    void makeQueen(int square) {
+        towers[square].makeQueen();
+        refresh(square);
+    }
+
+    /**
+     * Функция снимает с верхней шашки башни на поле звание дамки, обратна makeQueen
+     */
+    void unmakeQueen(int square) {
+        towers[square].unmakeQueen();
+        refresh(square);
+    }
+
+    /**
+     * Функция перемещает башню с поля from на пустое поле to
+     */
+    void move(int from, int to) {
+        place(to, remove(from));
+    }
+
+    /**
+     * Функция делает ход из буфера без проверок, ход должен быть найден MoveGenerator для этой позиции.
+     * Верхние шашки побитых башен сразу уходят под бьющую башню, пустые башни снимаются с доски
+     *
+     * @param moves --- буфер ходов
+     * @param idx   --- номер хода в буфере
+     * @param undo  --- куда сохранить побитые башни для unmakeMove
+     */
+    void makeMove(MoveBuffer moves, int idx, MoveUndo undo) {
+        undo.clear();
+
+        int lastStep = moves.getPathLength(idx) - 1;
+        for (int step = 0; step < lastStep; ++step) {
+            int from = moves.getSquare(idx, step);
+            int to = moves.getSquare(idx, step + 1);
+            if (moves.isItAttack(idx)) {
+                int victim = Integer.numberOfTrailingZeros(BETWEEN[from][to] & (white | black));
+                Tower victimTower = towers[victim];
+
+                towers[from].shiftChecker(victimTower);
+                if (victimTower.isItEmptyTower()) {
+                    remove(victim);
+                } else {
+                    refresh(victim);
+                }
+                undo.addVictim(victim, victimTower);
+            }
+
+            move(from, to);
+            Tower current = towers[to];
+            if (!current.isItQueen() && current.isItOnLastRow()) {
+                makeQueen(to);
+                undo.setPromoted();
+            }
+        }
+    }
+
+    /**
+     * Функция откатывает ход, сделанный makeMove
+     */
+    void unmakeMove(MoveBuffer moves, int idx, MoveUndo undo) {
+        int from = moves.getFrom(idx);
+        int to = moves.getTo(idx);
+
+        if (undo.isItPromoted()) {
+            unmakeQueen(to);
+        }
+        move(to, from);
+
+        Tower current = towers[from];
+        for (int victimIdx = undo.getVictimsCount() - 1; victimIdx >= 0; --victimIdx) {
+            int victim = undo.getVictim(victimIdx);
+            Tower victimTower = undo.getVictimTower(victimIdx);
+            if (towers[victim] == null) {
+                place(victim, victimTower);
+            }
+            current.unshiftChecker(victimTower);
+            refresh(victim);
+        }
+        refresh(from);
+    }
+
+    /**
+     * Функция обновляет маски и ключ поля после изменения башни
+     */
+    void refresh(int square) {
+        int bit = 1 << square;
+        white &= ~bit;
+        black &= ~bit;
+        key ^= towerKeys[square];
+        towerKeys[square] = 0;
+
+        Tower tower = towers[square];
+        if (tower == null || tower.isItEmptyTower()) {
+            return;
+        }
+        if (tower.getColor() == Color.WHITE) {
+            white |= bit;
+        } else {
+            black |= bit;
+        }
+        towerKeys[square] = Zobrist.getTowerKey(square, tower);
+        key ^= towerKeys[square];
+    }
+    //----------------------------------------------------------------------------------
+}
@@ -19,11 +19,10 @@ public final class Checker {
     }
 
     public static Cell getCellFromPos(String position) {
-        String positionLower = position.toLowerCase();
-        int x = positionLower.charAt(0) - 'a' + 1;
-        int y = positionLower.charAt(1) - '0';
+        int x = Character.toLowerCase(position.charAt(0)) - 'a' + 1;
+        int y = position.charAt(1) - '0';
 
-        return new Cell(x, y);
+        return Cell.valueOf(x, y);
     }
 
     public void setCell(Cell cell) {
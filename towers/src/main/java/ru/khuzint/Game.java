@@ -12,9 +12,14 @@ public final class Game {
     public static final int K_BOARD_SIZE = 8;
 
     /**
-     * Поле --- список башен
+     * Поле --- доска с башнями
      */
-    private final ArrayList<Tower> towers = new ArrayList<>();
+    private final Board board = new Board();
+
+    /**
+     * Поле --- количество шашек на доске, башня не может стать выше этого числа
+     */
+    private int checkersCount = 0;
     //----------------------------------------------------------------------------------
 
 
@@ -37,10 +42,41 @@ public final class Game {
      * @param move --- строка-описание хода башни
      */
     public void makeMove(String move) throws GameException {
-        if (move.contains("-")) {
-            makeSimpleMove(move);
+        makeMove(move, 0, move.length());
+    }
+
+    /**
+     * Функция чтобы сделать ход, записанный в части последовательности символов, например в буфере чтения.
+     * Ход разбирается без split и промежуточных строк, проверки и ошибки те же, что у строкового хода
+     *
+     * @param move  --- последовательность символов с описанием хода башни
+     * @param start --- индекс начала описания
+     * @param end   --- индекс конца описания, не включительно
+     */
+    public void makeMove(CharSequence move, int start, int end) throws GameException {
+        if (indexOf(move, '-', start, end) < end) {
+            makeSimpleMove(move, start, end);
         } else {
-            makeAttackMove(move);
+            makeAttackMove(move, start, end);
+        }
+    }
+
+    /**
+     * Функция чтобы сделать ход из буфера ходов, например найденный MoveGenerator.
+     * Ход проверяется так же, как и строковый
+     *
+     * @param moves --- буфер ходов
+     * @param idx   --- номер хода в буфере
+     */
+    public void makeMove(MoveBuffer moves, int idx) throws GameException {
+        if (!moves.isItAttack(idx)) {
+            makeSimpleMove(moves.getFrom(idx), moves.getTo(idx));
+            return;
+        }
+
+        int lastStep = moves.getPathLength(idx) - 1;
+        for (int step = 0; step < lastStep; ++step) {
+            makeAttackStep(moves.getSquare(idx, step), moves.getSquare(idx, step + 1));
         }
     }
 
@@ -51,33 +87,98 @@ public final class Game {
      * @return возвращает список строк-описаний башен
      */
     public String[] getTowersDescriptionByColor(Color color) {
-        var towersByColor = getTowersByColor(color);
-
         ArrayList<String> towersDescriptions = new ArrayList<>();
-        for (var tower : towersByColor) {
-            towersDescriptions.add(tower.getTowerDescription());
+        for (int rest = board.getMask(color); rest != 0; rest &= rest - 1) {
+            towersDescriptions.add(board.getTower(Integer.numberOfTrailingZeros(rest)).getTowerDescription());
         }
 
         Collections.sort(towersDescriptions);
         return towersDescriptions.toArray(new String[0]);
     }
+
+    /**
+     * Функция возвращает 64-битный ключ Зобриста позиции. Ключ обновляется за O(1) при каждом изменении доски,
+     * поэтому его можно брать после каждого хода, например для поиска повторений или кэша позиций.
+     * Ключ не учитывает, чей ход, и зависит от состава каждой башни
+     */
+    public long getZobristKey() {
+        return board.getKey();
+    }
+
+    /**
+     * Игры равны, если на досках одинаковые позиции
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Game)) {
+            return false;
+        }
+        return board.isItSamePosition(((Game) other).board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(board.getKey());
+    }
     //----------------------------------------------------------------------------------
 
 
     //------------for place towers------------------------------------------------------
 
     /**
-     * Функция чтобы положить башню на доску
+     * Функция чтобы положить башню на доску.
+     * Если поле уже занято, новая башня заменяет старую
      *
      * @param towerDescription --- строка-описание башни
      */
     private void placeTower(String towerDescription) throws GameException {
         checkCorrectInput(towerDescription, "[a-hA-H][1-8]_(w|W|b|B)+");
+        checkNotTooManyCheckers(towerDescription.length() - "a1_".length());
 
         Tower newTower = new Tower(towerDescription);
-
-        towers.add(newTower);
         checkValidCell(newTower.getCell());
+
+        replaceTower(getSquare(newTower.getCell()), newTower);
+    }
+
+    /**
+     * Функция чтобы положить уже разобранную башню на черное поле доски.
+     * Если поле уже занято, новая башня заменяет старую
+     *
+     * @param square --- номер поля
+     * @param colors --- битовая строка цветов шашек сверху вниз, 1 --- белая
+     * @param queens --- битовая строка дамок сверху вниз
+     * @param height --- высота башни
+     */
+    void placeTower(int square, long colors, long queens, int height) throws IncorrectInputException {
+        checkNotTooManyCheckers(height);
+
+        replaceTower(square, new Tower(colors, queens, height));
+    }
+
+    /**
+     * Функция ставит башню на поле вместо старой. Шашки старой башни уходят с доски,
+     * поэтому в счетчик шашек идет только разница высот
+     */
+    private void replaceTower(int square, Tower tower) throws IncorrectInputException {
+        Tower replaced = board.getTower(square);
+        int count = checkersCount + tower.getHeight() - (replaced == null ? 0 : replaced.getHeight());
+        checkNotTooManyCheckers(count);
+        checkersCount = count;
+
+        board.remove(square);
+        board.place(square, tower);
+    }
+
+    /**
+     * Функция убирает с доски все башни, чтобы переиспользовать игру для следующей партии
+     */
+    void clear() {
+        board.clear();
+        checkersCount = 0;
     }
     //----------------------------------------------------------------------------------
 
@@ -85,144 +186,165 @@ public final class Game {
     //------------for make move---------------------------------------------------------
 
     /**
-     * Функция чтобы сделать ход без атаки
+     * Функция чтобы сделать ход без атаки. Как и у move.split("-"), важны только описания
+     * до первого и до второго '-'
      *
-     * @param move --- строка-описание хода башни
+     * @param move  --- последовательность символов с описанием хода башни
+     * @param start --- индекс начала описания
+     * @param end   --- индекс конца описания, не включительно
      */
-    private void makeSimpleMove(String move) throws GameException {
-        String[] descriptions = move.split("-");
-        Cell from = Checker.getCellFromPos(descriptions[0].substring(0, 2));
-        Cell to = Checker.getCellFromPos(descriptions[1].substring(0, 2));
+    private void makeSimpleMove(CharSequence move, int start, int end) throws GameException {
+        int separator = indexOf(move, '-', start, end);
+        Cell from = getCellFromDescription(move, start, separator);
+        Cell to = getCellFromDescription(move, separator + 1, indexOf(move, '-', separator + 1, end));
 
         checkNotEmptyCell(from);
         checkEmptyCell(to);
+        makeSimpleMove(getSquare(from), getSquare(to));
+    }
 
-        Tower current = getTowerByCell(from);
-        ArrayList<Tower> currentTeam = getTowersByColor(current.getColor());
-        for (var tower : currentTeam) {
-            checkNotNeedAttack(tower);
-        }
+    /**
+     * Функция чтобы сделать ход без атаки между черными полями доски
+     *
+     * @param from --- номер поля, откуда башня перемещается
+     * @param to   --- номер поля, куда башня перемещается
+     */
+    private void makeSimpleMove(int from, int to) throws GameException {
+        checkNotEmptySquare(from);
+        checkEmptySquare(to);
+
+        checkNotNeedAttack(board.getColor(from));
         move(from, to, false);
     }
 
     /**
-     * Функия чтобы сделать ход с атакой
+     * Функия чтобы сделать ход с атакой. Как и у move.split(":"), пустые описания в конце хода пропускаются
      *
-     * @param move --- строка-описание хода башни
+     * @param move  --- последовательность символов с описанием хода башни
+     * @param start --- индекс начала описания
+     * @param end   --- индекс конца описания, не включительно
      */
-    private void makeAttackMove(String move) throws GameException {
-        String[] descriptions = move.split(":");
+    private void makeAttackMove(CharSequence move, int start, int end) throws GameException {
+        int lastEnd = end;
+        while (lastEnd > start && move.charAt(lastEnd - 1) == ':') {
+            lastEnd--;
+        }
 
-        int lastIdx = descriptions.length - 1;
-        for (int idx = 0; idx < lastIdx; ++idx) {
-            Cell from = Checker.getCellFromPos(descriptions[idx].substring(0, 2));
-            Cell to = Checker.getCellFromPos(descriptions[idx + 1].substring(0, 2));
+        int pos = start;
+        int separator = indexOf(move, ':', pos, lastEnd);
+        while (separator < lastEnd) {
+            int next = indexOf(move, ':', separator + 1, lastEnd);
+            Cell from = getCellFromDescription(move, pos, separator);
+            Cell to = getCellFromDescription(move, separator + 1, next);
 
             checkNotEmptyCell(from);
             checkEmptyCell(to);
+            makeAttackStep(getSquare(from), getSquare(to));
 
-            move(from, to, true);
+            pos = separator + 1;
+            separator = next;
         }
     }
 
+    /**
+     * Функция чтобы сделать одно перемещение атаки между черными полями доски
+     *
+     * @param from --- номер поля, откуда башня перемещается
+     * @param to   --- номер поля, куда башня перемещается
+     */
+    private void makeAttackStep(int from, int to) throws GameException {
+        checkNotEmptySquare(from);
+        checkEmptySquare(to);
+
+        move(from, to, true);
+    }
+
     /**
      * Функция чтобы сделать ход с одного поля на другое
      *
-     * @param from       --- поле, откуда башня перемещается
-     * @param to         --- поле, куда башня перемещается
+     * @param from       --- номер поля, откуда башня перемещается
+     * @param to         --- номер поля, куда башня перемещается
      * @param isItAttack --- булева переменная, true если перемещение является атакой, false иначе
      */
-    private void move(Cell from, Cell to, boolean isItAttack) throws GameException {
-        Tower current = getTowerByCell(from);
-        checkCorrectMove(current, to, isItAttack);
+    private void move(int from, int to, boolean isItAttack) throws GameException {
+        checkCorrectMove(from, to, isItAttack);
 
         if (isItAttack) {
             killTowerOnMove(from, to);
         }
 
-        current.setCell(to);
-        if (current.isItOnLastRow()) {
-            current.makeQueen();
+        board.move(from, to);
+        if (board.getTower(to).isItOnLastRow()) {
+            board.makeQueen(to);
         }
     }
 
     /**
-     * Функция, чтобы переместить все шашки, убитые за одно перемещение
+     * Функция, чтобы переместить все башни, убитые за одно перемещение
      *
-     * @param from --- поле, откуда башня перемещается
-     * @param to   --- поле, куда башня перемещается
+     * @param from --- номер поля, откуда башня перемещается
+     * @param to   --- номер поля, куда башня перемещается
      */
-    private void killTowerOnMove(Cell from, Cell to) throws GameException {
-        Tower current = getTowerByCell(from);
+    private void killTowerOnMove(int from, int to) throws GameException {
+        int victimSquare = checkCorrectKillAndReturnVictim(from, to);
+        Tower victim = board.getTower(victimSquare);
 
-        Tower victim = checkCorrectKillAndReturnVictim(current, to);
-        current.shiftChecker(victim);
+        board.getTower(from).shiftChecker(victim);
         if (victim.isItEmptyTower()) {
-            towers.remove(victim);
+            board.remove(victimSquare);
+        } else {
+            board.refresh(victimSquare);
         }
     }
     //----------------------------------------------------------------------------------
 
 
-    //------------for get towers--------------------------------------------------------
+    //------------for get checkers------------------------------------------------------
 
     /**
-     * Функция возвращает список башен по цвету
+     * Функция возвращает номер поля на битборде. Следует использовать для уже проверенных полей
      *
-     * @param color --- цвет башен, которые нужно вернуть
-     * @return возвращает список башен
+     * @param cell --- черное поле внутри доски
+     * @return возвращает номер поля
      */
-    private ArrayList<Tower> getTowersByColor(Color color) {
-        ArrayList<Tower> towersByColor = new ArrayList<>();
-        for (var current : towers) {
-            if (current.getColor() == color) {
-                towersByColor.add(current);
-            }
-        }
-
-        return towersByColor;
+    private static int getSquare(Cell cell) {
+        return cell.getSquare();
     }
 
     /**
-     * Функция, которая возращает башню на текущем поле или null
+     * Функция возвращает поле из описания башни, например "c3_wb" или "C3". Как и Checker.getCellFromPos,
+     * берет первые два символа и не проверяет поле
      *
-     * @param cell --- поле, с которого хотим получить башню
-     * @return возвращает башню на поле или null
+     * @param move  --- последовательность символов с описанием хода
+     * @param start --- индекс начала описания башни
+     * @param end   --- индекс конца описания башни, не включительно
+     * @return возвращает поле, возможно белое или вне доски
      */
-    private Tower getTowerByCellOrNull(Cell cell) {
-        for (var current : towers) {
-            if (Cell.equals(cell, current.getCell())) {
-                return current;
-            }
+    private static Cell getCellFromDescription(CharSequence move, int start, int end) {
+        if (end - start < 2) {
+            throw new IndexOutOfBoundsException("no cell in tower description");
         }
-
-        return null;
+        int x = Character.toLowerCase(move.charAt(start)) - 'a' + 1;
+        int y = move.charAt(start + 1) - '0';
+        return Cell.valueOf(x, y);
     }
 
     /**
-     * Функция, которая возвращает башню на текущем поле или выбрасывает исключение, если поле пусто.
-     * Следует использовать, когда уверены, что башня на поле есть
-     *
-     * @param cell --- поле, с которого хотим получить башню
-     * @return возвращает башню на поле
+     * Функция возвращает индекс первого символа value в [start, end) или end
      */
-    private Tower getTowerByCell(Cell cell) throws EmptyCellException {
-        var current = getTowerByCellOrNull(cell);
-        if (current == null) {
-            throw new EmptyCellException();
+    private static int indexOf(CharSequence move, char value, int start, int end) {
+        int pos = start;
+        while (pos < end && move.charAt(pos) != value) {
+            pos++;
         }
-        return current;
+        return pos;
     }
 
     /**
-     * Функция проверяет, есть ли на поле башня или нет
-     *
-     * @param cell --- поле для проверки
-     * @return возвращает true, если на поле есть башня, false иначе
+     * Функция возвращает доску для генератора ходов и поиска
      */
-    private boolean isItEmptyCell(Cell cell) {
-        var current = getTowerByCellOrNull(cell);
-        return current == null;
+    Board getBoard() {
+        return board;
     }
     //----------------------------------------------------------------------------------
 
@@ -242,6 +364,18 @@ public final class Game {
         }
     }
 
+    /**
+     * Функция проверяет, что башня из стольких шашек поместится в битовую строку.
+     * Проверяется и каждая башня, и все шашки доски: взятиями они могут собраться в одну башню
+     *
+     * @param count --- количество шашек
+     */
+    private static void checkNotTooManyCheckers(int count) throws IncorrectInputException {
+        if (count > Tower.K_MAX_HEIGHT) {
+            throw new IncorrectInputException();
+        }
+    }
+
     //------------about valid cell-------------------------------------------------------
 
     /**
@@ -277,9 +411,7 @@ public final class Game {
      */
     private void checkNotEmptyCell(Cell current) throws GameException {
         checkValidCell(current);
-        if (isItEmptyCell(current)) {
-            throw new EmptyCellException();
-        }
+        checkNotEmptySquare(getSquare(current));
     }
 
     /**
@@ -287,7 +419,23 @@ public final class Game {
      */
     private void checkEmptyCell(Cell current) throws GameException {
         checkValidCell(current);
-        if (!isItEmptyCell(current)) {
+        checkEmptySquare(getSquare(current));
+    }
+
+    /**
+     * Функция проверяет, что черное поле доски не пусто
+     */
+    private void checkNotEmptySquare(int square) throws EmptyCellException {
+        if (board.isItEmpty(square)) {
+            throw new EmptyCellException();
+        }
+    }
+
+    /**
+     * Функция проверяет, что черное поле доски пусто
+     */
+    private void checkEmptySquare(int square) throws BusyCellException {
+        if (!board.isItEmpty(square)) {
             throw new BusyCellException();
         }
     }
@@ -297,16 +445,14 @@ public final class Game {
     /**
      * Функция проверяет, что перемещение корректно (координатно)
      *
-     * @param current    --- башня, которая перемещается
-     * @param to         --- поле, куда башня должна переместиться
+     * @param from       --- номер поля, откуда башня перемещается
+     * @param to         --- номер поля, куда башня должна переместиться
      * @param isItAttack --- булева переменная, true если перемещение является атакой, false иначе
      */
-    private void checkCorrectMove(Tower current, Cell to, boolean isItAttack) throws IncorrectMoveException {
-        Cell from = current.getCell();
-
-        int xDiff = Math.abs(from.getX() - to.getX());
-        int yDiff = Math.abs(from.getY() - to.getY());
-        if (current.isItQueen()) {
+    private void checkCorrectMove(int from, int to, boolean isItAttack) throws IncorrectMoveException {
+        int xDiff = Math.abs(Board.getX(from) - Board.getX(to));
+        int yDiff = Math.abs(Board.getY(from) - Board.getY(to));
+        if (board.getTower(from).isItQueen()) {
             if (xDiff != yDiff) {
                 throw new IncorrectMoveException();
             }
@@ -319,143 +465,86 @@ public final class Game {
     }
 
     //------------about attack-----------------------------------------------------------
-    enum AttackStatus {
-        UNKNOWN,
-        POSSIBLE_ATTACK,
-        IMPOSSIBLE_ATTACK
-    }
 
     /**
-     * Функция, чтобы узнать, может ли башня атаковать или нет
+     * Функция проверяет, должна ли башня атаковать в направлении.
+     * Атака возможна, если на луче встретилась башня, за которой пустое поле, и эта башня --- чужая.
+     * Простая башня смотрит только на соседнее поле, башня-дамка --- вдоль всего луча
      *
-     * @param current    --- башня, которую проверяем на атаку
-     * @param victimCell --- поле, которое хотим атаковать
-     * @param nextCell   --- поле, на которое встанем после атаки
-     * @return возвращает
-     * POSSIBLE_ATTACK, если атака возможна
-     * IMPOSSIBLE_ATTACK, если атака невозможна в этом направлении
-     * UNKNOWN, если атака невозможна сейчас, но возможна далее в этом направлении
-     */
-    private AttackStatus getAttackStatus(Tower current, Cell victimCell, Cell nextCell) throws GameException {
-        if (!nextCell.isItValidCell()) {
-            return AttackStatus.IMPOSSIBLE_ATTACK;
-        }
-        if (!isItEmptyCell(victimCell) && isItEmptyCell(nextCell)) {
-            if (getTowerByCell(victimCell).getColor() == current.getColor()) {
-                return AttackStatus.IMPOSSIBLE_ATTACK;
-            } else {
-                return AttackStatus.POSSIBLE_ATTACK;
+     * @param square    --- номер поля башни, которую проверяем на атаку
+     * @param direction --- номер направления, в котором проверяем на атаку
+     * @param enemy     --- маска шашек соперника
+     * @return возвращает true, если башня должна атаковать
+     */
+    private boolean isItNeedAttackInDirection(int square, int direction, int enemy) {
+        int occupied = board.getOccupied();
+        int[] ray = Board.getRay(square, direction);
+
+        int lastIdx = board.getTower(square).isItQueen() ? ray.length - 1 : Math.min(1, ray.length - 1);
+        for (int idx = 0; idx < lastIdx; ++idx) {
+            int victimBit = 1 << ray[idx];
+            int nextBit = 1 << ray[idx + 1];
+            if ((occupied & victimBit) != 0 && (occupied & nextBit) == 0) {
+                return (enemy & victimBit) != 0;
             }
         }
-        return AttackStatus.UNKNOWN;
+        return false;
     }
 
     /**
-     * Функция проверяет, что башня не должна атаковать в направлении
+     * Функция проверяет, должна ли хотя бы одна башня цвета атаковать
      *
-     * @param current   --- башня, которую проверяем на атаку
-     * @param direction --- направление, в котором проверяем на атаку,
-     *                  это поле типа Cell с координатами, по модулю равными 1
+     * @param color --- цвет шашек, которые проверяем на атаку
+     * @return возвращает true, если простой ход сейчас запрещен
      */
-    private void checkNotNeedAttackInDirection(Tower current, Cell direction) throws GameException {
-        Cell currentCell = current.getCell();
-        Cell victimCell = Cell.makeStepInDirectionAndReturnNew(currentCell, direction);
-        Cell nextCell = Cell.makeStepInDirectionAndReturnNew(victimCell, direction);
-
-        var status = getAttackStatus(current, victimCell, nextCell);
-        if (status == AttackStatus.IMPOSSIBLE_ATTACK) {
-            return;
-        }
-        if (status == AttackStatus.POSSIBLE_ATTACK) {
-            throw new NeedAttackException();
-        }
-
-        if (current.isItQueen()) {
-            victimCell = nextCell;
-            nextCell = Cell.makeStepInDirectionAndReturnNew(victimCell, direction);
-            while (nextCell.isItValidCell()) {
-                status = getAttackStatus(current, victimCell, nextCell);
-                if (status == AttackStatus.IMPOSSIBLE_ATTACK) {
-                    return;
-                }
-                if (status == AttackStatus.POSSIBLE_ATTACK) {
-                    throw new NeedAttackException();
+    boolean isItNeedAttack(Color color) {
+        int enemy = board.getOccupied() & ~board.getMask(color);
+        for (int rest = board.getMask(color); rest != 0; rest &= rest - 1) {
+            int square = Integer.numberOfTrailingZeros(rest);
+            for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+                if (isItNeedAttackInDirection(square, direction, enemy)) {
+                    return true;
                 }
-                victimCell = nextCell;
-                nextCell = Cell.makeStepInDirectionAndReturnNew(victimCell, direction);
             }
         }
+        return false;
     }
 
     /**
-     * Функция проверяет, что башня не должна атаковать
+     * Функция проверяет, что ни одна башня цвета не должна атаковать
      *
-     * @param current --- башня, которую проверяем на атаку
+     * @param color --- цвет шашек, которые проверяем на атаку
      */
-    private void checkNotNeedAttack(Tower current) throws GameException {
-        Cell topLeft = new Cell(-1, +1);
-        Cell topRight = new Cell(+1, +1);
-        Cell downLeft = new Cell(-1, -1);
-        Cell downRight = new Cell(+1, -1);
-
-
-        checkNotNeedAttackInDirection(current, topLeft);
-        checkNotNeedAttackInDirection(current, topRight);
-        checkNotNeedAttackInDirection(current, downLeft);
-        checkNotNeedAttackInDirection(current, downRight);
+    private void checkNotNeedAttack(Color color) throws NeedAttackException {
+        if (isItNeedAttack(color)) {
+            throw new NeedAttackException();
+        }
     }
 
     //------------about kill------------------------------------------------------------
 
     /**
-     * Функция проверяет, что атака корректна и возвращает убитую башню
+     * Функция проверяет, что атака корректна и возвращает поле убитой башни.
+     * Между from и to должна стоять ровно одна чужая башня и ни одной своей
      *
-     * @param current --- атакующая башня
-     * @param to      --- поле, на которое атакующая башня переместится
-     * @return возвращает убитую башню или выбрасывает исключение
+     * @param from --- номер поля атакующей башни
+     * @param to   --- номер поля, на которое атакующая башня переместится
+     * @return возвращает номер поля убитой башни или выбрасывает исключение
      */
-    private Tower checkCorrectKillAndReturnVictim(Tower current, Cell to) throws GameException {
-        Cell from = current.getCell();
-
-        int xDiff = to.getX() - from.getX();
-        int yDiff = to.getY() - from.getY();
+    private int checkCorrectKillAndReturnVictim(int from, int to) throws GameException {
+        int between = Board.getBetween(from, to);
+        int own = board.getMask(board.getColor(from));
 
-        int xStep = xDiff / Math.abs(xDiff);
-        int yStep = yDiff / Math.abs(yDiff);
-
-        int xVictim = to.getX() - xStep;
-        int yVictim = to.getY() - yStep;
-        Cell victimCell = new Cell(xVictim, yVictim);
-
-        if (!current.isItQueen()) {
-            if (isItEmptyCell(victimCell)) {
-                throw new IncorrectMoveException();
-            }
-            if (getTowerByCell(victimCell).getColor() == current.getColor()) {
-                throw new KillFriendException();
-            }
-        } else {
-            int countOfVictims = 0;
-            for (int x = from.getX() + xStep, y = from.getY() + yStep;
-                 x != to.getX() && y != to.getY(); x += xStep, y += yStep) {
-                Cell nextCell = new Cell(x, y);
-                if (!isItEmptyCell(nextCell)) {
-                    Tower nextChecker = getTowerByCell(nextCell);
-                    if (nextChecker.getColor() == current.getColor()) {
-                        throw new KillFriendException();
-                    } else {
-                        countOfVictims++;
-                        victimCell = nextCell;
-                    }
-                }
-            }
-            if (countOfVictims != 1) {
-                throw new IncorrectMoveException();
-            }
+        if ((between & own) != 0) {
+            throw new KillFriendException();
+        }
 
+        int victims = between & board.getOccupied();
+        if (Integer.bitCount(victims) != 1) {
+            throw new IncorrectMoveException();
         }
 
-        return getTowerByCell(victimCell);
+        return Integer.numberOfTrailingZeros(victims);
     }
     //----------------------------------------------------------------------------------
 }
@@ -0,0 +1,115 @@
+package ru.khuzint;
+
+import java.util.Arrays;
+
+/**
+ * Класс буфер ходов. Хранит ходы без создания объектов: пути всех ходов лежат подряд в одном массиве int.
+ * Путь хода --- номера полей доски от начального до конечного.
+ * Буфер переиспользуется: clear() не освобождает память, массивы только растут
+ */
+public final class MoveBuffer {
+    /**
+     * Константное поле начальной вместимости буфера в ходах
+     */
+    private static final int K_INITIAL_CAPACITY = 64;
+
+    /**
+     * Пути всех ходов подряд
+     */
+    private int[] squares = new int[K_INITIAL_CAPACITY * 2];
+
+    /**
+     * ends[idx] --- индекс в squares сразу за последним полем хода idx
+     */
+    private int[] ends = new int[K_INITIAL_CAPACITY];
+
+    /**
+     * attacks[idx] --- true, если ход idx является атакой
+     */
+    private boolean[] attacks = new boolean[K_INITIAL_CAPACITY];
+
+    private int size;
+
+    //------------API-------------------------------------------------------------------
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isItAttack(int idx) {
+        return attacks[idx];
+    }
+
+    /**
+     * Функция возвращает количество полей в пути хода, для простого хода --- 2
+     */
+    public int getPathLength(int idx) {
+        return ends[idx] - getStart(idx);
+    }
+
+    /**
+     * Функция возвращает номер поля на шаге step пути хода idx
+     */
+    public int getSquare(int idx, int step) {
+        return squares[getStart(idx) + step];
+    }
+
+    public int getFrom(int idx) {
+        return squares[getStart(idx)];
+    }
+
+    public int getTo(int idx) {
+        return squares[ends[idx] - 1];
+    }
+
+    /**
+     * Функция возвращает строку-описание хода в формате makeMove, например "c3-d4" или "c3:e5:c7"
+     */
+    public String getMoveString(int idx) {
+        StringBuilder move = new StringBuilder();
+        for (int pos = getStart(idx); pos < ends[idx]; ++pos) {
+            if (pos != getStart(idx)) {
+                move.append(attacks[idx] ? ':' : '-');
+            }
+            move.append((char) ('a' + Board.getX(squares[pos]) - 1));
+            move.append((char) ('0' + Board.getY(squares[pos])));
+        }
+        return move.toString();
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------for generator---------------------------------------------------------
+
+    /**
+     * Функция добавляет ход в буфер
+     *
+     * @param path       --- массив с путем хода
+     * @param length     --- количество полей в пути
+     * @param isItAttack --- true, если ход является атакой
+     */
+    void add(int[] path, int length, boolean isItAttack) {
+        int start = getStart(size);
+        if (size == ends.length) {
+            ends = Arrays.copyOf(ends, size * 2);
+            attacks = Arrays.copyOf(attacks, size * 2);
+        }
+        if (start + length > squares.length) {
+            squares = Arrays.copyOf(squares, Math.max(squares.length * 2, start + length));
+        }
+
+        System.arraycopy(path, 0, squares, start, length);
+        ends[size] = start + length;
+        attacks[size] = isItAttack;
+        size++;
+    }
+
+    private int getStart(int idx) {
+        return idx == 0 ? 0 : ends[idx - 1];
+    }
+    //----------------------------------------------------------------------------------
+}
@@ -0,0 +1,253 @@
+package ru.khuzint;
+
+/**
+ * Класс генератор ходов. Перечисляет все разрешенные ходы позиции в переиспользуемый MoveBuffer.
+ * Правила те же, что проверяет Game:
+ * - если есть атака, можно только атаковать, и атака продолжается, пока есть кого бить;
+ * - иначе простой ход разрешен, только если Game не требует атаки (checkNotNeedAttack);
+ * - побитая шашка сразу уходит под бьющую башню, башня без шашек снимается с доски;
+ *   простая башня, дошедшая до последней горизонтали во время атаки, продолжает бить как дамка;
+ * - башня-дамка бьет на любом расстоянии, если между полями ровно одна чужая башня и нет своих,
+ *   и если после взятия можно продолжить атаку, то встает только на такие поля;
+ * - одну и ту же башню нельзя бить дважды за ход.
+ * Простые башни, как и в Game (checkCorrectMove), ходят и бьют на соседнее поле в обе стороны.
+ * Во время перебора атак генератор делает и откатывает взятия прямо на доске игры,
+ * поэтому одновременно с ним доску менять нельзя. Генератор не создает объектов во время работы
+ */
+public final class MoveGenerator {
+    private final Game game;
+    private final Board board;
+
+    /**
+     * Путь текущей атаки
+     */
+    private final int[] path = new int[Board.K_SQUARES + 1];
+
+    /**
+     * Маска башен, уже побитых в текущей атаке
+     */
+    private int captured;
+
+    private Color color;
+    private Color enemyColor;
+    private MoveBuffer moves;
+
+    public MoveGenerator(Game game) {
+        this.game = game;
+        this.board = game.getBoard();
+    }
+
+    //------------API-------------------------------------------------------------------
+
+    /**
+     * Функция записывает в буфер все разрешенные ходы шашек цвета
+     *
+     * @param currentColor --- цвет шашек, которые ходят
+     * @param buffer       --- буфер, куда записываются ходы, предварительно очищается
+     * @return возвращает количество ходов
+     */
+    public int generate(Color currentColor, MoveBuffer buffer) {
+        this.color = currentColor;
+        this.enemyColor = currentColor == Color.WHITE ? Color.BLACK : Color.WHITE;
+        this.moves = buffer;
+        buffer.clear();
+
+        generateAttacks();
+        if (buffer.size() == 0 && !game.isItNeedAttack(currentColor)) {
+            generateSimpleMoves();
+        }
+
+        this.moves = null;
+        return buffer.size();
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------simple moves----------------------------------------------------------
+
+    /**
+     * Функция добавляет все простые ходы: башни на соседнее свободное поле в любую сторону,
+     * дамки на любое свободное поле диагонали
+     */
+    private void generateSimpleMoves() {
+        int occupied = board.getOccupied();
+        for (int rest = board.getMask(color); rest != 0; rest &= rest - 1) {
+            int square = Integer.numberOfTrailingZeros(rest);
+            boolean isItQueen = board.getTower(square).isItQueen();
+            path[0] = square;
+
+            for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+                int[] ray = Board.getRay(square, direction);
+                int lastIdx = isItQueen ? ray.length : Math.min(1, ray.length);
+                for (int idx = 0; idx < lastIdx && (occupied & 1 << ray[idx]) == 0; ++idx) {
+                    path[1] = ray[idx];
+                    moves.add(path, 2, false);
+                }
+            }
+        }
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------attacks---------------------------------------------------------------
+
+    /**
+     * Функция добавляет все атаки, которые нельзя продолжить
+     */
+    private void generateAttacks() {
+        captured = 0;
+        for (int rest = board.getMask(color); rest != 0; rest &= rest - 1) {
+            int square = Integer.numberOfTrailingZeros(rest);
+            path[0] = square;
+            searchAttacks(square, 1);
+        }
+    }
+
+    /**
+     * Функция ищет индекс чужой башни, которую можно побить по лучу, или -1.
+     * Простая башня бьет только соседнюю, дамка --- первую встреченную
+     */
+    private int getVictimIdx(int[] ray, boolean isItQueen) {
+        int idx = 0;
+        if (isItQueen) {
+            while (idx < ray.length && board.isItEmpty(ray[idx])) {
+                idx++;
+            }
+        }
+        if (idx + 1 >= ray.length || !board.isItEmpty(ray[idx + 1])) {
+            return -1;
+        }
+
+        int victimBit = 1 << ray[idx];
+        if ((board.getMask(enemyColor) & victimBit) == 0 || (captured & victimBit) != 0) {
+            return -1;
+        }
+        return idx;
+    }
+
+    /**
+     * Функция проверяет, может ли башня на поле атаковать в текущей позиции
+     */
+    private boolean canAttack(int square) {
+        boolean isItQueen = board.getTower(square).isItQueen();
+        for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+            if (getVictimIdx(Board.getRay(square, direction), isItQueen) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Функция делает взятие: забирает верхнюю шашку жертвы под башню, перемещает башню
+     * и превращает ее в дамку на последней горизонтали
+     *
+     * @return возвращает true, если башня стала дамкой
+     */
+    private boolean makeAttackStep(int from, int victim, int to) {
+        Tower current = board.getTower(from);
+        Tower victimTower = board.getTower(victim);
+
+        current.shiftChecker(victimTower);
+        if (victimTower.isItEmptyTower()) {
+            board.remove(victim);
+        } else {
+            board.refresh(victim);
+        }
+        captured |= 1 << victim;
+        board.move(from, to);
+
+        if (!current.isItQueen() && current.isItOnLastRow()) {
+            board.makeQueen(to);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Функция откатывает взятие, сделанное makeAttackStep
+     */
+    private void unmakeAttackStep(int from, Tower victimTower, int victim, int to, boolean isItPromoted) {
+        if (isItPromoted) {
+            board.unmakeQueen(to);
+        }
+        board.move(to, from);
+
+        Tower current = board.getTower(from);
+        captured &= ~(1 << victim);
+        if (board.isItEmpty(victim)) {
+            board.place(victim, victimTower);
+        }
+        current.unshiftChecker(victimTower);
+        board.refresh(victim);
+        board.refresh(from);
+    }
+
+    /**
+     * Функция перебирает продолжения атаки из поля и добавляет в буфер законченные атаки
+     *
+     * @param square --- поле, на котором стоит атакующая башня
+     * @param depth  --- количество полей в текущем пути
+     */
+    private void searchAttacks(int square, int depth) {
+        boolean isItQueen = board.getTower(square).isItQueen();
+
+        for (int direction = 0; direction < Board.K_DIRECTIONS; ++direction) {
+            int[] ray = Board.getRay(square, direction);
+            int victimIdx = getVictimIdx(ray, isItQueen);
+            if (victimIdx == -1) {
+                continue;
+            }
+
+            int firstIdx = victimIdx + 1;
+            int lastIdx = firstIdx + 1;
+            if (isItQueen) {
+                while (lastIdx < ray.length && board.isItEmpty(ray[lastIdx])) {
+                    lastIdx++;
+                }
+            }
+
+            boolean canContinue = false;
+            for (int idx = firstIdx; idx < lastIdx; ++idx) {
+                canContinue |= canContinueAfterAttackStep(square, ray[victimIdx], ray[idx]);
+            }
+            for (int idx = firstIdx; idx < lastIdx; ++idx) {
+                expandAttackStep(square, ray[victimIdx], ray[idx], depth, canContinue);
+            }
+        }
+    }
+
+    /**
+     * Функция проверяет, можно ли продолжить атаку после взятия
+     */
+    private boolean canContinueAfterAttackStep(int from, int victim, int to) {
+        Tower victimTower = board.getTower(victim);
+
+        boolean isItPromoted = makeAttackStep(from, victim, to);
+        boolean canContinue = canAttack(to);
+
+        unmakeAttackStep(from, victimTower, victim, to, isItPromoted);
+        return canContinue;
+    }
+
+    /**
+     * Функция делает взятие, перебирает продолжения и откатывает взятие обратно
+     *
+     * @param isItNeedContinue --- true, если атаку обязательно продолжать: поле без продолжения пропускается,
+     *                         false, если продолжения нет ни с одного поля и атака здесь заканчивается
+     */
+    private void expandAttackStep(int from, int victim, int to, int depth, boolean isItNeedContinue) {
+        Tower victimTower = board.getTower(victim);
+
+        boolean isItPromoted = makeAttackStep(from, victim, to);
+        path[depth] = to;
+        if (!isItNeedContinue) {
+            moves.add(path, depth + 1, true);
+        } else if (canAttack(to)) {
+            searchAttacks(to, depth + 1);
+        }
+
+        unmakeAttackStep(from, victimTower, victim, to, isItPromoted);
+    }
+    //----------------------------------------------------------------------------------
+}
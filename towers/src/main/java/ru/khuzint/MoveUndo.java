@@ -0,0 +1,43 @@
+package ru.khuzint;
+
+/**
+ * Класс для отката хода, сделанного Board.makeMove. Хранит побитые башни в порядке взятия
+ * и то, стала ли башня дамкой. Один объект переиспользуется на каждой глубине перебора
+ */
+final class MoveUndo {
+    private final int[] victims = new int[Board.K_SQUARES];
+    private final Tower[] victimTowers = new Tower[Board.K_SQUARES];
+    private int victimsCount;
+    private boolean isItPromoted;
+
+    void clear() {
+        victimsCount = 0;
+        isItPromoted = false;
+    }
+
+    void addVictim(int square, Tower tower) {
+        victims[victimsCount] = square;
+        victimTowers[victimsCount] = tower;
+        victimsCount++;
+    }
+
+    int getVictimsCount() {
+        return victimsCount;
+    }
+
+    int getVictim(int idx) {
+        return victims[idx];
+    }
+
+    Tower getVictimTower(int idx) {
+        return victimTowers[idx];
+    }
+
+    void setPromoted() {
+        isItPromoted = true;
+    }
+
+    boolean isItPromoted() {
+        return isItPromoted;
+    }
+}
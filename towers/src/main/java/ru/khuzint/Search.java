@@ -0,0 +1,188 @@
+package ru.khuzint;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Класс параллельного поиска лучшего хода: итеративное углубление alpha-beta (negamax) в нескольких потоках
+ * с общей таблицей транспозиций по ключам Зобриста (схема Lazy SMP, потоки --- SearchWorker).
+ * Потоки работают в собственном ForkJoinPool, каждый на своей копии позиции, поэтому игра во время поиска
+ * не меняется. Ход выбирается по потоку, полностью прошедшему наибольшую глубину
+ */
+public final class Search implements AutoCloseable {
+    /**
+     * Константное поле оценки выигрыша: у соперника нет ходов. Выигрыш через ply полуходов оценивается K_WIN - ply
+     */
+    public static final int K_WIN = 100_000;
+
+    /**
+     * Константное поле максимальной глубины перебора в полуходах, включая продолжения взятий
+     */
+    public static final int K_MAX_PLY = 128;
+
+    static final int K_INFINITY = 1_000_000;
+
+    private static final int K_DEFAULT_TABLE_SIZE_LOG = 20;
+    private static final long K_NANOS_IN_MILLI = 1_000_000L;
+
+    private final Board board;
+    private final TranspositionTable table;
+    private final SearchWorker[] workers;
+    private final ForkJoinPool pool;
+
+    private volatile boolean isItStopped;
+    private long deadline;
+
+    private long nodes;
+    private int depth;
+    private int score;
+
+    /**
+     * Поиск на всех доступных ядрах
+     */
+    public Search(Game game) {
+        this(game, Runtime.getRuntime().availableProcessors());
+    }
+
+    public Search(Game game, int threads) {
+        this(game, threads, K_DEFAULT_TABLE_SIZE_LOG);
+    }
+
+    /**
+     * @param game         --- игра, в позиции которой ищется ход
+     * @param threads      --- количество потоков поиска
+     * @param tableSizeLog --- двоичный логарифм количества записей таблицы транспозиций
+     */
+    public Search(Game game, int threads, int tableSizeLog) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+
+        this.board = game.getBoard();
+        this.table = new TranspositionTable(tableSizeLog);
+        this.workers = new SearchWorker[threads];
+        for (int id = 0; id < threads; ++id) {
+            workers[id] = new SearchWorker(this, table, id);
+        }
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    //------------API-------------------------------------------------------------------
+
+    /**
+     * Функция ищет лучший ход, углубляя перебор, пока не кончится время
+     *
+     * @param color            --- цвет, который ходит
+     * @param timeBudgetMillis --- время на поиск в миллисекундах
+     * @return возвращает строку-описание хода в формате Game.makeMove или null, если ходов нет
+     */
+    public String bestMove(Color color, long timeBudgetMillis) {
+        return bestMove(color, timeBudgetMillis, K_MAX_PLY - 1);
+    }
+
+    /**
+     * Функция ищет лучший ход, углубляя перебор, пока не кончится время или главный поток не пройдет глубину
+     * maxDepth. Если время кончилось до конца первой итерации, возвращается первый ход генератора
+     *
+     * @param color            --- цвет, который ходит
+     * @param timeBudgetMillis --- время на поиск в миллисекундах
+     * @param maxDepth         --- максимальная глубина в полуходах
+     * @return возвращает строку-описание хода в формате Game.makeMove или null, если ходов нет
+     */
+    public String bestMove(Color color, long timeBudgetMillis, int maxDepth) {
+        isItStopped = false;
+        deadline = System.nanoTime() + Math.min(timeBudgetMillis, Long.MAX_VALUE / 2 / K_NANOS_IN_MILLI)
+                * K_NANOS_IN_MILLI;
+
+        int count = 0;
+        for (SearchWorker worker : workers) {
+            count = worker.prepare(board, color, Math.min(maxDepth, K_MAX_PLY - 1));
+        }
+        if (count == 0) {
+            nodes = 0;
+            depth = 0;
+            score = -K_WIN;
+            return null;
+        }
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers.length];
+        for (int id = 0; id < workers.length; ++id) {
+            tasks[id] = ForkJoinTask.adapt(workers[id]);
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        SearchWorker best = workers[0];
+        nodes = 0;
+        for (SearchWorker worker : workers) {
+            nodes += worker.getNodes();
+            if (worker.getDepth() > best.getDepth()) {
+                best = worker;
+            }
+        }
+        depth = best.getDepth();
+        score = best.getScore();
+        return best.getBestMove();
+    }
+
+    /**
+     * Функция возвращает количество узлов, пройденных всеми потоками за последний поиск
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Функция возвращает наибольшую глубину, полностью пройденную одним из потоков за последний поиск
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Функция возвращает оценку лучшего хода последнего поиска с точки зрения ходящего цвета
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Функция очищает таблицу транспозиций, например перед новой партией
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Функция останавливает потоки пула
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------for workers-----------------------------------------------------------
+
+    boolean isItStopped() {
+        return isItStopped;
+    }
+
+    void stop() {
+        isItStopped = true;
+    }
+
+    /**
+     * Функция останавливает поиск, если время вышло
+     */
+    void checkTime() {
+        if (System.nanoTime() > deadline) {
+            isItStopped = true;
+        }
+    }
+    //----------------------------------------------------------------------------------
+}
@@ -0,0 +1,48 @@
+package ru.khuzint;
+
+/**
+ * Команда замера масштабирования параллельного поиска: ищет ход из начальной позиции на фиксированную глубину
+ * с 1, 2, ..., N потоками (после прогрева JIT) и печатает время до глубины, узлы в секунду
+ * и ускорение относительно одного потока
+ */
+public final class SearchScaling {
+    private static final int K_DEFAULT_DEPTH = 10;
+    private static final long K_NANOS_IN_SECOND = 1_000_000_000L;
+    private static final long K_NANOS_IN_MILLI = 1_000_000L;
+    private static final long K_WARMUP_MILLIS = 2_000;
+
+    private SearchScaling() {
+    }
+
+    /**
+     * Команда: args[0] --- глубина, args[1] --- наибольшее количество потоков, по умолчанию количество ядер
+     */
+    public static void main(String[] args) throws GameException {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : K_DEFAULT_DEPTH;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Game game = Perft.createStartGame();
+        try (Search warmup = new Search(game, 1)) {
+            warmup.bestMove(Color.WHITE, K_WARMUP_MILLIS);
+        }
+
+        long singleTime = 0;
+        for (int threads = 1; threads <= maxThreads; ++threads) {
+            try (Search search = new Search(game, threads)) {
+                long start = System.nanoTime();
+                String move = search.bestMove(Color.WHITE, Long.MAX_VALUE, depth);
+                long time = Math.max(System.nanoTime() - start, 1);
+                if (threads == 1) {
+                    singleTime = time;
+                }
+
+                System.out.println("threads " + threads + ": depth " + search.getDepth() + ", "
+                        + time / K_NANOS_IN_MILLI + " ms, "
+                        + search.getNodes() + " nodes, "
+                        + search.getNodes() * K_NANOS_IN_SECOND / time + " nodes/sec, "
+                        + "speedup " + String.format("%.2f", (double) singleTime / time) + ", "
+                        + "move " + move);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package ru.khuzint;
+
+/**
+ * Класс потока поиска. У каждого потока своя копия доски, свой генератор и свои буферы ходов,
+ * общие у всех потоков только таблица транспозиций и флаг остановки в Search (схема Lazy SMP).
+ * Потоки ищут одну и ту же позицию итеративным углублением alpha-beta и помогают друг другу через таблицу:
+ * вспомогательные потоки начинают с разной глубины и перебирают ходы корня в другом порядке
+ */
+final class SearchWorker implements Runnable {
+    private static final int K_MAN = 100;
+    private static final int K_QUEEN = 300;
+    private static final int K_PRISONER = 30;
+
+    /**
+     * Время и флаг остановки проверяются раз в K_CHECK_MASK + 1 узлов
+     */
+    private static final long K_CHECK_MASK = 0x3FF;
+
+    private final Search search;
+    private final TranspositionTable table;
+    private final int id;
+
+    private final Game game = new Game();
+    private final Board board = game.getBoard();
+    private final MoveGenerator generator = new MoveGenerator(game);
+    private final MoveBuffer[] buffers = new MoveBuffer[Search.K_MAX_PLY];
+    private final MoveUndo[] undos = new MoveUndo[Search.K_MAX_PLY];
+
+    private Color color;
+    private int maxDepth;
+
+    private long nodes;
+    private int bestIdx;
+    private int depth;
+    private int score;
+
+    /**
+     * @param search --- поиск, которому принадлежит поток
+     * @param table  --- общая таблица транспозиций
+     * @param id     --- номер потока, 0 --- главный поток
+     */
+    SearchWorker(Search search, TranspositionTable table, int id) {
+        this.search = search;
+        this.table = table;
+        this.id = id;
+
+        for (int ply = 0; ply < Search.K_MAX_PLY; ++ply) {
+            buffers[ply] = new MoveBuffer();
+            undos[ply] = new MoveUndo();
+        }
+    }
+
+    //------------for search------------------------------------------------------------
+
+    /**
+     * Функция готовит поток к поиску: копирует позицию и генерирует ходы корня
+     *
+     * @return возвращает количество ходов корня
+     */
+    int prepare(Board position, Color currentColor, int currentMaxDepth) {
+        board.copyFrom(position);
+        this.color = currentColor;
+        this.maxDepth = currentMaxDepth;
+        nodes = 0;
+        bestIdx = 0;
+        depth = 0;
+        score = 0;
+        return generator.generate(currentColor, buffers[0]);
+    }
+
+    /**
+     * Функция итеративного углубления. Главный поток по окончании останавливает остальные
+     */
+    @Override
+    public void run() {
+        int count = buffers[0].size();
+        int firstDepth = 1 + id % 2;
+        for (int currentDepth = firstDepth; currentDepth <= maxDepth && count > 1; ++currentDepth) {
+            int firstIdx = depth == 0 ? id % count : bestIdx;
+            int rootIdx = searchRoot(currentDepth, firstIdx);
+            if (search.isItStopped()) {
+                break;
+            }
+
+            bestIdx = rootIdx;
+            depth = currentDepth;
+            if (Math.abs(score) >= Search.K_WIN - Search.K_MAX_PLY) {
+                break;
+            }
+        }
+
+        if (id == 0) {
+            search.stop();
+        }
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    int getScore() {
+        return score;
+    }
+
+    String getBestMove() {
+        return buffers[0].getMoveString(bestIdx);
+    }
+    //----------------------------------------------------------------------------------
+
+
+    //------------alpha-beta------------------------------------------------------------
+
+    private static Color getNext(Color current) {
+        return current == Color.WHITE ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * Функция перебирает ходы корня, начиная с firstIdx
+     *
+     * @return возвращает номер лучшего хода, его оценка записывается в score
+     */
+    private int searchRoot(int currentDepth, int firstIdx) {
+        MoveBuffer moves = buffers[0];
+        int alpha = -Search.K_INFINITY;
+        int rootIdx = firstIdx;
+
+        for (int order = -1; order < moves.size(); ++order) {
+            int idx = order == -1 ? firstIdx : order;
+            if (order == firstIdx) {
+                continue;
+            }
+
+            board.makeMove(moves, idx, undos[0]);
+            int value = -alphaBeta(getNext(color), currentDepth - 1, 1, -Search.K_INFINITY, -alpha);
+            board.unmakeMove(moves, idx, undos[0]);
+            if (search.isItStopped()) {
+                return rootIdx;
+            }
+
+            if (value > alpha) {
+                alpha = value;
+                rootIdx = idx;
+            }
+        }
+
+        score = alpha;
+        return rootIdx;
+    }
+
+    /**
+     * Функция alpha-beta перебора
+     *
+     * @param current --- цвет, который ходит
+     * @param rest    --- оставшаяся глубина
+     * @param ply     --- расстояние от корня в полуходах
+     * @return возвращает оценку позиции с точки зрения ходящего цвета
+     */
+    private int alphaBeta(Color current, int rest, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes & K_CHECK_MASK) == 0) {
+            search.checkTime();
+        }
+        if (search.isItStopped()) {
+            return 0;
+        }
+
+        MoveBuffer moves = buffers[ply];
+        int count = generator.generate(current, moves);
+        if (count == 0) {
+            return -Search.K_WIN + ply;
+        }
+        if (rest <= 0 && !moves.isItAttack(0) || ply == Search.K_MAX_PLY - 1) {
+            return evaluate(current);
+        }
+
+        long key = board.getKey() ^ Zobrist.getSideKey(current);
+        int depthToStore = Math.max(rest, 0);
+        long entry = table.probe(key);
+        int tableIdx = -1;
+        if (entry != 0) {
+            tableIdx = TranspositionTable.getMove(entry) < count ? TranspositionTable.getMove(entry) : -1;
+            if (TranspositionTable.getDepth(entry) >= depthToStore) {
+                int value = fromTable(TranspositionTable.getScore(entry), ply);
+                int flag = TranspositionTable.getFlag(entry);
+                if (flag == TranspositionTable.K_EXACT
+                        || flag == TranspositionTable.K_LOWER && value >= beta
+                        || flag == TranspositionTable.K_UPPER && value <= alpha) {
+                    return value;
+                }
+            }
+        }
+
+        int startAlpha = alpha;
+        int bestValue = -Search.K_INFINITY;
+        int bestMove = -1;
+        for (int order = -1; order < count; ++order) {
+            int idx = order == -1 ? tableIdx : order;
+            if (idx == -1 || order != -1 && idx == tableIdx) {
+                continue;
+            }
+
+            board.makeMove(moves, idx, undos[ply]);
+            int value = -alphaBeta(getNext(current), rest - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove(moves, idx, undos[ply]);
+            if (search.isItStopped()) {
+                return 0;
+            }
+
+            if (value > bestValue) {
+                bestValue = value;
+                bestMove = idx;
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int flag = TranspositionTable.K_EXACT;
+        if (bestValue <= startAlpha) {
+            flag = TranspositionTable.K_UPPER;
+        } else if (bestValue >= beta) {
+            flag = TranspositionTable.K_LOWER;
+        }
+        table.store(key, depthToStore, flag, toTable(bestValue, ply), bestMove);
+        return bestValue;
+    }
+
+    /**
+     * Функция оценки: башня стоит как ее верхняя шашка (простая или дамка) плюс бонус за каждую пленную шашку
+     * соперника под ней
+     */
+    private int evaluate(Color current) {
+        int value = 0;
+        for (int rest = board.getOccupied(); rest != 0; rest &= rest - 1) {
+            Tower tower = board.getTower(Integer.numberOfTrailingZeros(rest));
+            long heightMask = -1L >>> Long.SIZE - tower.getHeight();
+            long own = tower.getColor() == Color.WHITE ? tower.getColors() : ~tower.getColors() & heightMask;
+            int prisoners = tower.getHeight() - Long.bitCount(own);
+
+            int towerValue = (tower.isItQueen() ? K_QUEEN : K_MAN) + K_PRISONER * prisoners;
+            value += tower.getColor() == current ? towerValue : -towerValue;
+        }
+        return value;
+    }
+
+    /**
+     * Функция переводит оценку выигрыша в расстояние от текущего узла, чтобы хранить ее в таблице
+     */
+    private static int toTable(int value, int ply) {
+        if (value >= Search.K_WIN - Search.K_MAX_PLY) {
+            return value + ply;
+        }
+        if (value <= -Search.K_WIN + Search.K_MAX_PLY) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    /**
+     * Функция переводит оценку выигрыша из таблицы обратно в расстояние от корня
+     */
+    private static int fromTable(int value, int ply) {
+        if (value >= Search.K_WIN - Search.K_MAX_PLY) {
+            return value - ply;
+        }
+        if (value <= -Search.K_WIN + Search.K_MAX_PLY) {
+            return value + ply;
+        }
+        return value;
+    }
+    //----------------------------------------------------------------------------------
+}
@@ -1,99 +1,175 @@
 package ru.khuzint;
 
-import java.util.ArrayList;
-
+/**
+ * Класс башня. Шашки башни хранятся битовыми строками: i-й бит --- i-я шашка сверху.
+ * Позиция хранится одна на всю башню
+ */
 public final class Tower {
-    private final ArrayList<Checker> checkers = new ArrayList<>();
+    /**
+     * Константное поле максимальной высоты башни
+     */
+    public static final int K_MAX_HEIGHT = Long.SIZE;
+
+    private Cell cell;
+
+    /**
+     * Битовая строка цветов: 1 --- белая шашка, 0 --- черная
+     */
+    private long colors;
+
+    /**
+     * Битовая строка дамок: 1 --- дамка, 0 --- простая шашка
+     */
+    private long queens;
+
+    private int height;
 
     Tower(String towerDescription) {
         String[] posAndColors = towerDescription.split("_");
         String position = posAndColors[0];
         String checkersColors = posAndColors[1];
 
+        this.cell = Checker.getCellFromPos(position);
         for (int idx = 0; idx < checkersColors.length(); ++idx) {
-            var currentColor = checkersColors.substring(idx, idx + 1);
-            placeCheckerOnPosition(currentColor, position);
+            placeCheckerOnBottom(checkersColors.charAt(idx));
         }
     }
 
-    private void placeCheckerOnPosition(String currentColor, String position) {
-        Color color = currentColor.matches("[wW]") ? Color.WHITE : Color.BLACK;
-        Checker currentChecker = new Checker(position, color);
+    /**
+     * Конструктор башни из битовых строк, поле башни задает доска
+     */
+    Tower(long colors, long queens, int height) {
+        this.colors = colors;
+        this.queens = queens;
+        this.height = height;
+    }
 
-        if (currentColor.matches("[WB]")) {
-            currentChecker.makeQueen();
-        }
+    /**
+     * Конструктор копии башни, нужен поиску, у каждого потока которого своя доска
+     */
+    Tower(Tower other) {
+        this.cell = other.cell;
+        this.colors = other.colors;
+        this.queens = other.queens;
+        this.height = other.height;
+    }
+
+    private void placeCheckerOnBottom(char currentColor) {
+        long color = currentColor == 'w' || currentColor == 'W' ? 1 : 0;
+        long queen = Character.isUpperCase(currentColor) ? 1 : 0;
+        pushChecker(color, queen);
+    }
 
-        checkers.add(currentChecker);
+    private void pushChecker(long color, long queen) {
+        colors |= color << height;
+        queens |= queen << height;
+        height++;
     }
 
-    private void pushChecker(Checker checker) {
-        checker.setCell(topChecker().getCell());
-        checkers.add(checker);
+    public void shiftChecker(Tower other) {
+        long color = other.colors & 1;
+        long queen = other.queens & 1;
+
+        other.colors >>>= 1;
+        other.queens >>>= 1;
+        other.height--;
+
+        this.pushChecker(color, queen);
     }
 
-    private Checker topChecker() {
-        return checkers.get(0);
+    /**
+     * Функция возвращает нижнюю шашку этой башни наверх башни other, обратна shiftChecker
+     */
+    void unshiftChecker(Tower other) {
+        height--;
+        long color = colors >>> height & 1;
+        long queen = queens >>> height & 1;
+        colors &= ~(1L << height);
+        queens &= ~(1L << height);
+
+        other.colors = other.colors << 1 | color;
+        other.queens = other.queens << 1 | queen;
+        other.height++;
     }
 
-    private Checker popChecker() {
-        Checker top = topChecker();
-        checkers.remove(0);
-        return top;
+    /**
+     * Функция возвращает битовую строку цветов, i-й бит --- i-я шашка сверху
+     */
+    long getColors() {
+        return colors;
     }
 
-    public void shiftChecker(Tower other) {
-        this.pushChecker(other.popChecker());
+    /**
+     * Функция возвращает битовую строку дамок, i-й бит --- i-я шашка сверху
+     */
+    long getQueens() {
+        return queens;
     }
 
     public boolean isItEmptyTower() {
-        return checkers.size() == 0;
+        return height == 0;
+    }
+
+    public int getHeight() {
+        return height;
     }
 
     public void setCell(Cell cell) {
-        for (var current : checkers) {
-            current.setCell(cell);
-        }
+        this.cell = cell;
     }
 
     public Cell getCell() {
-        return topChecker().getCell();
+        return cell;
     }
 
     public void makeQueen() {
-        topChecker().makeQueen();
+        queens |= 1;
+    }
+
+    /**
+     * Функция снимает с верхней шашки звание дамки, обратна makeQueen
+     */
+    void unmakeQueen() {
+        queens &= ~1L;
     }
 
     public boolean isItQueen() {
-        return topChecker().isItQueen();
+        return (queens & 1) != 0;
     }
 
     public boolean isItOnLastRow() {
-        return topChecker().isItOnLastRow();
+        if (getColor() == Color.WHITE) {
+            return cell.getY() == Game.K_BOARD_SIZE;
+        } else {
+            return cell.getY() == 1;
+        }
     }
 
     public Color getColor() {
-        return topChecker().getColor();
+        return (colors & 1) != 0 ? Color.WHITE : Color.BLACK;
     }
 
     public String getStringPos() {
-        return topChecker().getStringPos();
+        char startLetter = isItQueen() ? 'A' : 'a';
+        char letter = (char) (startLetter + cell.getX() - 1);
+        char number = (char) ('0' + cell.getY());
+        return letter + Character.toString(number);
     }
 
     public String getTowerDescription() {
         String towerPos = getStringPos();
 
-        char[] colors = new char[checkers.size()];
-        for (int idx = 0; idx < checkers.size(); ++idx) {
-            var current = checkers.get(idx);
+        char[] checkersColors = new char[height];
+        for (int idx = 0; idx < height; ++idx) {
+            boolean isItQueen = (queens >>> idx & 1) != 0;
 
-            if (current.getColor() == Color.WHITE) {
-                colors[idx] = current.isItQueen() ? 'W' : 'w';
+            if ((colors >>> idx & 1) != 0) {
+                checkersColors[idx] = isItQueen ? 'W' : 'w';
             } else {
-                colors[idx] = current.isItQueen() ? 'B' : 'b';
+                checkersColors[idx] = isItQueen ? 'B' : 'b';
             }
         }
 
-        return towerPos.toLowerCase() + "_" + new String(colors);
+        return towerPos.toLowerCase() + "_" + new String(checkersColors);
     }
 }
@@ -0,0 +1,102 @@
+package ru.khuzint;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Класс таблицы транспозиций фиксированного размера, общей для всех потоков поиска и работающей без блокировок.
+ * Каждая запись упакована в один long: оценка (32 бита), глубина (8 бит), тип оценки (2 бита),
+ * номер лучшего хода в MoveBuffer + 1 (12 бит) и бит занятости.
+ * Рядом с записью хранится ключ Зобриста, сложенный с ней по XOR: если два потока пишут одну ячейку
+ * одновременно и ключ со записью оказались от разных записей, проверка ключа при чтении не пройдет
+ */
+final class TranspositionTable {
+    /**
+     * Константные поля типов оценки: точная, оценка снизу (отсечение по beta) и сверху (ни один ход не улучшил alpha)
+     */
+    static final int K_EXACT = 0;
+    static final int K_LOWER = 1;
+    static final int K_UPPER = 2;
+
+    private static final int K_DEPTH_SHIFT = 32;
+    private static final int K_FLAG_SHIFT = 40;
+    private static final int K_MOVE_SHIFT = 42;
+    private static final long K_DEPTH_MASK = 0xFF;
+    private static final long K_FLAG_MASK = 0x3;
+    private static final long K_MOVE_MASK = 0xFFF;
+    private static final long K_SCORE_MASK = 0xFFFFFFFFL;
+    private static final long K_USED = 1L << Long.SIZE - 1;
+
+    /**
+     * Ячейка index занимает два элемента: slots[2 * index] --- ключ XOR запись, slots[2 * index + 1] --- запись
+     */
+    private final AtomicLongArray slots;
+    private final int indexMask;
+
+    /**
+     * @param sizeLog --- двоичный логарифм количества записей
+     */
+    TranspositionTable(int sizeLog) {
+        slots = new AtomicLongArray(2 << sizeLog);
+        indexMask = (1 << sizeLog) - 1;
+    }
+
+    /**
+     * Функция возвращает запись для ключа или 0, если записи нет
+     */
+    long probe(long key) {
+        int slot = 2 * ((int) key & indexMask);
+        long entry = slots.getOpaque(slot + 1);
+        return (slots.getOpaque(slot) ^ entry) == key ? entry : 0;
+    }
+
+    /**
+     * Функция сохраняет запись. Запись другой позиции заменяется всегда, той же позиции --- если глубина не меньше
+     *
+     * @param move --- номер лучшего хода в MoveBuffer или -1
+     */
+    void store(long key, int depth, int flag, int score, int move) {
+        long stored = probe(key);
+        if (stored != 0 && getDepth(stored) > depth) {
+            return;
+        }
+
+        long storedMove = move + 1 <= K_MOVE_MASK ? move + 1 : 0;
+        long entry = K_USED
+                | storedMove << K_MOVE_SHIFT
+                | (long) flag << K_FLAG_SHIFT
+                | (long) depth << K_DEPTH_SHIFT
+                | score & K_SCORE_MASK;
+
+        int slot = 2 * ((int) key & indexMask);
+        slots.setOpaque(slot, key ^ entry);
+        slots.setOpaque(slot + 1, entry);
+    }
+
+    /**
+     * Функция очищает таблицу, вызывать только когда поиск не идет
+     */
+    void clear() {
+        for (int slot = 0; slot < slots.length(); ++slot) {
+            slots.set(slot, 0);
+        }
+    }
+
+    static int getScore(long entry) {
+        return (int) entry;
+    }
+
+    static int getDepth(long entry) {
+        return (int) (entry >>> K_DEPTH_SHIFT & K_DEPTH_MASK);
+    }
+
+    static int getFlag(long entry) {
+        return (int) (entry >>> K_FLAG_SHIFT & K_FLAG_MASK);
+    }
+
+    /**
+     * Функция возвращает номер лучшего хода записи или -1
+     */
+    static int getMove(long entry) {
+        return (int) (entry >>> K_MOVE_SHIFT & K_MOVE_MASK) - 1;
+    }
+}
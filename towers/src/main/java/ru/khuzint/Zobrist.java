@@ -0,0 +1,66 @@
+package ru.khuzint;
+
+import java.util.SplittableRandom;
+
+/**
+ * Класс ключей Зобриста. Ключ позиции --- XOR ключей всех башен, поэтому он обновляется за O(1) при каждом
+ * изменении башни. Башен разного состава слишком много для таблицы, поэтому ключ башни --- перемешанные
+ * случайный ключ поля, битовые строки цветов и дамок и высота.
+ * Ключи получаются из фиксированного зерна и одинаковы при каждом запуске
+ */
+final class Zobrist {
+    private static final long K_SEED = 0x5EED_70E2_4E25L;
+
+    /**
+     * Константы перемешивания из SplitMix64
+     */
+    private static final long K_GOLDEN_GAMMA = 0x9E37_79B9_7F4A_7C15L;
+    private static final long K_MIX_1 = 0xBF58_476D_1CE4_E5B9L;
+    private static final long K_MIX_2 = 0x94D0_49BB_1331_11EBL;
+    private static final int K_SHIFT_1 = 30;
+    private static final int K_SHIFT_2 = 27;
+    private static final int K_SHIFT_3 = 31;
+
+    /**
+     * Случайные ключи полей
+     */
+    private static final long[] SQUARES = new long[Board.K_SQUARES];
+
+    /**
+     * Ключ хода черных
+     */
+    private static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(K_SEED);
+        for (int square = 0; square < Board.K_SQUARES; ++square) {
+            SQUARES[square] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Функция возвращает ключ башни на поле, зависящий от всех ее шашек
+     */
+    static long getTowerKey(int square, Tower tower) {
+        long key = mix(SQUARES[square] ^ tower.getColors());
+        key = mix(key + K_GOLDEN_GAMMA ^ tower.getQueens());
+        return mix(key + K_GOLDEN_GAMMA ^ tower.getHeight());
+    }
+
+    /**
+     * Функция возвращает ключ, который добавляется к ключу доски, если ходят черные
+     */
+    static long getSideKey(Color color) {
+        return color == Color.WHITE ? 0 : SIDE;
+    }
+
+    private static long mix(long value) {
+        long result = (value ^ value >>> K_SHIFT_1) * K_MIX_1;
+        result = (result ^ result >>> K_SHIFT_2) * K_MIX_2;
+        return result ^ result >>> K_SHIFT_3;
+    }
+}
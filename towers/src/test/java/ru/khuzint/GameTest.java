@@ -272,4 +272,118 @@ public class GameTest {
         System.out.println("¯\\_(ツ)_/¯\n");
     }
 
+    @Test
+    void tallTowerTest() {
+        Game game = new Game();
+
+        try {
+            String[] whiteTowers = {"c3_wBwBwBwBwB"};
+            String[] blackTowers = {"d4_bWbWbWbWbW"};
+
+            game.placeTowers(whiteTowers);
+            game.placeTowers(blackTowers);
+
+            String[] moves = {"c3_wBwBwBwBwB:e5_wBwBwBwBwBb", "d4_WbWbWbWbW-c3_WbWbWbWbW"};
+
+            for (var move : moves) {
+                game.makeMove(move);
+            }
+
+            String[] newWhite = game.getTowersDescriptionByColor(Color.WHITE);
+            String[] newBlack = game.getTowersDescriptionByColor(Color.BLACK);
+
+            String[] whiteOutput = {"c3_WbWbWbWbW", "e5_wBwBwBwBwBb"};
+
+            Assertions.assertThat(newWhite).isEqualTo(whiteOutput);
+            Assertions.assertThat(newBlack).isEmpty();
+
+        } catch (Exception ignored) {
+        }
+
+        System.out.println("(ᵔᴥᵔ)\n");
+    }
+
+    @Test
+    void replaceTowerTest() throws GameException {
+        Game game = new Game();
+        String tall = "c3_" + "w".repeat(40);
+
+        // замененная башня уходит с доски, и ее шашки больше не считаются
+        for (int idx = 0; idx < 10; ++idx) {
+            game.placeTowers(new String[]{tall});
+        }
+        game.placeTowers(new String[]{"e5_" + "b".repeat(24)});
+        Assertions.assertThat(game.getTowersDescriptionByColor(Color.WHITE)).containsExactly(tall);
+
+        // но все шашки доски по-прежнему должны помещаться в одну башню
+        Assertions.assertThatThrownBy(() -> game.placeTowers(new String[]{"g7_b"}))
+                .isInstanceOf(IncorrectInputException.class);
+        game.placeTowers(new String[]{"c3_w"});
+        game.placeTowers(new String[]{"g7_b"});
+        Assertions.assertThatThrownBy(() -> game.placeTowers(new String[]{"a1_" + "w".repeat(65)}))
+                .isInstanceOf(IncorrectInputException.class);
+
+        System.out.println("(•_•) ( •_•)>⌐■-■ (⌐■_■)\n");
+    }
+
+    @Test
+    void positionKeyTest() throws GameException {
+        Game first = new Game();
+        first.placeTowers(new String[]{"c3_w", "g7_wb", "d4_bw"});
+        first.makeMove("c3_w:e5_wb");
+        first.makeMove("g7_wb-h8_Wb");
+
+        // та же позиция, расставленная сразу: в башне на e5 пленная черная шашка, на d4 осталась белая
+        Game second = new Game();
+        second.placeTowers(new String[]{"e5_wb", "H8_Wb", "d4_w"});
+
+        Assertions.assertThat(first).isEqualTo(second);
+        Assertions.assertThat(first.hashCode()).isEqualTo(second.hashCode());
+        Assertions.assertThat(first.getZobristKey()).isEqualTo(second.getZobristKey());
+
+        // те же верхние шашки, но другой состав башни
+        Game third = new Game();
+        third.placeTowers(new String[]{"e5_w", "H8_Wb", "d4_w"});
+
+        Assertions.assertThat(third).isNotEqualTo(first);
+        Assertions.assertThat(third.getZobristKey()).isNotEqualTo(first.getZobristKey());
+
+        Assertions.assertThat(Checker.getCellFromPos("c3")).isEqualTo(Checker.getCellFromPos("C3"));
+        Assertions.assertThat(Checker.getCellFromPos("c3")).hasSameHashCodeAs(Checker.getCellFromPos("C3"));
+        Assertions.assertThat(Checker.getCellFromPos("c3")).isSameAs(Checker.getCellFromPos("C3"));
+        Assertions.assertThat(Checker.getCellFromPos("c3").getSquare()).isEqualTo(Board.getSquare(3, 3));
+        Assertions.assertThat(Checker.getCellFromPos("d3").isItValidCell()).isFalse();
+        Assertions.assertThat(Cell.valueOf(0, 1).isItCellInBoard()).isFalse();
+
+        System.out.println("(☞ﾟヮﾟ)☞\n");
+    }
+
+    @Test
+    void charSequenceMoveTest() throws GameException {
+        Game game = new Game();
+        game.placeTowers(new String[]{"c3_w", "e3_w", "d4_b", "f6_b"});
+
+        // ходы читаются из середины буфера, без отдельных строк
+        StringBuilder line = new StringBuilder("c3_w:e5_wb:g7_wbb: e3_w-f4_w");
+        game.makeMove(line, 0, 18);
+        game.makeMove(line, 19, line.length());
+
+        Game expected = new Game();
+        expected.placeTowers(new String[]{"g7_wbb", "f4_w"});
+        Assertions.assertThat(game).isEqualTo(expected);
+
+        // ошибки те же, что у строкового хода: из описания башни важно только поле
+        for (var move : new String[]{"f4-", "f4--g5", "f-g5", "-g5", "f4:g", "f4::h6"}) {
+            Assertions.assertThatThrownBy(() -> game.makeMove(move)).isInstanceOf(IndexOutOfBoundsException.class);
+            Assertions.assertThatThrownBy(() -> game.makeMove(" " + move + " ", 1, move.length() + 1))
+                    .isInstanceOf(IndexOutOfBoundsException.class);
+        }
+        Assertions.assertThatThrownBy(() -> game.makeMove("G7_w-G8_w")).isInstanceOf(WhiteCellException.class);
+        Assertions.assertThatThrownBy(() -> game.makeMove("a1_w-b2_w")).isInstanceOf(EmptyCellException.class);
+        game.makeMove("f4");
+        game.makeMove("f4_wxyz-g5_anything");
+        Assertions.assertThat(game.getTowersDescriptionByColor(Color.WHITE)).containsExactly("g5_w", "g7_wbb");
+
+        System.out.println("ヽ(•‿•)ノ\n");
+    }
 }
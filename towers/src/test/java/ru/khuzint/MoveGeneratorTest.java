@@ -0,0 +1,102 @@
+package ru.khuzint;
+
+import org.junit.jupiter.api.Test;
+import org.assertj.core.api.Assertions;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class MoveGeneratorTest {
+    private static final String[] WHITE_START = {"a1_w", "a3_w", "b2_w", "c1_w", "c3_w", "d2_w",
+            "e1_w", "e3_w", "f2_w", "g1_w", "g3_w", "h2_w"};
+    private static final String[] BLACK_START = {"a7_b", "b6_b", "b8_b", "c7_b", "d6_b", "d8_b",
+            "e7_b", "f6_b", "f8_b", "g7_b", "h6_b", "h8_b"};
+
+    private static ArrayList<String> generateMoveStrings(Game game, Color color) {
+        MoveBuffer buffer = new MoveBuffer();
+        new MoveGenerator(game).generate(color, buffer);
+
+        ArrayList<String> moves = new ArrayList<>();
+        for (int idx = 0; idx < buffer.size(); ++idx) {
+            moves.add(buffer.getMoveString(idx));
+        }
+        return moves;
+    }
+
+    private static Game copyGame(Game game) throws GameException {
+        Game copy = new Game();
+        copy.placeTowers(game.getTowersDescriptionByColor(Color.WHITE));
+        copy.placeTowers(game.getTowersDescriptionByColor(Color.BLACK));
+        return copy;
+    }
+
+    @Test
+    void startPositionTest() throws GameException {
+        Game game = new Game();
+        game.placeTowers(WHITE_START);
+        game.placeTowers(BLACK_START);
+
+        Assertions.assertThat(generateMoveStrings(game, Color.WHITE)).containsExactlyInAnyOrder(
+                "a3-b4", "c3-b4", "c3-d4", "e3-d4", "e3-f4", "g3-f4", "g3-h4");
+        Assertions.assertThat(generateMoveStrings(game, Color.BLACK)).hasSize(7);
+
+        System.out.println("(ﾉ◕ヮ◕)ﾉ*:･ﾟ✧ \n");
+    }
+
+    @Test
+    void attackTowerOnceTest() throws GameException {
+        Game game = new Game();
+        game.placeTowers(new String[]{"A1_W"});
+        game.placeTowers(new String[]{"c3_bb"});
+
+        String[] whiteBefore = game.getTowersDescriptionByColor(Color.WHITE);
+        String[] blackBefore = game.getTowersDescriptionByColor(Color.BLACK);
+
+        // после взятия на c3 остается черная шашка, но второй раз ту же башню бить нельзя
+        Assertions.assertThat(generateMoveStrings(game, Color.WHITE)).containsExactlyInAnyOrder(
+                "a1:d4", "a1:e5", "a1:f6", "a1:g7", "a1:h8");
+
+        // генератор откатывает все взятия
+        Assertions.assertThat(game.getTowersDescriptionByColor(Color.WHITE)).isEqualTo(whiteBefore);
+        Assertions.assertThat(game.getTowersDescriptionByColor(Color.BLACK)).isEqualTo(blackBefore);
+
+        System.out.println("(⌒‿⌒)\n");
+    }
+
+    @Test
+    void randomGamesTest() throws GameException {
+        Random random = new Random(2022);
+        MoveBuffer buffer = new MoveBuffer();
+        long checkedMoves = 0;
+
+        for (int gameIdx = 0; gameIdx < 200; ++gameIdx) {
+            Game game = new Game();
+            game.placeTowers(WHITE_START);
+            game.placeTowers(BLACK_START);
+            MoveGenerator generator = new MoveGenerator(game);
+
+            Color color = Color.WHITE;
+            for (int ply = 0; ply < 150; ++ply) {
+                String[] white = game.getTowersDescriptionByColor(Color.WHITE);
+                String[] black = game.getTowersDescriptionByColor(Color.BLACK);
+                if (generator.generate(color, buffer) == 0) {
+                    break;
+                }
+                Assertions.assertThat(game.getTowersDescriptionByColor(Color.WHITE)).isEqualTo(white);
+                Assertions.assertThat(game.getTowersDescriptionByColor(Color.BLACK)).isEqualTo(black);
+
+                // каждый найденный ход должен приниматься строковым makeMove
+                for (int idx = 0; idx < buffer.size(); ++idx) {
+                    copyGame(game).makeMove(buffer.getMoveString(idx));
+                    checkedMoves++;
+                }
+
+                game.makeMove(buffer, random.nextInt(buffer.size()));
+                color = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+            }
+        }
+
+        Assertions.assertThat(checkedMoves).isGreaterThan(10000);
+        System.out.println("(* ^ ω ^)\n");
+    }
+}
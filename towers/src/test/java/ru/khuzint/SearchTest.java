@@ -0,0 +1,121 @@
+package ru.khuzint;
+
+import org.junit.jupiter.api.Test;
+import org.assertj.core.api.Assertions;
+
+import java.util.Random;
+
+public class SearchTest {
+    private static Game copyGame(Game game) throws GameException {
+        Game copy = new Game();
+        copy.placeTowers(game.getTowersDescriptionByColor(Color.WHITE));
+        copy.placeTowers(game.getTowersDescriptionByColor(Color.BLACK));
+        return copy;
+    }
+
+    @Test
+    void keyTest() throws GameException {
+        Random random = new Random(2022);
+        MoveBuffer buffer = new MoveBuffer();
+        MoveUndo undo = new MoveUndo();
+
+        for (int gameIdx = 0; gameIdx < 50; ++gameIdx) {
+            Game game = Perft.createStartGame();
+            Board board = game.getBoard();
+            MoveGenerator generator = new MoveGenerator(game);
+            Color color = Color.WHITE;
+
+            for (int ply = 0; ply < 100 && generator.generate(color, buffer) != 0; ++ply) {
+                // генератор и makeMove/unmakeMove возвращают ключ к исходному
+                long key = board.getKey();
+                Assertions.assertThat(key).isEqualTo(copyGame(game).getBoard().getKey());
+                for (int idx = 0; idx < buffer.size(); ++idx) {
+                    board.makeMove(buffer, idx, undo);
+                    board.unmakeMove(buffer, idx, undo);
+                    Assertions.assertThat(board.getKey()).isEqualTo(key);
+                }
+
+                // инкрементальный ключ совпадает с ключом той же позиции, расставленной с нуля
+                int idx = random.nextInt(buffer.size());
+                board.makeMove(buffer, idx, undo);
+                Assertions.assertThat(board.getKey()).isEqualTo(copyGame(game).getBoard().getKey());
+                board.unmakeMove(buffer, idx, undo);
+
+                game.makeMove(buffer, idx);
+                Assertions.assertThat(board.getKey()).isEqualTo(copyGame(game).getBoard().getKey());
+                color = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+            }
+        }
+
+        System.out.println("ʕ•ᴥ•ʔ\n");
+    }
+
+    @Test
+    void stackKeyTest() throws GameException {
+        Game first = new Game();
+        first.placeTowers(new String[]{"c3_wb"});
+        Game second = new Game();
+        second.placeTowers(new String[]{"c3_wbb"});
+        Game third = new Game();
+        third.placeTowers(new String[]{"c3_Wb"});
+
+        // ключ зависит от всех шашек башни, а не только от верхней
+        Assertions.assertThat(first.getBoard().getKey()).isNotEqualTo(second.getBoard().getKey());
+        Assertions.assertThat(first.getBoard().getKey()).isNotEqualTo(third.getBoard().getKey());
+
+        System.out.println("(◕‿◕✿)\n");
+    }
+
+    @Test
+    void winTest() throws GameException {
+        Game game = new Game();
+        game.placeTowers(new String[]{"a1_w", "e3_w", "h4_b"});
+
+        try (Search search = new Search(game, 2)) {
+            // после e3-f4 оба хода черной башни, и вперед, и назад, подставляют ее под бой
+            Assertions.assertThat(search.bestMove(Color.WHITE, 10_000, 6)).isEqualTo("e3-f4");
+            Assertions.assertThat(search.getScore()).isEqualTo(Search.K_WIN - 3);
+        }
+
+        System.out.println("(ง'̀-'́)ง\n");
+    }
+
+    @Test
+    void noMovesTest() throws GameException {
+        Game game = new Game();
+        game.placeTowers(new String[]{"b2_w", "c3_w", "a1_b"});
+
+        try (Search search = new Search(game, 2)) {
+            Assertions.assertThat(search.bestMove(Color.BLACK, 10_000)).isNull();
+            Assertions.assertThat(search.getScore()).isEqualTo(-Search.K_WIN);
+        }
+
+        System.out.println("¯\\_(ツ)_/¯\n");
+    }
+
+    @Test
+    void parallelTest() throws GameException {
+        Game game = Perft.createStartGame();
+        String[] white = game.getTowersDescriptionByColor(Color.WHITE);
+        String[] black = game.getTowersDescriptionByColor(Color.BLACK);
+
+        try (Search search = new Search(game, 4)) {
+            Assertions.assertThat(search.getThreads()).isEqualTo(4);
+
+            for (int move = 0; move < 6; ++move) {
+                Color color = move % 2 == 0 ? Color.WHITE : Color.BLACK;
+                String bestMove = search.bestMove(color, 200);
+
+                // потоки ищут на копиях, позиция игры не меняется
+                Assertions.assertThat(game.getTowersDescriptionByColor(Color.WHITE)).isEqualTo(white);
+                Assertions.assertThat(game.getTowersDescriptionByColor(Color.BLACK)).isEqualTo(black);
+
+                game.makeMove(bestMove);
+                white = game.getTowersDescriptionByColor(Color.WHITE);
+                black = game.getTowersDescriptionByColor(Color.BLACK);
+            }
+        }
+
+        System.out.println("(⌐■_■)\n");
+    }
+}